@@ -1,5 +1,6 @@
 package com.amalitech.smartshop.aspects;
 
+import com.amalitech.smartshop.cache.CacheManager;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -7,16 +8,34 @@ import org.aspectj.lang.annotation.Aspect;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+/**
+ * Collects database and cache metrics.
+ * <p>
+ * Database metrics are aggregated per repository method and cache metrics per cache
+ * region ({@code invent}, {@code prod}, ...), never per key, so memory use stays
+ * constant regardless of catalog size. Recording only touches {@link LongAdder}s and
+ * fixed-size histograms and takes no locks.
+ */
 @Aspect
 @Component
 @Slf4j
 public class PerformanceMonitoringAspect {
 
-    private final Map<String, QueryMetrics> dbMetrics = new HashMap<>();
-    private final Map<String, CacheMetrics> cacheMetrics = new HashMap<>();
+    /** Guards against unexpected key formats creating regions without bound. */
+    private static final int MAX_CACHE_REGIONS = 64;
+    private static final String OTHER_REGION = "other";
+
+    private final Map<String, QueryMetrics> dbMetrics = new ConcurrentHashMap<>();
+    private final Map<String, CacheMetrics> cacheMetrics = new ConcurrentHashMap<>();
+    private volatile Supplier<Map<String, Integer>> cacheSizes = Map::of;
 
     @Around("execution(* com.amalitech.smartshop.repositories..*(..))")
     public Object monitorDatabaseFetch(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -25,31 +44,25 @@ public class PerformanceMonitoringAspect {
         String methodName = joinPoint.getSignature().getName();
         String fullKey = className + "." + methodName;
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             Object result = joinPoint.proceed();
-            long executionTime = System.currentTimeMillis() - startTime;
+            long executionTime = System.nanoTime() - startTime;
 
-            synchronized (dbMetrics) {
-                dbMetrics.computeIfAbsent(fullKey, k -> new QueryMetrics())
-                        .recordExecution(executionTime);
-            }
+            dbMetrics.computeIfAbsent(fullKey, k -> new QueryMetrics()).recordExecution(executionTime);
 
-            log.info("DB Query: {} took {}ms", fullKey, executionTime);
+            log.info("DB Query: {} took {}ms", fullKey, TimeUnit.NANOSECONDS.toMillis(executionTime));
 
             return result;
         } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            synchronized (dbMetrics) {
-                dbMetrics.computeIfAbsent(fullKey + "_ERROR", k -> new QueryMetrics())
-                        .recordExecution(executionTime);
-            }
+            long executionTime = System.nanoTime() - startTime;
+            dbMetrics.computeIfAbsent(fullKey + "_ERROR", k -> new QueryMetrics()).recordExecution(executionTime);
             throw e;
         }
     }
 
-    public synchronized Map<String, Map<String, Object>> getDbFetchTimes() {
+    public Map<String, Map<String, Object>> getDbFetchTimes() {
         Map<String, Map<String, Object>> result = new HashMap<>();
         dbMetrics.forEach((key, metrics) -> {
             Map<String, Object> metricData = new HashMap<>();
@@ -58,98 +71,207 @@ public class PerformanceMonitoringAspect {
             metricData.put("avgTime", metrics.getAverageTime());
             metricData.put("minTime", metrics.getMinTime());
             metricData.put("maxTime", metrics.getMaxTime());
+            metrics.latency.putPercentiles(metricData);
             metricData.put("unit", "ms");
             result.put(key, metricData);
         });
         return result;
     }
 
-    public synchronized void clearMetrics() {
+    public void clearMetrics() {
         dbMetrics.clear();
         cacheMetrics.clear();
     }
 
     public void recordCacheHit(String key) {
-        synchronized (cacheMetrics) {
-            cacheMetrics.computeIfAbsent(key, k -> new CacheMetrics()).incrementHit();
-        }
+        regionMetrics(key).hits.increment();
     }
 
     public void recordCacheMiss(String key) {
-        synchronized (cacheMetrics) {
-            cacheMetrics.computeIfAbsent(key, k -> new CacheMetrics()).incrementMiss();
-        }
+        regionMetrics(key).misses.increment();
+    }
+
+    public void recordCacheEviction(String key) {
+        regionMetrics(key).evictions.increment();
+    }
+
+    public void recordCacheLoad(String key, long nanos) {
+        regionMetrics(key).loadTime.record(nanos);
+    }
+
+    /**
+     * Registers the source of the current entry count per region, read when metrics
+     * are requested.
+     */
+    public void registerCacheSizes(Supplier<Map<String, Integer>> sizes) {
+        this.cacheSizes = sizes;
     }
 
-    public synchronized Map<String, Map<String, Object>> getCacheMetrics() {
+    public Map<String, Map<String, Object>> getCacheMetrics() {
+        Map<String, Integer> sizes = cacheSizes.get();
         Map<String, Map<String, Object>> result = new HashMap<>();
-        cacheMetrics.forEach((key, metrics) -> {
+        cacheMetrics.forEach((region, metrics) -> {
             Map<String, Object> metricData = new HashMap<>();
             metricData.put("hits", metrics.getHits());
             metricData.put("misses", metrics.getMisses());
             metricData.put("hitRate", metrics.getHitRate());
-            result.put(key, metricData);
+            metricData.put("evictions", metrics.evictions.sum());
+            metricData.put("size", sizes.getOrDefault(region, 0));
+            metricData.put("loads", metrics.loadTime.count());
+            metrics.loadTime.putPercentiles(metricData);
+            metricData.put("loadTimeHistogram", metrics.loadTime.buckets());
+            metricData.put("unit", "ms");
+            result.put(region, metricData);
         });
+        sizes.forEach((region, size) -> result.computeIfAbsent(region, r -> {
+            Map<String, Object> metricData = new HashMap<>();
+            metricData.put("size", size);
+            return metricData;
+        }));
         return result;
     }
 
+    private CacheMetrics regionMetrics(String key) {
+        String region = CacheManager.regionOf(key);
+        CacheMetrics metrics = cacheMetrics.get(region);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (cacheMetrics.size() >= MAX_CACHE_REGIONS) {
+            region = OTHER_REGION;
+        }
+        return cacheMetrics.computeIfAbsent(region, r -> new CacheMetrics());
+    }
+
     private static class QueryMetrics {
-        private final AtomicInteger count = new AtomicInteger(0);
-        private long totalTime = 0;
-        private long minTime = Long.MAX_VALUE;
-        private long maxTime = 0;
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LatencyHistogram latency = new LatencyHistogram();
 
-        public synchronized void recordExecution(long time) {
-            count.incrementAndGet();
-            totalTime += time;
-            minTime = Math.min(minTime, time);
-            maxTime = Math.max(maxTime, time);
+        public void recordExecution(long nanos) {
+            totalNanos.add(nanos);
+            minNanos.accumulate(nanos);
+            maxNanos.accumulate(nanos);
+            latency.record(nanos);
         }
 
-        public int getCount() {
-            return count.get();
+        public long getCount() {
+            return latency.count();
         }
 
         public long getTotalTime() {
-            return totalTime;
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
         }
 
         public double getAverageTime() {
-            return count.get() > 0 ? (double) totalTime / count.get() : 0;
+            long count = getCount();
+            return count > 0 ? totalNanos.sum() / 1_000_000.0 / count : 0;
         }
 
         public long getMinTime() {
-            return minTime == Long.MAX_VALUE ? 0 : minTime;
+            long min = minNanos.get();
+            return min == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(min);
         }
 
         public long getMaxTime() {
-            return maxTime;
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
         }
     }
 
     private static class CacheMetrics {
-        private final AtomicInteger hits = new AtomicInteger(0);
-        private final AtomicInteger misses = new AtomicInteger(0);
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LatencyHistogram loadTime = new LatencyHistogram();
+
+        public long getHits() {
+            return hits.sum();
+        }
 
-        public void incrementHit() {
-            hits.incrementAndGet();
+        public long getMisses() {
+            return misses.sum();
         }
 
-        public void incrementMiss() {
-            misses.incrementAndGet();
+        public double getHitRate() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total > 0 ? (double) h / total * 100 : 0;
+        }
+    }
+
+    /**
+     * Latency histogram with power-of-two microsecond buckets: bucket {@code i} counts
+     * samples below {@code 2^i} µs, the last bucket everything slower. Percentiles
+     * are reported as the upper bound of the bucket they fall into.
+     */
+    private static class LatencyHistogram {
+        private static final int BUCKETS = 26; // the last bucket collects everything from ~16.8 s
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+        LatencyHistogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = new LongAdder();
+            }
         }
 
-        public int getHits() {
-            return hits.get();
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            counts[bucket].increment();
         }
 
-        public int getMisses() {
-            return misses.get();
+        long count() {
+            long total = 0;
+            for (LongAdder count : counts) {
+                total += count.sum();
+            }
+            return total;
         }
 
-        public double getHitRate() {
-            int total = hits.get() + misses.get();
-            return total > 0 ? (double) hits.get() / total * 100 : 0;
+        void putPercentiles(Map<String, Object> metricData) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts[i].sum();
+                total += snapshot[i];
+            }
+            metricData.put("p50Time", percentile(snapshot, total, 0.50));
+            metricData.put("p95Time", percentile(snapshot, total, 0.95));
+            metricData.put("p99Time", percentile(snapshot, total, 0.99));
+        }
+
+        /** Bucket counts keyed by their upper bound, e.g. {@code "<1.024ms"}; empty buckets are omitted. */
+        Map<String, Long> buckets() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = counts[i].sum();
+                if (count > 0) {
+                    String label = i == BUCKETS - 1 ? ">=" + upperBoundMillis(i - 1) + "ms" : "<" + upperBoundMillis(i) + "ms";
+                    result.put(label, count);
+                }
+            }
+            return result;
+        }
+
+        private static double percentile(long[] snapshot, long total, double fraction) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return upperBoundMillis(i);
+                }
+            }
+            return upperBoundMillis(snapshot.length - 1);
+        }
+
+        private static double upperBoundMillis(int bucket) {
+            return (1L << bucket) / 1000.0;
         }
     }
-}
\ No newline at end of file
+}
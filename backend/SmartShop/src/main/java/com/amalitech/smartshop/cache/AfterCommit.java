@@ -0,0 +1,47 @@
+package com.amalitech.smartshop.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers cache writes until the surrounding transaction commits, so a rolled back
+ * value is never published.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs {@code action} after the current transaction commits, or immediately if
+     * no transaction is active.
+     */
+    static void run(Runnable action) {
+        run(action, () -> { });
+    }
+
+    /**
+     * Runs {@code action} after the current transaction commits, or immediately if
+     * no transaction is active. If the transaction rolls back, or its outcome is
+     * unknown because the commit failed, {@code onFailure} runs instead.
+     */
+    static void run(Runnable action, Runnable onFailure) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        onFailure.run();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
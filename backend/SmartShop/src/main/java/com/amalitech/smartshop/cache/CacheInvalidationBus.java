@@ -0,0 +1,274 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.cache.ExistenceFilter.KeySpace;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Propagates cache invalidations, existence-filter additions and stock index changes
+ * between SmartShop instances over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Local invalidations are collected for a short batch window, deduplicated and sent
+ * as one notification per batch. A single background thread owns a dedicated
+ * connection used for both publishing and listening. If that connection drops,
+ * notifications sent while it was down are lost, so after reconnecting the
+ * configured regions are flushed and the existence filter and stock index are rebuilt.
+ * Any other failure of the thread is handled the same way rather than stopping it.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final int MAX_PAYLOAD_CHARS = 7000;
+    private static final String INVALIDATE = "I ";
+    private static final String EXISTS = "E ";
+    private static final String STOCK = "S ";
+    private static final String REMOVED = "-";
+
+    private final CacheManager cacheManager;
+    private final ExistenceFilter existenceFilter;
+    private final StockIndex stockIndex;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    /** Newest unsent stock change per product; unlike invalidations, only the last one may be sent. */
+    private final Map<Long, StockChange> pendingStock = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final boolean enabled;
+    private final String channel;
+    private final long batchWindowMillis;
+    private final long reconnectDelayMillis;
+    private final List<String> resyncRegions;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private volatile boolean running;
+    private Thread worker;
+    private Connection connection;
+
+    public CacheInvalidationBus(CacheManager cacheManager,
+                                ExistenceFilter existenceFilter,
+                                StockIndex stockIndex,
+                                @Value("${cache.bus.enabled:true}") boolean enabled,
+                                @Value("${cache.bus.channel:smartshop_cache}") String channel,
+                                @Value("${cache.bus.batch-window-millis:50}") long batchWindowMillis,
+                                @Value("${cache.bus.reconnect-delay-millis:1000}") long reconnectDelayMillis,
+                                @Value("${cache.bus.resync-regions:prod,invent,inventory,cat,ord,usr}") String resyncRegions,
+                                @Value("${spring.datasource.url}") String url,
+                                @Value("${spring.datasource.username}") String username,
+                                @Value("${spring.datasource.password}") String password) {
+        this.cacheManager = cacheManager;
+        this.existenceFilter = existenceFilter;
+        this.stockIndex = stockIndex;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.batchWindowMillis = batchWindowMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.resyncRegions = Arrays.stream(resyncRegions.split(",")).map(String::trim).filter(r -> !r.isEmpty()).toList();
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        if (enabled) {
+            cacheManager.addInvalidationListener(key -> pending.add(INVALIDATE + key));
+            existenceFilter.addAddListener((space, keyHash) -> pending.add(EXISTS + space.name() + " " + keyHash));
+            stockIndex.addChangeListener((productId, quantity, version) ->
+                    queueStock(productId, new StockChange(quantity != null ? quantity.toString() : REMOVED, version)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("cache-invalidation-bus").daemon(true).start(this::run);
+        log.info("Cache invalidation bus started on channel '{}' as node {}", channel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        boolean needsResync = false;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                    if (needsResync) {
+                        resync();
+                        needsResync = false;
+                    }
+                }
+                flush();
+                PGNotification[] notifications = connection.unwrap(PGConnection.class)
+                        .getNotifications((int) batchWindowMillis);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                log.warn("Cache invalidation bus connection lost: {}", e.getMessage());
+                closeQuietly();
+                needsResync = true;
+                sleep(reconnectDelayMillis);
+            } catch (RuntimeException e) {
+                // Notifications of the failed batch may be lost, so recover as after a dropped connection
+                log.error("Cache invalidation bus failed, reconnecting", e);
+                closeQuietly();
+                needsResync = true;
+                sleep(reconnectDelayMillis);
+            }
+        }
+        closeQuietly();
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement st = connection.createStatement()) {
+            st.execute("LISTEN " + channel);
+        }
+    }
+
+    /**
+     * Sends every pending message, split into payloads below the NOTIFY size limit.
+     * Messages are put back if sending fails so they go out after reconnecting.
+     */
+    private void flush() throws SQLException {
+        if (pending.isEmpty() && pendingStock.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>();
+        Iterator<String> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        Map<Long, StockChange> stockBatch = new HashMap<>();
+        for (Long productId : pendingStock.keySet()) {
+            StockChange change = pendingStock.remove(productId);
+            if (change != null) {
+                stockBatch.put(productId, change);
+                batch.add(STOCK + productId + " " + change.quantity() + " " + change.version());
+            }
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            StringBuilder payload = new StringBuilder(nodeId);
+            for (String message : batch) {
+                if (payload.length() + message.length() + 1 > MAX_PAYLOAD_CHARS) {
+                    send(ps, payload);
+                    payload.setLength(0);
+                    payload.append(nodeId);
+                }
+                payload.append('\n').append(message);
+            }
+            send(ps, payload);
+        } catch (SQLException e) {
+            batch.stream().filter(message -> !message.startsWith(STOCK)).forEach(pending::add);
+            stockBatch.forEach(this::queueStock);
+            throw e;
+        }
+    }
+
+    private void send(PreparedStatement ps, StringBuilder payload) throws SQLException {
+        ps.setString(1, channel);
+        ps.setString(2, payload.toString());
+        ps.execute();
+    }
+
+    private void apply(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines.length == 0 || nodeId.equals(lines[0])) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            try {
+                if (line.startsWith(INVALIDATE)) {
+                    cacheManager.invalidateLocal(line.substring(INVALIDATE.length()));
+                } else if (line.startsWith(EXISTS)) {
+                    String[] parts = line.substring(EXISTS.length()).split(" ");
+                    existenceFilter.applyAdd(KeySpace.valueOf(parts[0]), Long.parseLong(parts[1]));
+                } else if (line.startsWith(STOCK)) {
+                    String[] parts = line.substring(STOCK.length()).split(" ");
+                    long version = Long.parseLong(parts[2]);
+                    if (REMOVED.equals(parts[1])) {
+                        stockIndex.applyRemove(Long.parseLong(parts[0]), version);
+                    } else {
+                        stockIndex.applySet(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), version);
+                    }
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                log.warn("Ignoring malformed cache bus message: {}", line);
+            }
+        }
+    }
+
+    /**
+     * Queues a stock change unless a newer one of the same product is already waiting.
+     */
+    private void queueStock(long productId, StockChange change) {
+        pendingStock.merge(productId, change, (queued, next) -> next.version() >= queued.version() ? next : queued);
+    }
+
+    private void resync() {
+        log.info("Cache invalidation bus reconnected, flushing regions {}", resyncRegions);
+        for (String region : resyncRegions) {
+            cacheManager.invalidateRegion(region);
+        }
+        existenceFilter.rebuild();
+        stockIndex.rebuild();
+    }
+
+    private void closeQuietly() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing cache bus connection", e);
+            }
+            connection = null;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record StockChange(String quantity, long version) {
+    }
+}
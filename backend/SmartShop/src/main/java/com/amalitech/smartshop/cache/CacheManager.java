@@ -1,55 +1,415 @@
 package com.amalitech.smartshop.cache;
 
 import com.amalitech.smartshop.aspects.PerformanceMonitoringAspect;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * In-memory TTL cache shared by the service layer.
+ * <p>
+ * When refresh-ahead is enabled, an entry of a refresh region read within the
+ * refresh window before its expiry is reloaded in the background, and an expired
+ * entry is still served for the stale grace period while that reload runs. Hot keys
+ * therefore never pay the database round trip inline at a TTL boundary. Only the
+ * configured regions are refreshed, because a background reload re-runs the loader
+ * the entry was cached with: their loaders must read the source again instead of
+ * returning an object captured when the entry was first loaded.
+ * <p>
+ * Entries evicted from the bounded on-heap map are demoted to the
+ * {@link OffHeapCacheTier}, serialized outside the cache lock, and promoted back
+ * when they are read again.
+ * <p>
+ * Every invalidation is stamped with a sequence number recorded in the key's
+ * generation stripe. A load remembers the sequence number from before it read the
+ * database and is discarded instead of cached if its key was invalidated since, so a
+ * reader racing a write can never put the old value back for a full TTL.
+ * <p>
+ * Composite values, such as a cached listing page, can declare the keys they were
+ * built from. Invalidating any of those keys also evicts the composite entry.
+ * Composite entries are never demoted to the off-heap tier, where their
+ * dependencies would no longer be tracked.
+ */
 @Component
 @Slf4j
 public class CacheManager {
 
     private static final int MAX_CACHE_SIZE = 1000;
-    private static final long TTL_SECONDS = 300; // 5 minutes
+    private static final int GENERATION_STRIPES = 4096;
 
     private final Map<String, CacheEntry> cache = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicLong> regionVersions = new ConcurrentHashMap<>();
+    private final Queue<Demotion> demotions = new ConcurrentLinkedQueue<>();
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final long[] generations = new long[GENERATION_STRIPES];
     private final PerformanceMonitoringAspect performanceMonitor;
+    private final OffHeapCacheTier offHeapTier;
+    private final ExecutorService refreshExecutor;
 
-    public CacheManager(PerformanceMonitoringAspect performanceMonitor) {
+    private final long ttlMillis;
+    private final boolean refreshAheadEnabled;
+    private final long refreshWindowMillis;
+    private final long staleGraceMillis;
+    private final Set<String> refreshRegions;
+
+    public CacheManager(PerformanceMonitoringAspect performanceMonitor,
+                        OffHeapCacheTier offHeapTier,
+                        @Value("${cache.ttl-seconds:300}") long ttlSeconds,
+                        @Value("${cache.refresh-ahead.enabled:true}") boolean refreshAheadEnabled,
+                        @Value("${cache.refresh-ahead.window-seconds:30}") long refreshWindowSeconds,
+                        @Value("${cache.refresh-ahead.stale-grace-seconds:60}") long staleGraceSeconds,
+                        @Value("${cache.refresh-ahead.threads:2}") int refreshThreads,
+                        @Value("${cache.refresh-ahead.regions:cat,invent}") String refreshRegions) {
         this.performanceMonitor = performanceMonitor;
+        this.offHeapTier = offHeapTier;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.refreshAheadEnabled = refreshAheadEnabled;
+        this.refreshWindowMillis = TimeUnit.SECONDS.toMillis(refreshWindowSeconds);
+        this.staleGraceMillis = TimeUnit.SECONDS.toMillis(staleGraceSeconds);
+        this.refreshRegions = Arrays.stream(refreshRegions.split(",")).map(String::trim)
+                .filter(region -> !region.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads),
+                Thread.ofPlatform().name("cache-refresh-", 0).daemon(true).factory());
+        performanceMonitor.registerCacheSizes(this::regionSizes);
+    }
+
+    public <T> T get(String key, Supplier<T> supplier) {
+        return get(key, supplier, null);
     }
 
+    /**
+     * Like {@link #get(String, Supplier)}, but records the keys the loaded value was
+     * built from, so that invalidating any of them also evicts this entry.
+     *
+     * @param dependencies extracts the dependency keys from a loaded value
+     */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get(String key, Supplier<T> supplier) {
-        CacheEntry entry = cache.get(key);
+    public <T> T get(String key, Supplier<T> supplier, Function<? super T, ? extends Collection<String>> dependencies) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry;
+        synchronized (this) {
+            entry = cache.get(key);
+        }
 
-        if (entry != null && !entry.isExpired()) {
+        if (entry != null && now <= entry.expiresAt) {
             performanceMonitor.recordCacheHit(key);
             log.info("Cache HIT: {}", key);
+            if (refreshes(key) && entry.expiresAt - now <= refreshWindowMillis) {
+                scheduleRefresh(key, entry);
+            }
             return (T) entry.value;
         }
 
+        if (entry != null && refreshes(key) && now <= entry.expiresAt + staleGraceMillis) {
+            performanceMonitor.recordCacheHit(key);
+            log.info("Cache STALE HIT: {}", key);
+            scheduleRefresh(key, entry);
+            return (T) entry.value;
+        }
+
+        // An invalidation racing the promotion drops the promoted value, as for a load
+        long promotionStamp = loadStamp();
+        Optional<OffHeapCacheTier.Promoted> promoted = offHeapTier.take(key);
+        if (promoted.isPresent()) {
+            performanceMonitor.recordCacheHit(key);
+            log.info("Cache OFF-HEAP HIT: {}", key);
+            putIfCurrent(key, promoted.get().value(), supplier, null, promoted.get().expiresAt(), promotionStamp);
+            demotePending();
+            return (T) promoted.get().value();
+        }
+
         performanceMonitor.recordCacheMiss(key);
         log.info("Cache MISS: {}", key);
 
+        long stamp = loadStamp();
+        long loadStart = System.nanoTime();
         T value = supplier.get();
+        performanceMonitor.recordCacheLoad(key, System.nanoTime() - loadStart);
+        putIfCurrent(key, value, supplier, (Function<Object, Collection<String>>) dependencies,
+                System.currentTimeMillis() + ttlMillis, stamp);
+        demotePending();
+        return value;
+    }
 
-        evictIfNeeded();
-        cache.put(key, new CacheEntry(value, Instant.now().getEpochSecond() + TTL_SECONDS));
-        log.info("Cache PUT: {} (value={})", key, value != null ? "present" : "null");
+    /**
+     * Returns the stamp a caller loading values outside of {@link #get} must take
+     * before reading the database and pass to {@link #preload}.
+     */
+    public long loadStamp() {
+        return invalidationSequence.get();
+    }
 
-        return value;
+    /**
+     * Stores a value loaded in bulk, e.g. during warm-up, unless the key is already
+     * cached or was invalidated after {@code stamp} was taken. The loader is kept for
+     * refresh-ahead, like a value loaded by {@link #get}.
+     */
+    public <T> void preload(String key, T value, Supplier<T> loader, long stamp) {
+        synchronized (this) {
+            if (!cache.containsKey(key)) {
+                putIfCurrent(key, value, loader, null, System.currentTimeMillis() + ttlMillis, stamp);
+            }
+        }
+        demotePending();
     }
 
-    public synchronized void invalidate(String key) {
-        cache.remove(key);
+    /**
+     * Removes a key locally and notifies invalidation listeners, such as the
+     * cross-instance invalidation bus.
+     */
+    public void invalidate(String key) {
+        invalidateLocal(key);
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * Removes a key from this instance only, without notifying listeners.
+     */
+    public synchronized void invalidateLocal(String key) {
+        evict(key);
         log.info("Cache INVALIDATE: {}", key);
     }
 
+    /**
+     * Replaces a key with a value the caller has just written to the database, so
+     * the next read is a hit instead of a reload. Loads that started before the write
+     * are discarded and entries built from the key are evicted, exactly as for
+     * {@link #invalidate}; other instances receive a plain invalidation.
+     * <p>
+     * {@code stamp} must be taken with {@link #loadStamp()} after the write, while
+     * the row is still locked. If the key was invalidated or written through again
+     * since then, a later write has overtaken this one and the key is only evicted.
+     * <p>
+     * Inside a transaction the write is deferred until after commit, so a rolled
+     * back value is never cached; if the transaction does not commit the key is
+     * invalidated instead.
+     */
+    public <T> void writeThrough(String key, T value, Supplier<T> loader, long stamp) {
+        AfterCommit.run(() -> writeThroughNow(key, value, loader, stamp), () -> invalidate(key));
+    }
+
+    /**
+     * Removes every key of a region, e.g. {@code "prod"} for all {@code prod:*} keys,
+     * from this instance only.
+     */
+    public synchronized void invalidateRegion(String region) {
+        String prefix = region + ":";
+        cache.keySet().stream().filter(key -> key.startsWith(prefix)).toList().forEach(this::remove);
+        offHeapTier.removeRegion(region);
+        Arrays.fill(generations, invalidationSequence.incrementAndGet());
+        bumpRegionVersion(region);
+        dependents.keySet().stream().filter(key -> key.startsWith(prefix)).toList().forEach(this::evictDependents);
+        log.info("Cache INVALIDATE REGION: {}", region);
+    }
+
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Returns a counter that changes whenever a key of the region is invalidated on
+     * this instance, locally or through the invalidation bus. Used to tell whether
+     * a remembered ETag is still current without reading the underlying rows.
+     */
+    public long regionVersion(String region) {
+        AtomicLong version = regionVersions.get(region);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Returns the number of on-heap entries per region.
+     */
+    public synchronized Map<String, Integer> regionSizes() {
+        Map<String, Integer> sizes = new HashMap<>();
+        for (String key : cache.keySet()) {
+            sizes.merge(regionOf(key), 1, Integer::sum);
+        }
+        return sizes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void writeThroughNow(String key, Object value, Supplier<?> loader, long stamp) {
+        synchronized (this) {
+            boolean current = generations[stripe(key)] <= stamp;
+            evict(key);
+            if (current) {
+                put(key, new CacheEntry(value, loader, null, List.of(), System.currentTimeMillis() + ttlMillis));
+                log.info("Cache WRITE-THROUGH: {}", key);
+            } else {
+                log.info("Cache INVALIDATE: {} (overtaken write-through)", key);
+            }
+        }
+        demotePending();
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * Drops a key from both tiers, stamps its generation so in-flight loads are
+     * discarded, and evicts the entries built from it.
+     */
+    private void evict(String key) {
+        remove(key);
+        offHeapTier.remove(key);
+        generations[stripe(key)] = invalidationSequence.incrementAndGet();
+        bumpRegionVersion(regionOf(key));
+        evictDependents(key);
+    }
+
+    /**
+     * Caches a loaded value unless its key, or any key it depends on, was invalidated
+     * after the load started.
+     */
+    private synchronized boolean putIfCurrent(String key, Object value, Supplier<?> loader,
+                                           Function<Object, Collection<String>> dependencies,
+                                           long expiresAt, long stamp) {
+        Collection<String> dependsOn = dependencies != null && value != null ? dependencies.apply(value) : List.of();
+        if (generations[stripe(key)] > stamp
+                || dependsOn.stream().anyMatch(dependency -> generations[stripe(dependency)] > stamp)) {
+            log.info("Cache DISCARD: {} (invalidated during load)", key);
+            return false;
+        }
+        put(key, new CacheEntry(value, loader, dependencies, dependsOn, expiresAt));
+        return true;
+    }
+
+    private synchronized void put(String key, CacheEntry entry) {
+        CacheEntry previous = cache.get(key);
+        if (previous == null) {
+            evictIfNeeded();
+        } else {
+            unlinkDependencies(key, previous);
+        }
+        cache.put(key, entry);
+        for (String dependency : entry.dependsOn) {
+            dependents.computeIfAbsent(dependency, d -> new HashSet<>()).add(key);
+        }
+        log.info("Cache PUT: {} (value={})", key, entry.value != null ? "present" : "null");
+    }
+
+    private CacheEntry remove(String key) {
+        CacheEntry removed = cache.remove(key);
+        if (removed != null) {
+            unlinkDependencies(key, removed);
+        }
+        return removed;
+    }
+
+    private void unlinkDependencies(String key, CacheEntry entry) {
+        for (String dependency : entry.dependsOn) {
+            Set<String> keys = dependents.get(dependency);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the entries built from {@code dependency}. They are local derivations, so
+     * other instances evict their own copies when the dependency's invalidation
+     * reaches them.
+     */
+    private void evictDependents(String dependency) {
+        Set<String> keys = dependents.remove(dependency);
+        if (keys == null) {
+            return;
+        }
+        for (String key : List.copyOf(keys)) {
+            remove(key);
+            log.info("Cache INVALIDATE: {} (depends on {})", key, dependency);
+        }
+    }
+
+    private boolean refreshes(String key) {
+        return refreshAheadEnabled && refreshRegions.contains(regionOf(key));
+    }
+
+    /**
+     * Reloads an entry on the refresh executor. At most one reload per key runs at
+     * a time, and the result is dropped if the entry was invalidated or replaced
+     * while the reload was in flight.
+     */
+    private void scheduleRefresh(String key, CacheEntry staleEntry) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long stamp = loadStamp();
+                    long loadStart = System.nanoTime();
+                    Object value = staleEntry.loader.get();
+                    performanceMonitor.recordCacheLoad(key, System.nanoTime() - loadStart);
+                    synchronized (this) {
+                        if (cache.get(key) == staleEntry && putIfCurrent(key, value, staleEntry.loader,
+                                staleEntry.dependencies, System.currentTimeMillis() + ttlMillis, stamp)) {
+                            log.info("Cache REFRESH: {}", key);
+                        }
+                    }
+                    demotePending();
+                } catch (Exception e) {
+                    log.warn("Cache refresh failed for {}: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void bumpRegionVersion(String region) {
+        regionVersions.computeIfAbsent(region, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    /**
+     * Returns the region of a key, i.e. the part before the first colon.
+     */
+    public static String regionOf(String key) {
+        int separator = key.indexOf(':');
+        return separator >= 0 ? key.substring(0, separator) : key;
+    }
+
     private void evictIfNeeded() {
         if (cache.size() >= MAX_CACHE_SIZE) {
             String oldestKey = cache.entrySet().stream()
@@ -57,16 +417,41 @@ public class CacheManager {
                     .map(e -> e.getKey())
                     .orElse(null);
             if (oldestKey != null) {
-                cache.remove(oldestKey);
+                CacheEntry evicted = remove(oldestKey);
+                if (evicted.dependsOn.isEmpty()) {
+                    demotions.add(new Demotion(oldestKey, evicted.value, evicted.expiresAt, invalidationSequence.get()));
+                }
+                performanceMonitor.recordCacheEviction(oldestKey);
                 log.info("Cache EVICT: {}", oldestKey);
             }
         }
     }
 
-    private record CacheEntry(Object value, long expiresAt) {
-
-        boolean isExpired() {
-                return Instant.now().getEpochSecond() > expiresAt;
+    /**
+     * Moves entries evicted from the on-heap tier into the off-heap tier. Must be
+     * called without holding the lock, since serializing a large value takes long; a
+     * value whose key was cached again or invalidated meanwhile is dropped.
+     */
+    private void demotePending() {
+        Demotion demotion;
+        while ((demotion = demotions.poll()) != null) {
+            Optional<byte[]> bytes = offHeapTier.encode(demotion.key(), demotion.value());
+            if (bytes.isEmpty()) {
+                continue;
+            }
+            synchronized (this) {
+                if (!cache.containsKey(demotion.key()) && generations[stripe(demotion.key())] <= demotion.stamp()) {
+                    offHeapTier.put(demotion.key(), bytes.get(), demotion.expiresAt());
+                    log.info("Cache DEMOTE: {}", demotion.key());
+                }
             }
         }
+    }
+
+    private record Demotion(String key, Object value, long expiresAt, long stamp) {
+    }
+
+    private record CacheEntry(Object value, Supplier<?> loader, Function<Object, Collection<String>> dependencies,
+                              Collection<String> dependsOn, long expiresAt) {
+    }
 }
@@ -0,0 +1,129 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.entities.Category;
+import com.amalitech.smartshop.interfaces.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the structures that serve catalog reads before the node takes traffic: the
+ * {@link CatalogEngine} snapshot, from which listings and search results are
+ * served, and the categories in the {@link CacheManager}.
+ * <p>
+ * Runs as the last {@link ApplicationRunner}, after {@code SeedData}. Spring Boot only
+ * switches the readiness state to {@code ACCEPTING_TRAFFIC} once all runners have
+ * returned, so {@code /actuator/health/readiness} reports the node as not ready until
+ * warm-up completes or the timeout passes. The stock index, existence filter and
+ * search index load in {@code ApplicationReadyEvent} listeners, which also finish
+ * before readiness changes, so they are not warmed here. Per-product {@code invent:}
+ * entries are not preloaded either: they are only read while the stock index is not
+ * loaded.
+ */
+@Component
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheWarmer implements ApplicationRunner {
+
+    private final CacheManager cacheManager;
+    private final CatalogEngine catalogEngine;
+    private final CategoryRepository categoryRepository;
+
+    private final boolean enabled;
+    private final long timeoutSeconds;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public CacheWarmer(CacheManager cacheManager,
+                       CatalogEngine catalogEngine,
+                       CategoryRepository categoryRepository,
+                       @Value("${cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${cache.warmup.timeout-seconds:30}") long timeoutSeconds,
+                       @Value("${spring.datasource.url}") String url,
+                       @Value("${spring.datasource.username}") String username,
+                       @Value("${spring.datasource.password}") String password) {
+        this.cacheManager = cacheManager;
+        this.catalogEngine = catalogEngine;
+        this.categoryRepository = categoryRepository;
+        this.enabled = enabled;
+        this.timeoutSeconds = timeoutSeconds;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(2,
+                Thread.ofPlatform().name("cache-warmup-", 0).daemon(true).factory());
+        try {
+            CompletableFuture<Void> snapshot = CompletableFuture.runAsync(catalogEngine::preload, executor);
+            CompletableFuture<Void> categories = CompletableFuture.runAsync(this::warmCategories, executor);
+
+            CompletableFuture.allOf(snapshot, categories).get(timeoutSeconds, TimeUnit.SECONDS);
+            log.info("Cache warm-up completed in {} ms", System.currentTimeMillis() - start);
+        } catch (TimeoutException e) {
+            log.warn("Cache warm-up did not finish within {} s, accepting traffic with a partially warm cache", timeoutSeconds);
+        } catch (ExecutionException e) {
+            log.warn("Cache warm-up failed, accepting traffic with a partially warm cache", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            shutdown(executor);
+        }
+    }
+
+    private void warmCategories() {
+        int count = 0;
+        long stamp = cacheManager.loadStamp();
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement("SELECT * FROM categories");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Category category = Category.builder()
+                        .id(rs.getLong("id"))
+                        .name(rs.getString("name"))
+                        .description(rs.getString("description"))
+                        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                        .build();
+                Long id = category.getId();
+                cacheManager.preload("cat:" + id, category, () -> categoryRepository.findById(id).orElse(null), stamp);
+                count++;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error warming up cache", e);
+        }
+        log.info("Cache warm-up loaded {} categories", count);
+    }
+
+    private void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.amalitech.smartshop.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds strong ETags for catalog responses.
+ * <p>
+ * A tag is a digest of the response data, so every instance serving the same data
+ * issues the same tag and a tag from one node is honoured by the others. To answer
+ * a matching {@code If-None-Match} with 304 before any database work, each instance
+ * remembers the last tag it computed per response together with the
+ * {@link CacheManager} region versions read before loading it; while none of those
+ * regions has been invalidated since, the remembered tag is still current.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogETags {
+
+    /** Shared caches may store the response but must revalidate it on every use. */
+    public static final CacheControl PUBLIC = CacheControl.noCache().cachePublic();
+
+    /** Only the requesting client may store the response, e.g. role-dependent listings. */
+    public static final CacheControl PRIVATE = CacheControl.noCache().cachePrivate();
+
+    /** Most responses whose tag is remembered; the least recently used are forgotten first. */
+    private static final int MAX_REMEMBERED = 10_000;
+
+    private final CacheManager cacheManager;
+    private final Map<String, Remembered> remembered = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Remembered> eldest) {
+            return size() > MAX_REMEMBERED;
+        }
+    };
+
+    /**
+     * Starts tagging a response. Must be called before the response data is loaded,
+     * so that a concurrent write can only make the remembered tag older than the data.
+     *
+     * @param scope   identifies the response, e.g. the endpoint and its query parameters
+     * @param regions the cache regions whose changes affect the response
+     */
+    public Tag tag(String scope, String... regions) {
+        long[] versions = new long[regions.length];
+        for (int i = 0; i < regions.length; i++) {
+            versions[i] = cacheManager.regionVersion(regions[i]);
+        }
+        Remembered last;
+        synchronized (remembered) {
+            last = remembered.get(scope);
+        }
+        String current = last != null && Arrays.equals(last.versions(), versions) ? last.etag() : null;
+        return new Tag(scope, versions, current);
+    }
+
+    public boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+
+    /**
+     * Returns the tag of {@code data}, a digest of its string form; response DTOs and
+     * records print every field, so equal data gives equal tags on every instance.
+     */
+    static String digest(Object data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(String.valueOf(data).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The tag of one response, started by {@link #tag}.
+     */
+    public final class Tag {
+
+        private final String scope;
+        private final long[] versions;
+        private final String current;
+
+        private Tag(String scope, long[] versions, String current) {
+            this.scope = scope;
+            this.versions = versions;
+            this.current = current;
+        }
+
+        /**
+         * Returns the remembered tag if it is still current, or null if the response
+         * has to be loaded to tag it.
+         */
+        public String current() {
+            return current;
+        }
+
+        /**
+         * Returns true if the remembered tag is current and matches {@code ifNoneMatch}.
+         */
+        public boolean matches(String ifNoneMatch) {
+            return current != null && CatalogETags.this.matches(ifNoneMatch, current);
+        }
+
+        /**
+         * Returns the tag of the loaded response data and remembers it.
+         */
+        public String of(Object data) {
+            String etag = digest(data);
+            synchronized (remembered) {
+                remembered.put(scope, new Remembered(versions, etag));
+            }
+            return etag;
+        }
+    }
+
+    private record Remembered(long[] versions, String etag) {
+    }
+}
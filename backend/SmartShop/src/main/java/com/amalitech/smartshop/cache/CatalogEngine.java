@@ -0,0 +1,413 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.utils.Money;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link CatalogSnapshot} of products, category names, stock and ratings
+ * in memory and serves the public listings from it.
+ * <p>
+ * The snapshot is loaded once, then refreshed by polling rows whose
+ * {@code updated_at} is newer than the last poll, plus deletions recorded in
+ * {@code catalog_deletions}. Ratings are read from the aggregates kept on the
+ * product row, whose {@code updated_at} every review change touches. Each poll
+ * re-reads a short overlap window, because {@code NOW()} is the transaction start
+ * time and a long transaction can commit a row older than the previous poll. The
+ * snapshot's rows are only copied once a read row differs from them; the changed
+ * rows then go into a new snapshot that replaces the old one in a single volatile
+ * write, and the cache keys they affect are invalidated on this instance, so cached
+ * pages never outlive the data they were built from. Local writes wake the poller early. Polling runs on its
+ * own connection and catches up by itself after the connection drops.
+ */
+@Component
+@Slf4j
+public class CatalogEngine {
+
+    private static final String CATEGORIES_SQL = "SELECT id, name, updated_at FROM categories";
+    private static final String PRODUCTS_SQL =
+            "SELECT id, name, description, image_url, sku, price, category_id, vendor_id, rating_count, average_rating,"
+                    + " updated_at FROM products";
+    private static final String INVENTORY_SQL = "SELECT product_id, quantity, updated_at FROM inventory";
+    private static final String SINCE = " WHERE updated_at > ?";
+
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final long pollIntervalMillis;
+    private final long pollOverlapMillis;
+    private final int deletionRetentionHours;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final List<BiConsumer<Long, ProductResponseDTO>> productListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Long>> categoryListeners = new CopyOnWriteArrayList<>();
+    private volatile CatalogSnapshot snapshot;
+    private volatile boolean running;
+    private Thread worker;
+    private Connection connection;
+    private Timestamp watermark;
+    private long lastPruneMillis;
+
+    public CatalogEngine(CacheManager cacheManager,
+                         @Value("${cache.snapshot.enabled:true}") boolean enabled,
+                         @Value("${cache.snapshot.poll-interval-millis:1000}") long pollIntervalMillis,
+                         @Value("${cache.snapshot.poll-overlap-millis:5000}") long pollOverlapMillis,
+                         @Value("${cache.snapshot.deletion-retention-hours:24}") int deletionRetentionHours,
+                         @Value("${spring.datasource.url}") String url,
+                         @Value("${spring.datasource.username}") String username,
+                         @Value("${spring.datasource.password}") String password) {
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.pollOverlapMillis = pollOverlapMillis;
+        this.deletionRetentionHours = deletionRetentionHours;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        if (enabled) {
+            cacheManager.addInvalidationListener(key -> {
+                String region = CacheManager.regionOf(key);
+                if (region.equals("prod") || region.equals("invent") || region.equals("cat")) {
+                    wakeUp.release();
+                }
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current snapshot, or null until the first load completes or if the
+     * engine is disabled. Callers read it once per request and fall back to the
+     * database when it is null.
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the current snapshot, or reads one from the database on the calling
+     * thread if none is loaded yet or the engine is disabled. For queries only a
+     * snapshot can answer; the snapshot read here is not kept.
+     */
+    public CatalogSnapshot require() {
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        try (Connection fallback = DriverManager.getConnection(url, username, password)) {
+            return readAll(fallback);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading catalog snapshot", e);
+        }
+    }
+
+    /**
+     * Registers a listener for products changed by any instance, called after the
+     * snapshot containing the change is published; a {@code null} product means it
+     * was deleted. Changes already in the first load are not reported.
+     */
+    public void addProductListener(BiConsumer<Long, ProductResponseDTO> listener) {
+        productListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener for categories added, renamed or deleted by any instance,
+     * called like product listeners with the category id.
+     */
+    public void addCategoryListener(Consumer<Long> listener) {
+        categoryListeners.add(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("catalog-snapshot").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = DriverManager.getConnection(url, username, password);
+                }
+                if (snapshot == null) {
+                    load(connection);
+                } else {
+                    poll();
+                }
+                pruneDeletions();
+            } catch (SQLException e) {
+                log.warn("Catalog snapshot refresh failed: {}", e.getMessage());
+                closeQuietly();
+            } catch (RuntimeException e) {
+                // A bad row or a failing listener must not stop the snapshot for good
+                log.error("Catalog snapshot refresh failed", e);
+            }
+            awaitNextPoll();
+        }
+        closeQuietly();
+    }
+
+    /**
+     * Loads the first snapshot on the calling thread, so listings are served from
+     * memory as soon as the node takes traffic. Called by {@link CacheWarmer} before
+     * {@link #start()}; if it fails or is still running, the poller loads the
+     * snapshot itself once.
+     */
+    public void preload() {
+        if (!enabled || snapshot != null) {
+            return;
+        }
+        try (Connection preloadConnection = DriverManager.getConnection(url, username, password)) {
+            load(preloadConnection);
+        } catch (SQLException e) {
+            log.warn("Catalog snapshot preload failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the whole snapshot unless another thread already has. The watermark is
+     * set before the snapshot is published, so a poller that sees the snapshot also
+     * sees the watermark.
+     */
+    private synchronized void load(Connection connection) throws SQLException {
+        if (snapshot != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Timestamp pollStart = databaseTime(connection);
+        CatalogSnapshot loaded = readAll(connection);
+        watermark = pollStart;
+        snapshot = loaded;
+        log.info("Catalog snapshot loaded: {} products in {}ms", snapshot.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static CatalogSnapshot readAll(Connection connection) throws SQLException {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(null);
+        try (Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery(CATEGORIES_SQL)) {
+                while (rs.next()) {
+                    builder.putCategory(rs.getLong("id"), rs.getString("name"));
+                }
+            }
+            try (ResultSet rs = st.executeQuery(PRODUCTS_SQL + " ORDER BY id")) {
+                while (rs.next()) {
+                    putProduct(builder, rs);
+                }
+            }
+            try (ResultSet rs = st.executeQuery(INVENTORY_SQL)) {
+                while (rs.next()) {
+                    builder.putStock(rs.getLong("product_id"), rs.getInt("quantity"));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Applies the rows changed since the last poll. Within one poll a key's latest
+     * event wins, so stock removed and added again in the window ends up present.
+     */
+    private void poll() throws SQLException {
+        Timestamp pollStart = databaseTime(connection);
+        Timestamp since = new Timestamp(watermark.getTime() - pollOverlapMillis);
+        Map<String, Map<Long, Timestamp>> deletions = readDeletions(since);
+        // Shares the current snapshot's rows until a read row actually differs
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(snapshot);
+
+        try (PreparedStatement ps = connection.prepareStatement(CATEGORIES_SQL + SINCE)) {
+            ps.setTimestamp(1, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!supersededByDeletion(deletions, "categories", rs.getLong("id"), rs.getTimestamp("updated_at"))) {
+                        builder.putCategory(rs.getLong("id"), rs.getString("name"));
+                    }
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(PRODUCTS_SQL + SINCE + " ORDER BY id")) {
+            ps.setTimestamp(1, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!supersededByDeletion(deletions, "products", rs.getLong("id"), rs.getTimestamp("updated_at"))) {
+                        putProduct(builder, rs);
+                    }
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(INVENTORY_SQL + SINCE)) {
+            ps.setTimestamp(1, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long productId = rs.getLong("product_id");
+                    if (!supersededByDeletion(deletions, "inventory", productId, rs.getTimestamp("updated_at"))) {
+                        builder.putStock(productId, rs.getInt("quantity"));
+                    }
+                }
+            }
+        }
+        deletions.getOrDefault("inventory", Map.of()).keySet().forEach(builder::removeStock);
+        deletions.getOrDefault("products", Map.of()).keySet().forEach(builder::removeProduct);
+        deletions.getOrDefault("categories", Map.of()).keySet().forEach(builder::removeCategory);
+
+        watermark = pollStart;
+        if (!builder.hasChanges()) {
+            return;
+        }
+        Set<String> changedKeys = builder.changedKeys();
+        CatalogSnapshot next = builder.build();
+        snapshot = next;
+        for (String key : changedKeys) {
+            cacheManager.invalidateLocal(key);
+        }
+        for (Long productId : builder.changedProducts()) {
+            ProductResponseDTO product = next.find(productId);
+            for (BiConsumer<Long, ProductResponseDTO> listener : productListeners) {
+                listener.accept(productId, product);
+            }
+        }
+        for (Long categoryId : builder.changedCategories()) {
+            for (Consumer<Long> listener : categoryListeners) {
+                listener.accept(categoryId);
+            }
+        }
+        log.debug("Catalog snapshot refreshed: {} changed keys", changedKeys.size());
+    }
+
+    private Map<String, Map<Long, Timestamp>> readDeletions(Timestamp since) throws SQLException {
+        Map<String, Map<Long, Timestamp>> deletions = new HashMap<>();
+        String sql = "SELECT table_name, row_id, deleted_at FROM catalog_deletions WHERE deleted_at > ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deletions.computeIfAbsent(rs.getString("table_name"), t -> new HashMap<>())
+                            .merge(rs.getLong("row_id"), rs.getTimestamp("deleted_at"),
+                                    (a, b) -> a.after(b) ? a : b);
+                }
+            }
+        }
+        return deletions;
+    }
+
+    /**
+     * Returns true if the row was deleted after it was written; otherwise drops any
+     * older deletion of the same key so it is not applied.
+     */
+    private static boolean supersededByDeletion(Map<String, Map<Long, Timestamp>> deletions, String table,
+                                                long id, Timestamp updatedAt) {
+        Map<Long, Timestamp> tableDeletions = deletions.get(table);
+        if (tableDeletions == null) {
+            return false;
+        }
+        Timestamp deletedAt = tableDeletions.get(id);
+        if (deletedAt == null) {
+            return false;
+        }
+        if (deletedAt.after(updatedAt)) {
+            return true;
+        }
+        tableDeletions.remove(id);
+        return false;
+    }
+
+    private static void putProduct(CatalogSnapshot.Builder builder, ResultSet rs) throws SQLException {
+        builder.putProduct(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getString("image_url"),
+                rs.getString("sku"),
+                Money.ofDecimal(rs.getBigDecimal("price")),
+                rs.getLong("category_id"),
+                rs.getObject("vendor_id") != null ? rs.getLong("vendor_id") : CatalogSnapshot.NO_ID);
+        int reviewCount = rs.getInt("rating_count");
+        builder.putRating(rs.getLong("id"),
+                reviewCount > 0 ? rs.getFloat("average_rating") : CatalogSnapshot.NO_RATING, reviewCount);
+    }
+
+    /**
+     * Reads the clock that {@code updated_at} is written with, so watermarks never
+     * depend on this host's clock.
+     */
+    private static Timestamp databaseTime(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("SELECT LOCALTIMESTAMP")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    private void pruneDeletions() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneMillis < TimeUnit.HOURS.toMillis(1)) {
+            return;
+        }
+        String sql = "DELETE FROM catalog_deletions WHERE deleted_at < LOCALTIMESTAMP - make_interval(hours => ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, deletionRetentionHours);
+            ps.executeUpdate();
+        }
+        lastPruneMillis = now;
+    }
+
+    private void awaitNextPoll() {
+        try {
+            wakeUp.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+            wakeUp.drainPermits();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void closeQuietly() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Error closing catalog snapshot connection", e);
+            }
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.mappers.RatingMapper;
+import com.amalitech.smartshop.utils.Money;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable, columnar copy of the public catalog: products, category names,
+ * stock, average ratings and review counts, held in parallel arrays ordered by product id.
+ * <p>
+ * A snapshot never changes once built, so a request that reads one sees a
+ * consistent catalog while {@link CatalogEngine} builds the next. Rows are grouped
+ * by category and by vendor, so filtered listings only touch their own rows;
+ * faceted listings use a {@link FacetIndex} built on first use.
+ */
+public final class CatalogSnapshot {
+
+    /** Stands for a missing vendor; ids are BIGSERIAL and never 0. */
+    static final long NO_ID = 0L;
+    static final int NO_STOCK = Integer.MIN_VALUE;
+    static final float NO_RATING = Float.NaN;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] imageUrls;
+    private final String[] skus;
+    private final long[] priceCents;
+    private final long[] categoryIds;
+    private final long[] vendorIds;
+    private final int[] quantities;
+    private final float[] ratings;
+    private final int[] reviewCounts;
+
+    private final long[] categoryKeys;
+    private final String[] categoryNames;
+    private final LongIntHashMap categorySlots;
+    private final RowGroups rowsByCategory;
+    private final RowGroups rowsByVendor;
+    /** Built by the first faceted query; racing first queries may each build one, which is harmless. */
+    private volatile FacetIndex facets;
+
+    private CatalogSnapshot(int size, long[] ids, String[] names, String[] descriptions, String[] imageUrls,
+                            String[] skus, long[] priceCents, long[] categoryIds, long[] vendorIds, int[] quantities,
+                            float[] ratings, int[] reviewCounts, long[] categoryKeys, String[] categoryNames) {
+        this.size = size;
+        this.ids = ids;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.imageUrls = imageUrls;
+        this.skus = skus;
+        this.priceCents = priceCents;
+        this.categoryIds = categoryIds;
+        this.vendorIds = vendorIds;
+        this.quantities = quantities;
+        this.ratings = ratings;
+        this.reviewCounts = reviewCounts;
+        this.categoryKeys = categoryKeys;
+        this.categoryNames = categoryNames;
+        this.categorySlots = new LongIntHashMap(categoryKeys.length);
+        for (int i = 0; i < categoryKeys.length; i++) {
+            categorySlots.put(categoryKeys[i], i);
+        }
+        this.rowsByCategory = RowGroups.of(categoryIds, size);
+        this.rowsByVendor = RowGroups.of(vendorIds, size);
+    }
+
+    /**
+     * Starts a builder holding the rows of {@code base}, or no rows if it is null.
+     */
+    static Builder builder(CatalogSnapshot base) {
+        return new Builder(base);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasCategory(long categoryId) {
+        return categorySlots.containsKey(categoryId);
+    }
+
+    /**
+     * Returns a page of all products; products without inventory have quantity 0.
+     */
+    public Page<ProductResponseDTO> page(Pageable pageable) {
+        return page(pageable, size, n -> n);
+    }
+
+    public Page<ProductResponseDTO> pageByCategory(long categoryId, Pageable pageable) {
+        int group = rowsByCategory.group(categoryId);
+        return page(pageable, rowsByCategory.count(group), n -> rowsByCategory.row(group, n));
+    }
+
+    public Page<ProductResponseDTO> pageByVendor(long vendorId, Pageable pageable) {
+        int group = rowsByVendor.group(vendorId);
+        return page(pageable, rowsByVendor.count(group), n -> rowsByVendor.row(group, n));
+    }
+
+    /**
+     * Returns a page of the products matching every filter, with facet counts for
+     * category, vendor, availability, price range and rating.
+     */
+    public FacetedPagedResponse<ProductResponseDTO> facetedPage(ProductFacetFilter filter, Pageable pageable) {
+        FacetIndex index = facets;
+        if (index == null) {
+            index = new FacetIndex(size, priceCents, categoryIds, vendorIds, quantities, ratings);
+            facets = index;
+        }
+        FacetIndex.Result result = index.query(filter, this::categoryName);
+
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : result.total();
+        List<ProductResponseDTO> content = new ArrayList<>(Math.min(limit, result.total()));
+        long[] matching = result.matching();
+        for (int w = 0; w < matching.length && content.size() < limit; w++) {
+            long word = matching[w];
+            int bits = Long.bitCount(word);
+            if (skip >= bits) {
+                skip -= bits;
+                continue;
+            }
+            while (word != 0 && content.size() < limit) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(toResponse(row, 0));
+                }
+            }
+        }
+        Page<ProductResponseDTO> page = new PageImpl<>(content, pageable, result.total());
+        return new FacetedPagedResponse<>(page.getContent(), page.getNumber(), result.total(), page.getTotalPages(),
+                page.isLast(), result.facets());
+    }
+
+    /**
+     * Returns the product with the given id, or null if it is not in the snapshot.
+     */
+    public ProductResponseDTO find(long productId) {
+        int row = Arrays.binarySearch(ids, 0, size, productId);
+        return row >= 0 ? toResponse(row, 0) : null;
+    }
+
+    /**
+     * Returns every product that has an inventory record.
+     */
+    public List<ProductResponseDTO> listWithInventory() {
+        List<ProductResponseDTO> products = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (quantities[row] != NO_STOCK) {
+                products.add(toResponse(row, null));
+            }
+        }
+        return products;
+    }
+
+    private Page<ProductResponseDTO> page(Pageable pageable, int total, IntUnaryOperator rowAt) {
+        int from = 0;
+        int to = total;
+        if (pageable.isPaged()) {
+            from = (int) Math.min(pageable.getOffset(), total);
+            to = (int) Math.min((long) from + pageable.getPageSize(), total);
+        }
+        List<ProductResponseDTO> content = new ArrayList<>(to - from);
+        for (int n = from; n < to; n++) {
+            content.add(toResponse(rowAt.applyAsInt(n), 0));
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private ProductResponseDTO toResponse(int row, Integer missingQuantity) {
+        ProductResponseDTO response = new ProductResponseDTO();
+        response.setId(ids[row]);
+        response.setName(names[row]);
+        response.setDescription(descriptions[row]);
+        response.setImageUrl(imageUrls[row]);
+        response.setSku(skus[row]);
+        response.setPrice(Money.toDouble(priceCents[row]));
+        response.setQuantity(quantities[row] != NO_STOCK ? quantities[row] : missingQuantity);
+        response.setCategoryId(categoryIds[row]);
+        response.setCategoryName(categoryName(categoryIds[row]));
+        response.setVendorId(vendorIds[row] != NO_ID ? vendorIds[row] : null);
+        response.setAverageRating(RatingMapper.averageRating(ratings[row], reviewCounts[row]));
+        response.setReviewCount((long) reviewCounts[row]);
+        return response;
+    }
+
+    private String categoryName(long categoryId) {
+        int slot = categorySlots.get(categoryId, -1);
+        return slot >= 0 ? categoryNames[slot] : null;
+    }
+
+    /**
+     * Rows grouped by a key column in compressed form: the rows of group {@code g}
+     * are {@code rows[starts[g]]} up to {@code rows[starts[g + 1]]}, in id order.
+     */
+    private static final class RowGroups {
+        private final LongIntHashMap groups;
+        private final int[] starts;
+        private final int[] rows;
+
+        private RowGroups(LongIntHashMap groups, int[] starts, int[] rows) {
+            this.groups = groups;
+            this.starts = starts;
+            this.rows = rows;
+        }
+
+        static RowGroups of(long[] keys, int size) {
+            LongIntHashMap groups = new LongIntHashMap(16);
+            int[] counts = new int[16];
+            for (int row = 0; row < size; row++) {
+                if (keys[row] == NO_ID) {
+                    continue;
+                }
+                int group = groups.get(keys[row], -1);
+                if (group < 0) {
+                    group = groups.size();
+                    groups.put(keys[row], group);
+                    if (group == counts.length) {
+                        counts = Arrays.copyOf(counts, group * 2);
+                    }
+                }
+                counts[group]++;
+            }
+            int groupCount = groups.size();
+            int[] starts = new int[groupCount + 1];
+            for (int g = 0; g < groupCount; g++) {
+                starts[g + 1] = starts[g] + counts[g];
+            }
+            int[] next = Arrays.copyOf(starts, groupCount);
+            int[] rows = new int[starts[groupCount]];
+            for (int row = 0; row < size; row++) {
+                if (keys[row] != NO_ID) {
+                    rows[next[groups.get(keys[row], -1)]++] = row;
+                }
+            }
+            return new RowGroups(groups, starts, rows);
+        }
+
+        int group(long key) {
+            return groups.get(key, -1);
+        }
+
+        int count(int group) {
+            return group < 0 ? 0 : starts[group + 1] - starts[group];
+        }
+
+        int row(int group, int n) {
+            return rows[starts[group] + n];
+        }
+    }
+
+    /**
+     * Copies a snapshot's columns, applies changes to them and builds the next
+     * snapshot. Rows of the base snapshot are found by binary search; rows added out
+     * of id order are tracked separately and sorted into place on {@link #build()}.
+     * When built on a base snapshot, every change that alters a row is recorded as
+     * the cache keys it affects.
+     */
+    static final class Builder {
+        private int size;
+        private long[] ids;
+        private String[] names;
+        private String[] descriptions;
+        private String[] imageUrls;
+        private String[] skus;
+        private long[] priceCents;
+        private long[] categoryIds;
+        private long[] vendorIds;
+        private int[] quantities;
+        private float[] ratings;
+        private int[] reviewCounts;
+        private final BitSet removed = new BitSet();
+        private final Map<Long, String> categories = new TreeMap<>();
+        private final boolean trackChanges;
+        private final Set<String> changedKeys = new LinkedHashSet<>();
+        private final Set<Long> changedProducts = new LinkedHashSet<>();
+        private final Set<Long> changedCategories = new LinkedHashSet<>();
+
+        private int sortedPrefix;
+        private final LongIntHashMap unsortedRows = new LongIntHashMap(16);
+        /** True while the row arrays are still the base snapshot's, which must not be written. */
+        private boolean sharesBase;
+
+        private Builder(CatalogSnapshot base) {
+            if (base != null) {
+                // Rows are copied on the first write, so a poll that changes nothing copies nothing
+                size = base.size;
+                ids = base.ids;
+                names = base.names;
+                descriptions = base.descriptions;
+                imageUrls = base.imageUrls;
+                skus = base.skus;
+                priceCents = base.priceCents;
+                categoryIds = base.categoryIds;
+                vendorIds = base.vendorIds;
+                quantities = base.quantities;
+                ratings = base.ratings;
+                reviewCounts = base.reviewCounts;
+                sharesBase = true;
+                for (int i = 0; i < base.categoryKeys.length; i++) {
+                    categories.put(base.categoryKeys[i], base.categoryNames[i]);
+                }
+            } else {
+                ids = new long[16];
+                names = new String[16];
+                descriptions = new String[16];
+                imageUrls = new String[16];
+                skus = new String[16];
+                priceCents = new long[16];
+                categoryIds = new long[16];
+                vendorIds = new long[16];
+                quantities = new int[16];
+                ratings = new float[16];
+                reviewCounts = new int[16];
+            }
+            sortedPrefix = size;
+            trackChanges = base != null;
+        }
+
+        void putProduct(long id, String name, String description, String imageUrl, String sku, long cents,
+                        long categoryId, long vendorId) {
+            int row = rowOf(id);
+            if (row >= 0) {
+                if (Objects.equals(names[row], name) && Objects.equals(descriptions[row], description)
+                        && Objects.equals(imageUrls[row], imageUrl) && Objects.equals(skus[row], sku)
+                        && priceCents[row] == cents && categoryIds[row] == categoryId
+                        && vendorIds[row] == vendorId) {
+                    return;
+                }
+                productChanged(id, categoryIds[row], vendorIds[row]);
+                ensureWritable();
+            } else {
+                row = append(id);
+            }
+            names[row] = name;
+            descriptions[row] = description;
+            imageUrls[row] = imageUrl;
+            skus[row] = sku;
+            priceCents[row] = cents;
+            categoryIds[row] = categoryId;
+            vendorIds[row] = vendorId;
+            productChanged(id, categoryId, vendorId);
+        }
+
+        void removeProduct(long id) {
+            int row = rowOf(id);
+            if (row >= 0) {
+                removed.set(row);
+                productChanged(id, categoryIds[row], vendorIds[row]);
+                if (trackChanges) {
+                    changedKeys.add("invent:" + id);
+                }
+            }
+        }
+
+        /**
+         * Sets the stock of a product; stock of products not in the catalog is ignored.
+         */
+        void putStock(long productId, int quantity) {
+            int row = rowOf(productId);
+            if (row >= 0 && quantities[row] != quantity) {
+                ensureWritable();
+                quantities[row] = quantity;
+                if (trackChanges) {
+                    changedKeys.add("invent:" + productId);
+                }
+            }
+        }
+
+        void removeStock(long productId) {
+            putStock(productId, NO_STOCK);
+        }
+
+        /**
+         * Sets the average rating and review count of a product, with
+         * {@link #NO_RATING} and 0 if it has no reviews; ratings of products not in
+         * the catalog are ignored.
+         */
+        void putRating(long productId, float rating, int reviewCount) {
+            int row = rowOf(productId);
+            if (row >= 0 && (Float.compare(ratings[row], rating) != 0 || reviewCounts[row] != reviewCount)) {
+                ensureWritable();
+                ratings[row] = rating;
+                reviewCounts[row] = reviewCount;
+                productChanged(productId, categoryIds[row], vendorIds[row]);
+            }
+        }
+
+        void putCategory(long id, String name) {
+            if (!Objects.equals(categories.put(id, name), name) && trackChanges) {
+                changedCategories.add(id);
+                changedKeys.add("cat:" + id);
+            }
+        }
+
+        void removeCategory(long id) {
+            if (categories.remove(id) != null && trackChanges) {
+                changedCategories.add(id);
+                changedKeys.add("cat:" + id);
+            }
+        }
+
+        /**
+         * Cache keys whose values differ between the base snapshot and this builder.
+         */
+        Set<String> changedKeys() {
+            return changedKeys;
+        }
+
+        /**
+         * True if the next snapshot would differ from the base.
+         */
+        boolean hasChanges() {
+            return !changedKeys.isEmpty();
+        }
+
+        /**
+         * Ids of the products added, changed or removed, excluding stock-only changes.
+         */
+        Set<Long> changedProducts() {
+            return changedProducts;
+        }
+
+        /**
+         * Ids of the categories added, renamed or removed.
+         */
+        Set<Long> changedCategories() {
+            return changedCategories;
+        }
+
+        CatalogSnapshot build() {
+            int[] order = liveRowsInIdOrder();
+            int n = order.length;
+            long[] newIds = new long[n];
+            String[] newNames = new String[n];
+            String[] newDescriptions = new String[n];
+            String[] newImageUrls = new String[n];
+            String[] newSkus = new String[n];
+            long[] newPriceCents = new long[n];
+            long[] newCategoryIds = new long[n];
+            long[] newVendorIds = new long[n];
+            int[] newQuantities = new int[n];
+            float[] newRatings = new float[n];
+            int[] newReviewCounts = new int[n];
+            for (int i = 0; i < n; i++) {
+                int row = order[i];
+                newIds[i] = ids[row];
+                newNames[i] = names[row];
+                newDescriptions[i] = descriptions[row];
+                newImageUrls[i] = imageUrls[row];
+                newSkus[i] = skus[row];
+                newPriceCents[i] = priceCents[row];
+                newCategoryIds[i] = categoryIds[row];
+                newVendorIds[i] = vendorIds[row];
+                newQuantities[i] = quantities[row];
+                newRatings[i] = ratings[row];
+                newReviewCounts[i] = reviewCounts[row];
+            }
+            long[] categoryKeys = new long[categories.size()];
+            String[] categoryNames = new String[categories.size()];
+            int i = 0;
+            for (Map.Entry<Long, String> category : categories.entrySet()) {
+                categoryKeys[i] = category.getKey();
+                categoryNames[i++] = category.getValue();
+            }
+            return new CatalogSnapshot(n, newIds, newNames, newDescriptions, newImageUrls, newSkus, newPriceCents,
+                    newCategoryIds, newVendorIds, newQuantities, newRatings, newReviewCounts, categoryKeys, categoryNames);
+        }
+
+        private int[] liveRowsInIdOrder() {
+            int[] order = new int[size - removed.cardinality()];
+            int n = 0;
+            for (int row = 0; row < size; row++) {
+                if (!removed.get(row)) {
+                    order[n++] = row;
+                }
+            }
+            if (unsortedRows.size() > 0) {
+                // Rare: a product committed out of id order. Sort boxed indices rather than keep a second layout.
+                Integer[] boxed = Arrays.stream(order).boxed().toArray(Integer[]::new);
+                Arrays.sort(boxed, (a, b) -> Long.compare(ids[a], ids[b]));
+                for (int i = 0; i < boxed.length; i++) {
+                    order[i] = boxed[i];
+                }
+            }
+            return order;
+        }
+
+        private void productChanged(long id, long categoryId, long vendorId) {
+            if (!trackChanges) {
+                return;
+            }
+            changedProducts.add(id);
+            changedKeys.add("prod:" + id);
+            changedKeys.add("prod:list:all");
+            changedKeys.add("prod:list:cat:" + categoryId);
+            if (vendorId != NO_ID) {
+                changedKeys.add("prod:list:vendor:" + vendorId);
+            }
+        }
+
+        private int rowOf(long id) {
+            int row = Arrays.binarySearch(ids, 0, sortedPrefix, id);
+            if (row < 0) {
+                row = unsortedRows.get(id, -1);
+            }
+            if (row >= 0 && removed.get(row)) {
+                return -1;
+            }
+            return row;
+        }
+
+        private int append(long id) {
+            ensureWritable();
+            if (size == ids.length) {
+                resize(ids.length * 2);
+            }
+            int row = size++;
+            ids[row] = id;
+            quantities[row] = NO_STOCK;
+            ratings[row] = NO_RATING;
+            reviewCounts[row] = 0;
+            if (row == sortedPrefix && (row == 0 || ids[row - 1] < id)) {
+                sortedPrefix++;
+            } else {
+                unsortedRows.put(id, row);
+            }
+            return row;
+        }
+
+        private void ensureWritable() {
+            if (sharesBase) {
+                sharesBase = false;
+                resize(size + 16);
+            }
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            imageUrls = Arrays.copyOf(imageUrls, capacity);
+            skus = Arrays.copyOf(skus, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            vendorIds = Arrays.copyOf(vendorIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            reviewCounts = Arrays.copyOf(reviewCounts, capacity);
+        }
+    }
+}
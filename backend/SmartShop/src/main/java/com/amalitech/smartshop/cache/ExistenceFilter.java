@@ -0,0 +1,284 @@
+package com.amalitech.smartshop.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory existence filter for the lookups that most often miss: product ids,
+ * product and category names, and user emails.
+ * <p>
+ * Each key space is a primitive hash set of 64-bit key hashes, rebuilt from the
+ * database at startup and updated by the repositories on insert, update and delete;
+ * deletions apply once they commit.
+ * Until a key space has been loaded it answers "might exist" for everything, so a
+ * lookup can only be skipped once the filter is authoritative. Lookups that pass the
+ * filter but still miss in the database are remembered in a short-TTL negative cache.
+ */
+@Component
+@Slf4j
+public class ExistenceFilter {
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    public enum KeySpace {
+        PRODUCT_ID(false),
+        PRODUCT_NAME(true),
+        CATEGORY_NAME(true),
+        USER_EMAIL(false);
+
+        private final boolean caseInsensitive;
+
+        KeySpace(boolean caseInsensitive) {
+            this.caseInsensitive = caseInsensitive;
+        }
+    }
+
+    private final Connection connection;
+    private final long negativeTtlMillis;
+    private final Map<KeySpace, Segment> segments = new EnumMap<>(KeySpace.class);
+    private final Map<String, Long> negativeCache = new ConcurrentHashMap<>();
+    private final List<BiConsumer<KeySpace, Long>> addListeners = new CopyOnWriteArrayList<>();
+
+    public ExistenceFilter(Connection connection,
+                           @Value("${cache.negative.ttl-seconds:30}") long negativeTtlSeconds) {
+        this.connection = connection;
+        this.negativeTtlMillis = TimeUnit.SECONDS.toMillis(negativeTtlSeconds);
+        for (KeySpace space : KeySpace.values()) {
+            segments.put(space, new Segment());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            load(KeySpace.PRODUCT_ID, "SELECT id FROM products", true);
+            load(KeySpace.PRODUCT_NAME, "SELECT name FROM products", false);
+            load(KeySpace.CATEGORY_NAME, "SELECT name FROM categories", false);
+            load(KeySpace.USER_EMAIL, "SELECT email FROM users", false);
+            negativeCache.clear();
+            log.info("Existence filter loaded: {} products, {} categories, {} users",
+                    segments.get(KeySpace.PRODUCT_ID).size(),
+                    segments.get(KeySpace.CATEGORY_NAME).size(),
+                    segments.get(KeySpace.USER_EMAIL).size());
+        } catch (SQLException e) {
+            log.error("Failed to load existence filter, lookups will fall through to the database", e);
+        }
+    }
+
+    /**
+     * Returns {@code false} only when the key is known not to exist, either because
+     * the loaded filter does not contain it or because a recent lookup missed.
+     */
+    public boolean mightContain(KeySpace space, long id) {
+        return segments.get(space).mightContain(id) && !isKnownMissing(space, id);
+    }
+
+    public boolean mightContain(KeySpace space, String key) {
+        if (key == null) {
+            return false;
+        }
+        return mightContain(space, hash(space, key));
+    }
+
+    public void add(KeySpace space, long id) {
+        applyAdd(space, id);
+        for (BiConsumer<KeySpace, Long> listener : addListeners) {
+            listener.accept(space, id);
+        }
+    }
+
+    public void add(KeySpace space, String key) {
+        if (key != null) {
+            add(space, hash(space, key));
+        }
+    }
+
+    /**
+     * Applies an addition made on another instance, identified by the id or key hash
+     * that instance published, without notifying listeners again.
+     */
+    public void applyAdd(KeySpace space, long keyHash) {
+        segments.get(space).add(keyHash);
+        negativeCache.remove(negativeKey(space, keyHash));
+    }
+
+    /**
+     * Removes a key after the surrounding transaction commits, or immediately if no
+     * transaction is active. If the transaction does not commit, the key stays, so a
+     * row whose deletion was rolled back is never reported absent.
+     */
+    public void remove(KeySpace space, long id) {
+        AfterCommit.run(() -> segments.get(space).remove(id));
+    }
+
+    public void remove(KeySpace space, String key) {
+        if (key != null) {
+            remove(space, hash(space, key));
+        }
+    }
+
+    /**
+     * Records that a lookup which passed the filter found nothing in the database.
+     */
+    public void recordMiss(KeySpace space, long id) {
+        putNegative(negativeKey(space, id));
+    }
+
+    public void recordMiss(KeySpace space, String key) {
+        if (key != null) {
+            recordMiss(space, hash(space, key));
+        }
+    }
+
+    public void addAddListener(BiConsumer<KeySpace, Long> listener) {
+        addListeners.add(listener);
+    }
+
+    private boolean isKnownMissing(KeySpace space, long keyHash) {
+        String key = negativeKey(space, keyHash);
+        Long expiresAt = negativeCache.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() > expiresAt) {
+            negativeCache.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    private void putNegative(String key) {
+        if (negativeCache.size() >= MAX_NEGATIVE_ENTRIES) {
+            long now = System.currentTimeMillis();
+            negativeCache.values().removeIf(expiresAt -> now > expiresAt);
+            if (negativeCache.size() >= MAX_NEGATIVE_ENTRIES) {
+                return;
+            }
+        }
+        negativeCache.put(key, System.currentTimeMillis() + negativeTtlMillis);
+    }
+
+    private void load(KeySpace space, String sql, boolean numeric) throws SQLException {
+        Segment segment = segments.get(space);
+        segment.beginLoad();
+        LongHashSet keys = new LongHashSet(1024);
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                keys.add(numeric ? rs.getLong(1) : hash(space, rs.getString(1)));
+            }
+        }
+        segment.replace(keys);
+    }
+
+    private static String negativeKey(KeySpace space, long keyHash) {
+        return space.name() + ':' + keyHash;
+    }
+
+    private static long hash(KeySpace space, String rawKey) {
+        String key = space.caseInsensitive ? rawKey.toLowerCase(Locale.ROOT) : rawKey;
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return LongHashSet.mix(h);
+    }
+
+    /**
+     * One key space. Keys added while a load is running are also recorded separately
+     * and merged into the loaded set, so rows inserted during a rebuild are never
+     * reported absent.
+     */
+    private static final class Segment {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private LongHashSet keys = new LongHashSet(16);
+        private LongHashSet addedDuringLoad;
+        private volatile boolean loaded;
+
+        boolean mightContain(long key) {
+            if (!loaded) {
+                return true;
+            }
+            lock.readLock().lock();
+            try {
+                return keys.contains(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(long key) {
+            lock.writeLock().lock();
+            try {
+                keys.add(key);
+                if (addedDuringLoad != null) {
+                    addedDuringLoad.add(key);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long key) {
+            lock.writeLock().lock();
+            try {
+                keys.remove(key);
+                if (addedDuringLoad != null) {
+                    addedDuringLoad.remove(key);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void beginLoad() {
+            lock.writeLock().lock();
+            try {
+                addedDuringLoad = new LongHashSet(16);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void replace(LongHashSet loadedKeys) {
+            lock.writeLock().lock();
+            try {
+                if (addedDuringLoad != null) {
+                    addedDuringLoad.forEach(loadedKeys::add);
+                    addedDuringLoad = null;
+                }
+                keys = loadedKeys;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return keys.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse.FacetValue;
+import com.amalitech.smartshop.utils.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Bitmap indexes over the rows of one {@link CatalogSnapshot}: a {@link RowBitmap}
+ * per category, vendor, availability, price bucket and rating level.
+ * <p>
+ * A query ORs the bitmaps of each filter's selected values, ANDs the filters
+ * together and counts every facet in one walk over the matching rows. Facets
+ * with an active filter are counted without it, as shoppers expect of
+ * multi-select filters: a row failing only that facet's filter is walked once
+ * more and counted for that facet alone. No query touches rows that fail two
+ * filters.
+ */
+final class FacetIndex {
+
+    /** Upper bounds of the price buckets in cents; the last bucket has no upper bound. */
+    static final long[] PRICE_BOUNDS = {1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000};
+    static final int MAX_RATING = 5;
+
+    private static final int CATEGORY = 0;
+    private static final int VENDOR = 1;
+    private static final int AVAILABILITY = 2;
+    private static final int PRICE = 3;
+    private static final int RATING = 4;
+    private static final int FACETS = 5;
+
+    private final int size;
+    private final long[] priceCents;
+
+    private final LongIntHashMap categoryGroups;
+    private final long[] categoryKeys;
+    private final int[] categoryOf;
+    private final RowBitmap[] categories;
+
+    private final LongIntHashMap vendorGroups;
+    private final long[] vendorKeys;
+    private final int[] vendorOf;
+    private final RowBitmap[] vendors;
+
+    /** Per row: 1 in stock, 0 out of stock or without inventory. */
+    private final int[] stockOf;
+    private final RowBitmap[] stock;
+    private final int[] priceBucketOf;
+    private final RowBitmap[] priceBuckets;
+    /** Per row: whole stars of the average rating (1 to 5), or -1 if unrated. */
+    private final int[] ratingOf;
+    private final RowBitmap[] ratings;
+
+    FacetIndex(int size, long[] priceCents, long[] categoryIds, long[] vendorIds, int[] quantities, float[] averageRatings) {
+        this.size = size;
+        this.priceCents = priceCents;
+
+        categoryGroups = new LongIntHashMap(16);
+        categoryOf = new int[size];
+        categoryKeys = group(categoryIds, categoryGroups, categoryOf);
+        categories = bitmaps(categoryOf, categoryKeys.length);
+
+        vendorGroups = new LongIntHashMap(16);
+        vendorOf = new int[size];
+        vendorKeys = group(vendorIds, vendorGroups, vendorOf);
+        vendors = bitmaps(vendorOf, vendorKeys.length);
+
+        stockOf = new int[size];
+        priceBucketOf = new int[size];
+        ratingOf = new int[size];
+        for (int row = 0; row < size; row++) {
+            stockOf[row] = quantities[row] > 0 ? 1 : 0;
+            priceBucketOf[row] = priceBucket(priceCents[row]);
+            float rating = averageRatings[row];
+            ratingOf[row] = Float.isNaN(rating) ? -1 : Math.clamp((int) rating, 1, MAX_RATING);
+        }
+        stock = bitmaps(stockOf, 2);
+        priceBuckets = bitmaps(priceBucketOf, PRICE_BOUNDS.length + 1);
+        ratings = bitmaps(ratingOf, MAX_RATING + 1);
+    }
+
+    /**
+     * Rows matching the filter as a word array in row order, their count, and the
+     * facet counts; category names label the category facet.
+     */
+    record Result(long[] matching, int total, Map<String, List<FacetValue>> facets) {
+    }
+
+    Result query(ProductFacetFilter filter, LongFunction<String> categoryName) {
+        long[][] filters = new long[FACETS][];
+        if (filter != null) {
+            filters[CATEGORY] = anyOf(filter.categoryIds(), categoryGroups, categories);
+            filters[VENDOR] = anyOf(filter.vendorIds(), vendorGroups, vendors);
+            if (filter.inStock() != null) {
+                filters[AVAILABILITY] = new long[RowBitmap.wordCount(size)];
+                stock[filter.inStock() ? 1 : 0].orInto(filters[AVAILABILITY]);
+            }
+            if (filter.minPrice() != null || filter.maxPrice() != null) {
+                filters[PRICE] = priceRange(filter.minPrice(), filter.maxPrice());
+            }
+            if (filter.minRating() != null) {
+                filters[RATING] = new long[RowBitmap.wordCount(size)];
+                for (int level = Math.max(filter.minRating(), 1); level <= MAX_RATING; level++) {
+                    ratings[level].orInto(filters[RATING]);
+                }
+            }
+        }
+
+        long[] matching = RowBitmap.all(size);
+        for (long[] words : filters) {
+            andInto(matching, words);
+        }
+
+        int[][] counts = {
+                new int[categoryKeys.length], new int[vendorKeys.length], new int[2],
+                new int[PRICE_BOUNDS.length + 1], new int[MAX_RATING + 1]};
+        RowBitmap.forEach(matching, row -> {
+            counts[CATEGORY][categoryOf[row]]++;
+            if (vendorOf[row] >= 0) {
+                counts[VENDOR][vendorOf[row]]++;
+            }
+            counts[AVAILABILITY][stockOf[row]]++;
+            counts[PRICE][priceBucketOf[row]]++;
+            if (ratingOf[row] > 0) {
+                counts[RATING][ratingOf[row]]++;
+            }
+        });
+        for (int facet = 0; facet < FACETS; facet++) {
+            if (filters[facet] == null) {
+                continue;
+            }
+            long[] missedOnlyThis = RowBitmap.all(size);
+            for (int other = 0; other < FACETS; other++) {
+                if (other != facet) {
+                    andInto(missedOnlyThis, filters[other]);
+                }
+            }
+            long[] own = filters[facet];
+            for (int w = 0; w < missedOnlyThis.length; w++) {
+                missedOnlyThis[w] &= ~own[w];
+            }
+            int[] facetCounts = counts[facet];
+            int[] valueOf = valuesOf(facet);
+            RowBitmap.forEach(missedOnlyThis, row -> {
+                if (valueOf[row] >= 0) {
+                    facetCounts[valueOf[row]]++;
+                }
+            });
+        }
+
+        Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+        facets.put("category", keyedValues(categoryKeys, counts[CATEGORY], categoryName));
+        facets.put("vendor", keyedValues(vendorKeys, counts[VENDOR], id -> null));
+        facets.put("availability", availabilityValues(counts[AVAILABILITY]));
+        facets.put("price", priceValues(counts[PRICE]));
+        facets.put("rating", ratingValues(counts[RATING]));
+        return new Result(matching, RowBitmap.cardinality(matching), facets);
+    }
+
+    private int[] valuesOf(int facet) {
+        return switch (facet) {
+            case CATEGORY -> categoryOf;
+            case VENDOR -> vendorOf;
+            case AVAILABILITY -> stockOf;
+            case PRICE -> priceBucketOf;
+            default -> ratingOf;
+        };
+    }
+
+    private long[] anyOf(List<Long> keys, LongIntHashMap groups, RowBitmap[] bitmaps) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        long[] words = new long[RowBitmap.wordCount(size)];
+        for (Long key : keys) {
+            int group = key != null ? groups.get(key, -1) : -1;
+            if (group >= 0) {
+                bitmaps[group].orInto(words);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Rows priced within {@code [min, max]}: buckets inside the range are taken
+     * whole, and only the rows of the buckets it cuts through are compared.
+     */
+    private long[] priceRange(Double min, Double max) {
+        long low = min != null ? Money.ofDecimal(min) : Long.MIN_VALUE;
+        long high = max != null ? Money.ofDecimal(max) : Long.MAX_VALUE;
+        long[] words = new long[RowBitmap.wordCount(size)];
+        for (int bucket = 0; bucket <= PRICE_BOUNDS.length; bucket++) {
+            long bucketLow = bucket == 0 ? Long.MIN_VALUE : PRICE_BOUNDS[bucket - 1];
+            long bucketHigh = bucket == PRICE_BOUNDS.length ? Long.MAX_VALUE : PRICE_BOUNDS[bucket];
+            if (bucketHigh <= low || bucketLow > high) {
+                continue;
+            }
+            if (bucketLow >= low && bucketHigh <= high) {
+                priceBuckets[bucket].orInto(words);
+            } else {
+                priceBuckets[bucket].forEach(row -> {
+                    if (priceCents[row] >= low && priceCents[row] <= high) {
+                        words[row >>> 6] |= 1L << row;
+                    }
+                });
+            }
+        }
+        return words;
+    }
+
+    private static void andInto(long[] target, long[] words) {
+        if (words != null) {
+            for (int w = 0; w < target.length; w++) {
+                target[w] &= words[w];
+            }
+        }
+    }
+
+    static int priceBucket(long cents) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && cents >= PRICE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /** Numbers the distinct non-zero keys; {@code groupOf} receives each row's number, or -1. */
+    private long[] group(long[] keys, LongIntHashMap groups, int[] groupOf) {
+        long[] groupKeys = new long[16];
+        for (int row = 0; row < size; row++) {
+            long key = keys[row];
+            if (key == CatalogSnapshot.NO_ID) {
+                groupOf[row] = -1;
+                continue;
+            }
+            int group = groups.get(key, -1);
+            if (group < 0) {
+                group = groups.size();
+                groups.put(key, group);
+                if (group == groupKeys.length) {
+                    groupKeys = Arrays.copyOf(groupKeys, group * 2);
+                }
+                groupKeys[group] = key;
+            }
+            groupOf[row] = group;
+        }
+        return Arrays.copyOf(groupKeys, groups.size());
+    }
+
+    private RowBitmap[] bitmaps(int[] valueOf, int values) {
+        int[] starts = new int[values + 1];
+        for (int row = 0; row < size; row++) {
+            if (valueOf[row] >= 0) {
+                starts[valueOf[row] + 1]++;
+            }
+        }
+        for (int value = 0; value < values; value++) {
+            starts[value + 1] += starts[value];
+        }
+        int[] rows = new int[starts[values]];
+        int[] next = Arrays.copyOf(starts, values);
+        for (int row = 0; row < size; row++) {
+            if (valueOf[row] >= 0) {
+                rows[next[valueOf[row]]++] = row;
+            }
+        }
+        RowBitmap[] bitmaps = new RowBitmap[values];
+        for (int value = 0; value < values; value++) {
+            bitmaps[value] = RowBitmap.of(Arrays.copyOfRange(rows, starts[value], starts[value + 1]),
+                    starts[value + 1] - starts[value], size);
+        }
+        return bitmaps;
+    }
+
+    private static List<FacetValue> keyedValues(long[] keys, int[] counts, LongFunction<String> label) {
+        List<FacetValue> values = new ArrayList<>();
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> -counts[i]).thenComparingLong(i -> keys[i]));
+        for (int i : order) {
+            if (counts[i] > 0) {
+                values.add(new FacetValue(String.valueOf(keys[i]), label.apply(keys[i]), counts[i]));
+            }
+        }
+        return values;
+    }
+
+    private static List<FacetValue> availabilityValues(int[] counts) {
+        List<FacetValue> values = new ArrayList<>();
+        if (counts[1] > 0) {
+            values.add(new FacetValue("IN_STOCK", "In stock", counts[1]));
+        }
+        if (counts[0] > 0) {
+            values.add(new FacetValue("OUT_OF_STOCK", "Out of stock", counts[0]));
+        }
+        return values;
+    }
+
+    private static List<FacetValue> priceValues(int[] counts) {
+        List<FacetValue> values = new ArrayList<>();
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            String low = bucket == 0 ? "0" : formatPrice(PRICE_BOUNDS[bucket - 1]);
+            if (bucket == PRICE_BOUNDS.length) {
+                values.add(new FacetValue(low + "+", low + " and above", counts[bucket]));
+            } else {
+                String high = formatPrice(PRICE_BOUNDS[bucket]);
+                values.add(new FacetValue(low + "-" + high, bucket == 0 ? "Under " + high : low + " to " + high,
+                        counts[bucket]));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Rating facets are cumulative, matching the {@code minRating} filter: "4" counts
+     * 4 stars and up. Levels that would select the same products as the level above
+     * are left out.
+     */
+    private static List<FacetValue> ratingValues(int[] counts) {
+        List<FacetValue> values = new ArrayList<>();
+        int atLeast = 0;
+        for (int level = MAX_RATING; level >= 1; level--) {
+            atLeast += counts[level];
+            if (counts[level] > 0) {
+                values.add(new FacetValue(String.valueOf(level), level == MAX_RATING ? "5 stars" : level + " & up",
+                        atLeast));
+            }
+        }
+        return values;
+    }
+
+    private static String formatPrice(long cents) {
+        return String.valueOf(cents / 100);
+    }
+}
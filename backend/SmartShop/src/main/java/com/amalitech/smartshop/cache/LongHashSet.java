@@ -0,0 +1,145 @@
+package com.amalitech.smartshop.cache;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of primitive {@code long} keys.
+ * <p>
+ * Uses linear probing with backward-shift deletion, so no tombstones accumulate
+ * and no per-entry objects are allocated. Not thread-safe; callers guard access.
+ */
+class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsZero;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean add(long key) {
+        if (key == EMPTY) {
+            boolean added = !containsZero;
+            containsZero = true;
+            if (added) size++;
+            return added;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        return true;
+    }
+
+    boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean removed = containsZero;
+            containsZero = false;
+            if (removed) size--;
+            return removed;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY);
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Closes the gap left at {@code gap} by moving later entries of the same
+     * probe chain back, keeping every remaining key reachable from its home slot.
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+            int home = slot(key);
+            boolean movable = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (movable) {
+                keys[gap] = key;
+                gap = slot;
+            }
+        }
+    }
+
+    private void resize() {
+        long[] old = keys;
+        keys = new long[old.length << 1];
+        mask = keys.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
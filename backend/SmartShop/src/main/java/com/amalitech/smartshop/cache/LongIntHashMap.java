@@ -0,0 +1,164 @@
+package com.amalitech.smartshop.cache;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to {@code int} values.
+ * <p>
+ * Keys and values live in two parallel arrays with linear probing and backward-shift
+ * deletion, like {@link LongHashSet}, so there is no boxing and no per-entry object.
+ * Each slot costs 12 bytes; with the 0.6 load factor and power-of-two growth that is
+ * 20 to 40 bytes per entry. Not thread-safe; callers guard access.
+ */
+public class LongIntHashMap {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+    private int zeroValue;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return containsZero;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code missing} if the key is absent.
+     */
+    public int get(long key, int missing) {
+        if (key == EMPTY) {
+            return containsZero ? zeroValue : missing;
+        }
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : missing;
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean removed = containsZero;
+            containsZero = false;
+            if (removed) size--;
+            return removed;
+        }
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Closes the gap left at {@code gap} by moving later entries of the same
+     * probe chain back, keeping every remaining key reachable from its home slot.
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                keys[gap] = EMPTY;
+                return;
+            }
+            int home = slot(key);
+            boolean movable = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (movable) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length << 1];
+        values = new int[oldKeys.length << 1];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) LongHashSet.mix(key) & mask;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,190 @@
+package com.amalitech.smartshop.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Second cache tier that keeps serialized values in a single off-heap segment.
+ * <p>
+ * Entries evicted from the on-heap {@link CacheManager} are demoted here and promoted
+ * back on a hit, so large DTO sets can stay cached without adding GC pressure. The
+ * segment is used as a ring buffer: values are appended at the write position and,
+ * once it wraps, entries in the way are overwritten in FIFO order. Only values that
+ * implement {@link Serializable} are demoted.
+ */
+@Component
+@Slf4j
+public class OffHeapCacheTier {
+
+    private final boolean enabled;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long capacity;
+
+    private final Map<String, Slot> index = new HashMap<>();
+    private final NavigableMap<Long, String> keysByOffset = new TreeMap<>();
+    private long writePosition;
+
+    public OffHeapCacheTier(@Value("${cache.off-heap.enabled:true}") boolean enabled,
+                            @Value("${cache.off-heap.capacity-mb:256}") long capacityMb) {
+        this.enabled = enabled && capacityMb > 0;
+        this.capacity = this.enabled ? capacityMb * 1024 * 1024 : 0;
+        this.arena = this.enabled ? Arena.ofShared() : null;
+        this.segment = this.enabled ? arena.allocate(capacity) : null;
+    }
+
+    /**
+     * Serializes a value demoted from the on-heap tier for {@link #put}. Runs without
+     * any lock, so callers can serialize before taking their own.
+     *
+     * @return the serialized value, or empty if the tier is disabled or cannot hold it
+     */
+    public Optional<byte[]> encode(String key, Object value) {
+        if (!enabled || (value != null && !(value instanceof Serializable))) {
+            return Optional.empty();
+        }
+        byte[] bytes;
+        try {
+            bytes = serialize(value);
+        } catch (IOException e) {
+            log.debug("Value for {} could not be serialized for the off-heap tier: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+        return bytes.length > capacity / 8 ? Optional.empty() : Optional.of(bytes);
+    }
+
+    /**
+     * Stores a value serialized by {@link #encode}.
+     */
+    public synchronized void put(String key, byte[] bytes, long expiresAt) {
+        removeEntry(key);
+        if (writePosition + bytes.length > capacity) {
+            writePosition = 0;
+        }
+        evictRange(writePosition, writePosition + bytes.length);
+
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, writePosition, bytes.length);
+        index.put(key, new Slot(writePosition, bytes.length, expiresAt));
+        keysByOffset.put(writePosition, key);
+        writePosition += bytes.length;
+    }
+
+    /**
+     * Removes and returns an unexpired value so the caller can promote it back to
+     * the on-heap tier.
+     */
+    public Optional<Promoted> take(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Slot slot;
+        byte[] bytes;
+        synchronized (this) {
+            slot = index.get(key);
+            if (slot == null) {
+                return Optional.empty();
+            }
+            removeEntry(key);
+            if (System.currentTimeMillis() > slot.expiresAt) {
+                return Optional.empty();
+            }
+            bytes = new byte[slot.length];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, slot.offset, bytes, 0, slot.length);
+        }
+
+        // Deserialized outside the lock, like values are serialized by encode
+        try {
+            return Optional.of(new Promoted(deserialize(bytes), slot.expiresAt));
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Discarding unreadable off-heap entry {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public synchronized void remove(String key) {
+        removeEntry(key);
+    }
+
+    public synchronized void removeRegion(String region) {
+        String prefix = region + ":";
+        index.keySet().stream()
+                .filter(key -> key.startsWith(prefix))
+                .toList()
+                .forEach(this::removeEntry);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long usedBytes() {
+        return index.values().stream().mapToLong(Slot::length).sum();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (arena != null) {
+            index.clear();
+            keysByOffset.clear();
+            arena.close();
+        }
+    }
+
+    private void removeEntry(String key) {
+        Slot slot = index.remove(key);
+        if (slot != null) {
+            keysByOffset.remove(slot.offset);
+        }
+    }
+
+    /**
+     * Drops every entry overlapping {@code [from, to)}, including one that starts
+     * before {@code from} and runs into the range.
+     */
+    private void evictRange(long from, long to) {
+        Map.Entry<Long, String> before = keysByOffset.lowerEntry(from);
+        if (before != null && before.getKey() + index.get(before.getValue()).length > from) {
+            removeEntry(before.getValue());
+        }
+        for (String key : keysByOffset.subMap(from, true, to, false).values().stream().toList()) {
+            removeEntry(key);
+        }
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    public record Promoted(Object value, long expiresAt) {
+    }
+
+    private record Slot(long offset, int length, long expiresAt) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.amalitech.smartshop.cache;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of row ordinals below a fixed universe size, stored as whichever
+ * is smaller: a sorted {@code int[]} of the rows, or one bit per row in a
+ * {@code long[]}. Sets holding fewer than one row in 32 take the array form, so
+ * a vendor with a handful of products costs a few ints rather than a bitmap the
+ * size of the catalog.
+ * <p>
+ * Queries combine sets into a plain word array the size of the universe, which
+ * both forms can OR into without allocating.
+ */
+final class RowBitmap {
+
+    private final int[] rows;
+    private final long[] words;
+
+    private RowBitmap(int[] rows, long[] words) {
+        this.rows = rows;
+        this.words = words;
+    }
+
+    /**
+     * Builds a set from the first {@code count} entries of {@code sortedRows}.
+     */
+    static RowBitmap of(int[] sortedRows, int count, int universe) {
+        if ((long) count * 32 < universe) {
+            return new RowBitmap(Arrays.copyOf(sortedRows, count), null);
+        }
+        long[] words = new long[wordCount(universe)];
+        for (int i = 0; i < count; i++) {
+            int row = sortedRows[i];
+            words[row >>> 6] |= 1L << row;
+        }
+        return new RowBitmap(null, words);
+    }
+
+    static int wordCount(int universe) {
+        return (universe + 63) >>> 6;
+    }
+
+    /** A word array with every row of the universe set. */
+    static long[] all(int universe) {
+        long[] words = new long[wordCount(universe)];
+        Arrays.fill(words, -1L);
+        if ((universe & 63) != 0) {
+            words[words.length - 1] = (1L << universe) - 1;
+        }
+        return words;
+    }
+
+    void orInto(long[] target) {
+        if (words != null) {
+            for (int i = 0; i < words.length; i++) {
+                target[i] |= words[i];
+            }
+        } else {
+            for (int row : rows) {
+                target[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    void forEach(IntConsumer action) {
+        if (words != null) {
+            forEach(words, action);
+        } else {
+            for (int row : rows) {
+                action.accept(row);
+            }
+        }
+    }
+
+    static void forEach(long[] words, IntConsumer action) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
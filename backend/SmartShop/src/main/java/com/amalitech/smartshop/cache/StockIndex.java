@@ -0,0 +1,284 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the stock quantity of every product, used to fill
+ * {@link ProductResponseDTO#getQuantity()} for whole listing pages under one lock.
+ * <p>
+ * Quantities are kept in a primitive {@link LongIntHashMap} rebuilt from the
+ * inventory table at startup and updated by inventory and order writes after they
+ * commit. Each change carries the row version the write returned, and a change older
+ * than the one already held is dropped, so writes published out of order, locally or
+ * through the invalidation bus, cannot bring back an old quantity. Removed products
+ * keep their version as a tombstone for the same reason. Until the first load
+ * completes, callers fall back to the {@code invent:} cache.
+ */
+@Component
+@Slf4j
+public class StockIndex {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    private final Connection connection;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    private LongIntHashMap quantities = new LongIntHashMap(16);
+    /** Low 32 bits of the version of each product's last change, compared with wrap-around. */
+    private LongIntHashMap versions = new LongIntHashMap(16);
+    private LongHashSet changedDuringLoad;
+    private volatile boolean loaded;
+
+    public StockIndex(Connection connection) {
+        this.connection = connection;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        beginLoad();
+        LongIntHashMap loadedQuantities = new LongIntHashMap(1024);
+        LongIntHashMap loadedVersions = new LongIntHashMap(1024);
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT product_id, quantity, version FROM inventory")) {
+            while (rs.next()) {
+                loadedQuantities.put(rs.getLong(1), rs.getInt(2));
+                loadedVersions.put(rs.getLong(1), (int) rs.getLong(3));
+            }
+        } catch (SQLException e) {
+            log.error("Failed to load stock index, listings will read quantities from the cache", e);
+            endLoad(null, null);
+            return;
+        }
+        endLoad(loadedQuantities, loadedVersions);
+        log.info("Stock index loaded: {} products", loadedQuantities.size());
+    }
+
+    /**
+     * Sets the quantity of every product on the page, or {@code missingQuantity} for
+     * products without inventory.
+     *
+     * @return false if the index is not loaded yet and nothing was filled
+     */
+    public boolean fillQuantities(List<ProductResponseDTO> products, Integer missingQuantity) {
+        if (!loaded) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            for (ProductResponseDTO product : products) {
+                int quantity = quantities.get(product.getId(), MISSING);
+                product.setQuantity(quantity == MISSING ? missingQuantity : quantity);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Records a quantity written to the database, after the surrounding transaction
+     * commits, and notifies change listeners such as the invalidation bus. If the
+     * transaction does not commit, the product is re-read from the database.
+     *
+     * @param version the version the write returned for the inventory row
+     */
+    public void set(Long productId, Integer quantity, long version) {
+        AfterCommit.run(() -> {
+            if (applySet(productId, quantity, version)) {
+                notifyListeners(productId, quantity, version);
+            }
+        }, () -> refresh(productId));
+    }
+
+    /**
+     * Records the deletion of a product's inventory, like {@link #set}.
+     *
+     * @param version the version the deletion returned
+     */
+    public void remove(Long productId, long version) {
+        AfterCommit.run(() -> {
+            if (applyRemove(productId, version)) {
+                notifyListeners(productId, null, version);
+            }
+        }, () -> refresh(productId));
+    }
+
+    /**
+     * Applies a quantity unless a newer change of the product is already held. Used
+     * for changes published by other instances, without notifying listeners.
+     *
+     * @return false if the change was older and dropped
+     */
+    public boolean applySet(long productId, int quantity, long version) {
+        lock.writeLock().lock();
+        try {
+            if (!isNewer(productId, version, false)) {
+                return false;
+            }
+            quantities.put(productId, quantity);
+            versions.put(productId, (int) version);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(productId);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product unless a newer change of it is already held. A deletion wins
+     * over a write of the same version, the last write before it.
+     *
+     * @return false if the change was older and dropped
+     */
+    public boolean applyRemove(long productId, long version) {
+        lock.writeLock().lock();
+        try {
+            if (!isNewer(productId, version, true)) {
+                return false;
+            }
+            quantities.remove(productId);
+            versions.put(productId, (int) version);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(productId);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a listener for local changes.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return quantities.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Receives stock changes made on this instance; a {@code null} quantity means the
+     * product's inventory was removed.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void stockChanged(long productId, Integer quantity, long version);
+    }
+
+    private boolean isNewer(long productId, long version, boolean removal) {
+        if (!versions.containsKey(productId)) {
+            return true;
+        }
+        int difference = (int) version - versions.get(productId, 0);
+        return removal ? difference >= 0 : difference > 0;
+    }
+
+    private void notifyListeners(long productId, Integer quantity, long version) {
+        for (ChangeListener listener : changeListeners) {
+            listener.stockChanged(productId, quantity, version);
+        }
+    }
+
+    /**
+     * Re-reads a product after a write whose transaction did not commit, or whose
+     * commit may or may not have happened, and publishes what the database holds.
+     */
+    private void refresh(long productId) {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT quantity, version FROM inventory WHERE product_id = ?")) {
+            ps.setLong(1, productId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    int quantity = rs.getInt(1);
+                    long version = rs.getLong(2);
+                    if (applySet(productId, quantity, version)) {
+                        notifyListeners(productId, quantity, version);
+                    }
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to refresh stock of product {}: {}", productId, e.getMessage());
+            return;
+        }
+        long version;
+        lock.readLock().lock();
+        try {
+            if (!quantities.containsKey(productId)) {
+                return;
+            }
+            version = versions.get(productId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (applyRemove(productId, version)) {
+            notifyListeners(productId, null, version);
+        }
+    }
+
+    private void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new LongHashSet(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Swaps in a loaded index after merging the changes applied while it was read,
+     * keeping whichever of the two is newer, so a write that raced the load is never
+     * lost.
+     */
+    private void endLoad(LongIntHashMap loadedQuantities, LongIntHashMap loadedVersions) {
+        lock.writeLock().lock();
+        try {
+            if (loadedQuantities != null) {
+                changedDuringLoad.forEach(productId -> {
+                    int version = versions.get(productId, 0);
+                    boolean removed = !quantities.containsKey(productId);
+                    int difference = version - loadedVersions.get(productId, 0);
+                    if (loadedVersions.containsKey(productId) && (removed ? difference < 0 : difference <= 0)) {
+                        return;
+                    }
+                    if (removed) {
+                        loadedQuantities.remove(productId);
+                    } else {
+                        loadedQuantities.put(productId, quantities.get(productId, 0));
+                    }
+                    loadedVersions.put(productId, version);
+                });
+                quantities = loadedQuantities;
+                versions = loadedVersions;
+                loaded = true;
+            }
+            changedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
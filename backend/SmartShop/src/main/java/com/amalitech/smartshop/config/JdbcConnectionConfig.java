@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -18,7 +19,12 @@ public class JdbcConnectionConfig {
     private String password;
 
     @Bean
-    public Connection jdbcConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+    public JdbcTransactions jdbcTransactions(DataSource dataSource) throws SQLException {
+        return new JdbcTransactions(DriverManager.getConnection(url, username, password), dataSource);
+    }
+
+    @Bean
+    public Connection jdbcConnection(JdbcTransactions jdbcTransactions) {
+        return jdbcTransactions.connection();
     }
 }
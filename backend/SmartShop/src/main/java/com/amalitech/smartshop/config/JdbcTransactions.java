@@ -0,0 +1,128 @@
+package com.amalitech.smartshop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs a block of repository calls in one JDBC transaction.
+ * <p>
+ * Repositories share one {@link Connection} bean whose statements auto-commit. While
+ * a block runs, that bean routes the calling thread's statements to a pooled
+ * connection of its own with auto-commit off, so the block commits or rolls back as
+ * a whole and other threads keep auto-committing on the shared connection.
+ * <p>
+ * Callbacks registered through Spring's transaction synchronization during the
+ * block, such as cache write-throughs, run once it has committed or rolled back.
+ */
+@Slf4j
+public class JdbcTransactions {
+
+    private final Connection shared;
+    private final DataSource dataSource;
+    private final ThreadLocal<Connection> current = new ThreadLocal<>();
+    private final Connection routing;
+
+    public JdbcTransactions(Connection shared, DataSource dataSource) {
+        this.shared = shared;
+        this.dataSource = dataSource;
+        this.routing = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Connection transactional = current.get();
+                    try {
+                        return method.invoke(transactional != null ? transactional : this.shared, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Returns the connection repositories use: the calling thread's transaction if
+     * one is open, otherwise the shared auto-commit connection.
+     */
+    public Connection connection() {
+        return routing;
+    }
+
+    /**
+     * Runs {@code work} in a transaction and returns its result. A call made inside
+     * another transaction joins it. Any exception thrown by {@code work} rolls the
+     * transaction back and is rethrown.
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        if (current.get() != null) {
+            return work.get();
+        }
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error starting transaction", e);
+        }
+        boolean synchronizing = !TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronizing) {
+            TransactionSynchronizationManager.initSynchronization();
+        }
+        current.set(connection);
+        int status = TransactionSynchronization.STATUS_UNKNOWN;
+        try {
+            T result = work.get();
+            connection.commit();
+            status = TransactionSynchronization.STATUS_COMMITTED;
+            return result;
+        } catch (SQLException e) {
+            rollbackQuietly(connection);
+            throw new RuntimeException("Error committing transaction", e);
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly(connection);
+            status = TransactionSynchronization.STATUS_ROLLED_BACK;
+            throw e;
+        } finally {
+            current.remove();
+            release(connection);
+            if (synchronizing) {
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                TransactionSynchronizationManager.clearSynchronization();
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+                }
+                TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+            }
+        }
+    }
+
+    public void runInTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Error rolling back transaction: {}", e.getMessage());
+        }
+    }
+
+    private static void release(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Error releasing transaction connection", e);
+        }
+    }
+}
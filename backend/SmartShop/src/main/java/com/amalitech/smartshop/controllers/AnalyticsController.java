@@ -0,0 +1,81 @@
+package com.amalitech.smartshop.controllers;
+
+import com.amalitech.smartshop.config.RequiresRole;
+import com.amalitech.smartshop.dtos.responses.ApiResponse;
+import com.amalitech.smartshop.dtos.responses.ProductSalesDTO;
+import com.amalitech.smartshop.dtos.responses.SalesRevenueDTO;
+import com.amalitech.smartshop.enums.UserRole;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.interfaces.AnalyticsService;
+import com.amalitech.smartshop.interfaces.SalesRollupRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for sales analytics.
+ * Vendors only see sales of their own products; admins see all and may filter by vendor.
+ */
+@Tag(name = "Sales Analytics", description = "APIs for sales rankings and revenue")
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @Operation(summary = "Get the best-selling products over a date range, by revenue or units")
+    @RequiresRole({UserRole.ADMIN, UserRole.VENDOR})
+    @GetMapping("/top-products")
+    public ResponseEntity<ApiResponse<List<ProductSalesDTO>>> getTopProducts(
+            @RequestAttribute(value = "authenticatedUserRole", required = false) String userRole,
+            @RequestAttribute(value = "authUserId", required = false) Long userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "vendorId", required = false) Long vendorId,
+            @RequestParam(value = "by", defaultValue = "REVENUE") String by,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        List<ProductSalesDTO> products = analyticsService.getTopProducts(from, to, categoryId,
+                scopedVendorId(userRole, userId, vendorId), metric(by), limit);
+        ApiResponse<List<ProductSalesDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Top products fetched successfully", products);
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @Operation(summary = "Get units sold and revenue over a date range, in total and per day")
+    @RequiresRole({UserRole.ADMIN, UserRole.VENDOR})
+    @GetMapping("/revenue")
+    public ResponseEntity<ApiResponse<SalesRevenueDTO>> getRevenue(
+            @RequestAttribute(value = "authenticatedUserRole", required = false) String userRole,
+            @RequestAttribute(value = "authUserId", required = false) Long userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "vendorId", required = false) Long vendorId
+    ) {
+        SalesRevenueDTO revenue = analyticsService.getRevenue(from, to, categoryId,
+                scopedVendorId(userRole, userId, vendorId));
+        ApiResponse<SalesRevenueDTO> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Revenue fetched successfully", revenue);
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    private static Long scopedVendorId(String userRole, Long userId, Long vendorId) {
+        return "VENDOR".equals(userRole) ? userId : vendorId;
+    }
+
+    private static SalesRollupRepository.Metric metric(String by) {
+        try {
+            return SalesRollupRepository.Metric.valueOf(by.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("by must be one of REVENUE or UNITS");
+        }
+    }
+}
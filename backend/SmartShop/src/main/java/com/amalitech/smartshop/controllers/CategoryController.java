@@ -1,5 +1,6 @@
 package com.amalitech.smartshop.controllers;
 
+import com.amalitech.smartshop.cache.CatalogETags;
 import com.amalitech.smartshop.config.RequiresRole;
 import com.amalitech.smartshop.dtos.requests.AddCategoryDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateCategoryDTO;
@@ -14,6 +15,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -29,6 +31,7 @@ import org.springframework.web.bind.annotation.*;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogETags catalogETags;
 
     @Operation(summary = "Add a new category")
     @RequiresRole(UserRole.ADMIN)
@@ -43,8 +46,13 @@ public class CategoryController {
     @GetMapping("/public/all")
     public ResponseEntity<ApiResponse<PagedResponse<CategoryResponseDTO>>> getAllCategories(
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
+        CatalogETags.Tag tag = catalogETags.tag("categories|" + page + "|" + size, "cat");
+        if (tag.matches(ifNoneMatch)) {
+            return catalogETags.notModified(tag.current(), CatalogETags.PUBLIC);
+        }
         Pageable pageable = Pageable.ofSize(size).withPage(page);
         Page<CategoryResponseDTO> categories = categoryService.getAllCategories(pageable);
         PagedResponse<CategoryResponseDTO> pagedResponse = new PagedResponse<>(
@@ -54,16 +62,30 @@ public class CategoryController {
                 categories.getTotalPages(),
                 categories.isLast()
         );
+        String etag = tag.of(pagedResponse);
+        if (catalogETags.matches(ifNoneMatch, etag)) {
+            return catalogETags.notModified(etag, CatalogETags.PUBLIC);
+        }
         ApiResponse<PagedResponse<CategoryResponseDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Categories fetched successfully", pagedResponse);
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CatalogETags.PUBLIC).body(apiResponse);
     }
 
     @Operation(summary = "Get category by ID")
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<CategoryResponseDTO>> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<CategoryResponseDTO>> getCategoryById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CatalogETags.Tag tag = catalogETags.tag("category|" + id, "cat");
+        if (tag.matches(ifNoneMatch)) {
+            return catalogETags.notModified(tag.current(), CatalogETags.PRIVATE);
+        }
         CategoryResponseDTO category = categoryService.getCategoryById(id);
+        String etag = tag.of(category);
+        if (catalogETags.matches(ifNoneMatch, etag)) {
+            return catalogETags.notModified(etag, CatalogETags.PRIVATE);
+        }
         ApiResponse<CategoryResponseDTO> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Category fetched successfully", category);
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CatalogETags.PRIVATE).body(apiResponse);
     }
 
     @Operation(summary = "Update a category")
@@ -7,6 +7,8 @@ import com.amalitech.smartshop.dtos.responses.ApiResponse;
 import com.amalitech.smartshop.dtos.responses.OrderResponseDTO;
 import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.enums.UserRole;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.interfaces.OrderRepository;
 import com.amalitech.smartshop.interfaces.OrderService;
 import com.amalitech.smartshop.utils.sorting.SortingService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -57,21 +59,38 @@ public class OrderController {
             @RequestParam(value = "size", defaultValue = "10") int size,
             @RequestParam(value = "sortBy", required = false) String sortBy,
             @RequestParam(value = "ascending", defaultValue = "false") boolean ascending,
-            @RequestParam(value = "algorithm", defaultValue = "MERGESORT") String algorithm
+            @RequestParam(value = "algorithm", required = false) String algorithm,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
     ) {
         Pageable pageable = Pageable.ofSize(size).withPage(page);
+        if (limit != null && limit < 1) {
+            throw new BadRequestFormat("limit must be at least 1");
+        }
+        if (limit != null && sortBy == null) {
+            throw new BadRequestFormat("limit requires sortBy");
+        }
+        if (limit != null && cursor != null) {
+            throw new BadRequestFormat("limit cannot be combined with cursor");
+        }
+        if (limit != null) {
+            PagedResponse<OrderResponseDTO> top = loadTopOrders(orderSortField(sortBy), ascending, limit, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Orders fetched successfully", top));
+        }
+        // sortBy is pushed down to SQL; naming an algorithm opts in to sorting the fetched page in memory
+        if (sortBy != null && algorithm == null) {
+            PagedResponse<OrderResponseDTO> sorted = orderService.getSortedOrders(orderSortField(sortBy), ascending, cursor, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), "Orders fetched successfully", sorted));
+        }
+        // In-memory sorting of this page only, when explicitly requested with an algorithm
+        SortingService.OrderSortField field = sortBy != null
+                ? SortingService.OrderSortField.valueOf(orderSortField(sortBy).name()) : null;
+        SortingService.SortAlgorithm algo = sortBy != null ? sortAlgorithm(algorithm) : null;
+
         Page<OrderResponseDTO> orders = orderService.getAllOrders(pageable);
         List<OrderResponseDTO> orderList = new ArrayList<>(orders.getContent());
-
-        // Apply custom sorting if sortBy is specified
-        if (sortBy != null) {
-            try {
-                SortingService.OrderSortField field = SortingService.OrderSortField.valueOf(sortBy.toUpperCase());
-                SortingService.SortAlgorithm algo = SortingService.SortAlgorithm.valueOf(algorithm.toUpperCase());
-                sortingService.sortOrders(orderList, field, ascending, algo);
-            } catch (IllegalArgumentException e) {
-                // Invalid sortBy or algorithm, ignore and return unsorted
-            }
+        if (field != null) {
+            sortingService.sortOrders(orderList, field, ascending, algo);
         }
 
         PagedResponse<OrderResponseDTO> pagedResponse = new PagedResponse<>(
@@ -85,6 +104,43 @@ public class OrderController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    /**
+     * Pages through the first {@code limit} orders in {@code sort} order, sorted in
+     * the database like any sorted listing; totals count the limited orders only.
+     */
+    private PagedResponse<OrderResponseDTO> loadTopOrders(OrderRepository.SortField sort, boolean ascending, int limit,
+                                                          Pageable pageable) {
+        PagedResponse<OrderResponseDTO> sorted = orderService.getSortedOrders(sort, ascending, null, pageable);
+        int total = (int) Math.min(limit, sorted.totalItems());
+        int from = (int) Math.min(pageable.getOffset(), total);
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total);
+        List<OrderResponseDTO> content = sorted.content();
+        return new PagedResponse<>(
+                new ArrayList<>(content.subList(0, Math.min(content.size(), to - from))),
+                pageable.getPageNumber(),
+                total,
+                (total + pageable.getPageSize() - 1) / pageable.getPageSize(),
+                to >= total
+        );
+    }
+
+    private static OrderRepository.SortField orderSortField(String sortBy) {
+        try {
+            return OrderRepository.SortField.valueOf(sortBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("sortBy must be one of TOTAL_AMOUNT or CREATED_AT");
+        }
+    }
+
+    private static SortingService.SortAlgorithm sortAlgorithm(String algorithm) {
+        try {
+            return SortingService.SortAlgorithm.valueOf(algorithm.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("algorithm must be one of QUICKSORT, MERGESORT, INTROSORT, ADAPTIVE_MERGESORT, "
+                    + "PARALLEL_MERGESORT, RADIX or AUTO");
+        }
+    }
+
     @Operation(summary = "Get orders by user")
     @RequiresRole({UserRole.CUSTOMER, UserRole.ADMIN})
     @GetMapping("/user")
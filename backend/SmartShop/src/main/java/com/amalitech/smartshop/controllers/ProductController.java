@@ -1,13 +1,22 @@
 package com.amalitech.smartshop.controllers;
 
+import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.CatalogETags;
 import com.amalitech.smartshop.config.RequiresRole;
 import com.amalitech.smartshop.dtos.requests.AddProductDTO;
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
 import com.amalitech.smartshop.dtos.requests.UpdateProductDTO;
 import com.amalitech.smartshop.dtos.responses.ApiResponse;
+import com.amalitech.smartshop.dtos.responses.CursorPage;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse;
 import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.dtos.responses.SuggestionResponseDTO;
 import com.amalitech.smartshop.enums.UserRole;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.interfaces.ProductRepository;
 import com.amalitech.smartshop.interfaces.ProductService;
+import com.amalitech.smartshop.search.SuggestionEngine;
 import com.amalitech.smartshop.utils.sorting.SortingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,12 +24,14 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST controller for product management operations.
@@ -34,6 +45,9 @@ public class ProductController {
 
     private final ProductService productService;
     private final SortingService sortingService;
+    private final CatalogETags catalogETags;
+    private final CacheManager cacheManager;
+    private final SuggestionEngine suggestionEngine;
 
     @Operation(summary = "Add a new product")
     @RequiresRole({UserRole.ADMIN, UserRole.VENDOR})
@@ -73,40 +87,200 @@ public class ProductController {
             @RequestParam(value = "vendorId", required = false) Long vendorId,
             @RequestParam(value = "sortBy", required = false) String sortBy,
             @RequestParam(value = "ascending", defaultValue = "true") boolean ascending,
-            @RequestParam(value = "algorithm", defaultValue = "QUICKSORT") String algorithm
+            @RequestParam(value = "algorithm", required = false) String algorithm,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         Pageable pageable = Pageable.ofSize(size).withPage(page);
-        Page<ProductResponseDTO> products;
-
         boolean isAdmin = "ADMIN".equals(userRole);
+        validateLimit(limit, sortBy);
+        // sortBy is pushed down to SQL; naming an algorithm opts in to sorting the fetched page in memory, and
+        // a limit to selecting the first products of the whole listing in memory
+        ProductRepository.SortField sqlSort = sortBy != null && algorithm == null && limit == null
+                ? productSortField(sortBy) : null;
 
         // If user is VENDOR and no vendorId specified, show only their products
         if ("VENDOR".equals(userRole) && vendorId == null) {
             vendorId = userId;
         }
 
+        String scope = String.join("|", "products", String.valueOf(page), String.valueOf(size),
+                String.valueOf(categoryId), String.valueOf(vendorId), String.valueOf(sortBy), String.valueOf(ascending),
+                String.valueOf(algorithm), String.valueOf(cursor), String.valueOf(limit), String.valueOf(isAdmin));
+        CatalogETags.Tag tag = catalogETags.tag(scope, "prod", "invent", "cat");
+        if (tag.matches(ifNoneMatch)) {
+            return catalogETags.notModified(tag.current(), CatalogETags.PRIVATE);
+        }
+
+        Long listingVendorId = vendorId;
+        Supplier<PagedResponse<ProductResponseDTO>> loader = () -> sqlSort != null
+                ? productService.getSortedProducts(categoryId, listingVendorId, sqlSort, ascending, cursor, pageable)
+                : loadProductPage(pageable, categoryId, listingVendorId, isAdmin, sortBy, ascending, algorithm, limit);
+        // Stock changes do not touch the listing keys, so a selection by quantity could go stale in the cache
+        PagedResponse<ProductResponseDTO> pagedResponse = limit != null
+                && inMemoryProductSortField(sortBy) == SortingService.ProductSortField.QUANTITY
+                ? loader.get()
+                : cacheManager.get("page:" + scope, loader, loaded -> pageDependencies(loaded, categoryId, listingVendorId));
+        String etag = tag.of(pagedResponse);
+        if (catalogETags.matches(ifNoneMatch, etag)) {
+            return catalogETags.notModified(etag, CatalogETags.PRIVATE);
+        }
+        ApiResponse<PagedResponse<ProductResponseDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Products fetched successfully", pagedResponse);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CatalogETags.PRIVATE).body(apiResponse);
+    }
+
+    @Operation(summary = "Get products filtered by category, vendor, availability, price and rating, with facet counts")
+    @GetMapping("/faceted")
+    public ResponseEntity<ApiResponse<FacetedPagedResponse<ProductResponseDTO>>> getFacetedProducts(
+            @RequestAttribute(value = "authenticatedUserRole", required = false) String userRole,
+            @RequestAttribute(value = "authUserId", required = false) Long userId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "categoryId", required = false) List<Long> categoryIds,
+            @RequestParam(value = "vendorId", required = false) List<Long> vendorIds,
+            @RequestParam(value = "inStock", required = false) Boolean inStock,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "minRating", required = false) Integer minRating
+    ) {
+        // If user is VENDOR and no vendorId specified, show only their products
+        if ("VENDOR".equals(userRole) && (vendorIds == null || vendorIds.isEmpty())) {
+            vendorIds = List.of(userId);
+        }
+        ProductFacetFilter filter = new ProductFacetFilter(categoryIds, vendorIds, inStock, minPrice, maxPrice, minRating);
+        FacetedPagedResponse<ProductResponseDTO> products = productService.getFacetedProducts(filter, Pageable.ofSize(size).withPage(page));
+        ApiResponse<FacetedPagedResponse<ProductResponseDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Products fetched successfully", products);
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    private PagedResponse<ProductResponseDTO> loadProductPage(Pageable pageable, Long categoryId, Long vendorId,
+                                                              boolean isAdmin, String sortBy, boolean ascending,
+                                                              String algorithm, Integer limit) {
+        if (sortBy != null && limit != null) {
+            return loadTopProducts(pageable, categoryId, vendorId, isAdmin, inMemoryProductSortField(sortBy), ascending, limit);
+        }
+        // In-memory sorting of this page only, when explicitly requested with an algorithm
+        boolean sorting = sortBy != null && algorithm != null;
+        SortingService.ProductSortField field = sorting ? inMemoryProductSortField(sortBy) : null;
+        SortingService.SortAlgorithm algo = sorting ? sortAlgorithm(algorithm) : null;
+
+        Page<ProductResponseDTO> products = loadListing(pageable, categoryId, vendorId, isAdmin);
+        List<ProductResponseDTO> productList = new ArrayList<>(products.getContent());
+        if (sorting) {
+            sortingService.sortProducts(productList, field, ascending, algo);
+        }
+
+        return new PagedResponse<>(
+                productList,
+                products.getNumber(),
+                (int) products.getTotalElements(),
+                products.getTotalPages(),
+                products.isLast()
+        );
+    }
+
+    /**
+     * Pages through the first {@code limit} products of the whole listing in
+     * {@code field} order. Only as many as the requested page reaches are selected
+     * from the listing, which is served from the catalog snapshot when it is enabled.
+     */
+    private PagedResponse<ProductResponseDTO> loadTopProducts(Pageable pageable, Long categoryId, Long vendorId,
+                                                              boolean isAdmin, SortingService.ProductSortField field,
+                                                              boolean ascending, int limit) {
+        List<ProductResponseDTO> listing = loadListing(Pageable.unpaged(), categoryId, vendorId, isAdmin).getContent();
+        int total = Math.min(limit, listing.size());
+        int from = (int) Math.min(pageable.getOffset(), total);
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total);
+        List<ProductResponseDTO> top = sortingService.topK(listing, field, ascending, to);
+        return new PagedResponse<>(
+                new ArrayList<>(top.subList(from, to)),
+                pageable.getPageNumber(),
+                total,
+                (total + pageable.getPageSize() - 1) / pageable.getPageSize(),
+                to >= total
+        );
+    }
+
+    private Page<ProductResponseDTO> loadListing(Pageable pageable, Long categoryId, Long vendorId, boolean isAdmin) {
         if (categoryId != null) {
-            products = productService.getProductsByCategory(categoryId, pageable, isAdmin);
+            return productService.getProductsByCategory(categoryId, pageable, isAdmin);
         } else if (vendorId != null) {
-            products = productService.getProductsByVendor(vendorId, pageable);
-        } else {
-            products = productService.getAllProducts(pageable, isAdmin);
+            return productService.getProductsByVendor(vendorId, pageable);
         }
+        return productService.getAllProducts(pageable, isAdmin);
+    }
 
-        List<ProductResponseDTO> productList = new ArrayList<>(products.getContent());
+    private static void validateLimit(Integer limit, String sortBy) {
+        if (limit == null) {
+            return;
+        }
+        if (limit < 1) {
+            throw new BadRequestFormat("limit must be at least 1");
+        }
+        if (sortBy == null) {
+            throw new BadRequestFormat("limit requires sortBy");
+        }
+    }
 
-        // Apply custom sorting if sortBy is specified
-        if (sortBy != null) {
-            try {
-                SortingService.ProductSortField field = SortingService.ProductSortField.valueOf(sortBy.toUpperCase());
-                SortingService.SortAlgorithm algo = SortingService.SortAlgorithm.valueOf(algorithm.toUpperCase());
-                sortingService.sortProducts(productList, field, ascending, algo);
-            } catch (IllegalArgumentException e) {
-            }
+    private static SortingService.ProductSortField inMemoryProductSortField(String sortBy) {
+        try {
+            return SortingService.ProductSortField.valueOf(sortBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("sortBy must be one of NAME, PRICE, QUANTITY or RATING when an algorithm or a limit is given");
         }
+    }
 
+    private static SortingService.SortAlgorithm sortAlgorithm(String algorithm) {
+        try {
+            return SortingService.SortAlgorithm.valueOf(algorithm.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("algorithm must be one of QUICKSORT, MERGESORT, INTROSORT, ADAPTIVE_MERGESORT, "
+                    + "PARALLEL_MERGESORT, RADIX or AUTO");
+        }
+    }
+
+    private static ProductRepository.SortField productSortField(String sortBy) {
+        try {
+            return ProductRepository.SortField.valueOf(sortBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("sortBy must be one of NAME, PRICE, CREATED_AT or RATING; "
+                    + "other fields need an in-memory algorithm");
+        }
+    }
+
+    /**
+     * Keys a cached listing page is built from: every listed product with its stock
+     * and category, plus the listing's membership key, which product writes
+     * invalidate when a product may enter or leave the listing.
+     */
+    private static List<String> pageDependencies(PagedResponse<ProductResponseDTO> page, Long categoryId, Long vendorId) {
+        List<String> keys = new ArrayList<>();
+        if (categoryId != null) {
+            keys.add("prod:list:cat:" + categoryId);
+            keys.add("cat:" + categoryId);
+        } else if (vendorId != null) {
+            keys.add("prod:list:vendor:" + vendorId);
+        } else {
+            keys.add("prod:list:all");
+        }
+        for (ProductResponseDTO product : page.content()) {
+            keys.add("prod:" + product.getId());
+            keys.add("invent:" + product.getId());
+            keys.add("cat:" + product.getCategoryId());
+        }
+        return keys;
+    }
+
+    @Operation(summary = "Search products by name, description and SKU")
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PagedResponse<ProductResponseDTO>>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        Page<ProductResponseDTO> products = productService.searchProducts(query, Pageable.ofSize(size).withPage(page));
         PagedResponse<ProductResponseDTO> pagedResponse = new PagedResponse<>(
-                productList,
+                products.getContent(),
                 products.getNumber(),
                 (int) products.getTotalElements(),
                 products.getTotalPages(),
@@ -116,12 +290,47 @@ public class ProductController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @Operation(summary = "Search products in the database with filters and cursor paging")
+    @GetMapping("/search/fulltext")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponseDTO>>> searchProductsInDatabase(
+            @RequestParam("q") String query,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        CursorPage<ProductResponseDTO> products = productService.searchProductsInDatabase(
+                query, new ProductRepository.SearchFilters(categoryId, minPrice, maxPrice), cursor, size);
+        ApiResponse<CursorPage<ProductResponseDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Products fetched successfully", products);
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @Operation(summary = "Suggest product and category names completing the typed text")
+    @GetMapping("/public/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionResponseDTO>>> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        List<SuggestionResponseDTO> suggestions = suggestionEngine.suggest(prefix, limit);
+        ApiResponse<List<SuggestionResponseDTO>> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Suggestions fetched successfully", suggestions);
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @Operation(summary = "Get product by ID")
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponseDTO>> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductResponseDTO>> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CatalogETags.Tag tag = catalogETags.tag("product|" + id, "prod", "invent", "cat");
+        if (tag.matches(ifNoneMatch)) {
+            return catalogETags.notModified(tag.current(), CatalogETags.PRIVATE);
+        }
         ProductResponseDTO product = productService.getProductById(id);
+        String etag = tag.of(product);
+        if (catalogETags.matches(ifNoneMatch, etag)) {
+            return catalogETags.notModified(etag, CatalogETags.PRIVATE);
+        }
         ApiResponse<ProductResponseDTO> apiResponse = new ApiResponse<>(HttpStatus.OK.value(), "Product fetched successfully", product);
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CatalogETags.PRIVATE).body(apiResponse);
     }
 
     @Operation(summary = "Update a product")
@@ -0,0 +1,18 @@
+package com.amalitech.smartshop.dtos.requests;
+
+import java.util.List;
+
+/**
+ * Filters for a faceted product listing. Null or empty fields do not filter; a
+ * product matches when it satisfies every given field, and any of the listed
+ * categories or vendors.
+ */
+public record ProductFacetFilter(
+        List<Long> categoryIds,
+        List<Long> vendorIds,
+        Boolean inStock,
+        Double minPrice,
+        Double maxPrice,
+        Integer minRating
+) {
+}
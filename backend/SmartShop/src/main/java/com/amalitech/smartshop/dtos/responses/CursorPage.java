@@ -0,0 +1,13 @@
+package com.amalitech.smartshop.dtos.responses;
+
+import java.util.List;
+
+/**
+ * A page of results read by keyset pagination. {@code nextCursor} is passed back
+ * to fetch the following page and is null on the last page.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        String nextCursor
+) {
+}
@@ -0,0 +1,26 @@
+package com.amalitech.smartshop.dtos.responses;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of a filtered listing with the number of matching items per facet value.
+ * Each facet is counted with every filter applied except its own, so the counts
+ * show how many items selecting that value would give.
+ */
+public record FacetedPagedResponse<T>(
+        List<T> content,
+        int currentPage,
+        int totalItems,
+        int totalPages,
+        boolean isLast,
+        Map<String, List<FacetValue>> facets
+) {
+
+    public record FacetValue(
+            String value,
+            String label,
+            int count
+    ) {
+    }
+}
@@ -2,8 +2,10 @@ package com.amalitech.smartshop.dtos.responses;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class InventoryResponseDTO {
+public class InventoryResponseDTO implements Serializable {
     private Long id;
     private Long productId;
     private String productName;
@@ -3,11 +3,12 @@ package com.amalitech.smartshop.dtos.responses;
 import com.amalitech.smartshop.enums.OrderStatus;
 import lombok.Data;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-public class OrderResponseDTO {
+public class OrderResponseDTO implements Serializable {
     private Long id;
     private Long userId;
     private String userName;
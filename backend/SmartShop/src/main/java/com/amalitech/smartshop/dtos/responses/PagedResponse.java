@@ -2,13 +2,21 @@ package com.amalitech.smartshop.dtos.responses;
 
 import java.util.List;
 
+/**
+ * A page of a listing. Sorted listings also return {@code nextCursor}, which reads
+ * the following page by keyset instead of page number; it is null otherwise and on
+ * the last page.
+ */
 public record PagedResponse<T>(
         List<T> content,
         int currentPage,
         int totalItems,
         int totalPages,
-        boolean isLast
+        boolean isLast,
+        String nextCursor
 ) {
-}
-
 
+    public PagedResponse(List<T> content, int currentPage, int totalItems, int totalPages, boolean isLast) {
+        this(content, currentPage, totalItems, totalPages, isLast, null);
+    }
+}
@@ -2,8 +2,10 @@ package com.amalitech.smartshop.dtos.responses;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class ProductResponseDTO {
+public class ProductResponseDTO implements Serializable {
     private Long id;
     private String name;
     private String description;
@@ -14,4 +16,6 @@ public class ProductResponseDTO {
     private Long categoryId;
     private String categoryName;
     private Long vendorId;
+    private Double averageRating;
+    private Long reviewCount;
 }
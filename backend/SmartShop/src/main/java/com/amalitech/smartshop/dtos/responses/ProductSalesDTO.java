@@ -0,0 +1,18 @@
+package com.amalitech.smartshop.dtos.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDTO implements Serializable {
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private Long unitsSold;
+    private Double revenue;
+}
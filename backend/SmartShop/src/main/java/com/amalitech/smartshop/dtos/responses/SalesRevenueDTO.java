@@ -0,0 +1,24 @@
+package com.amalitech.smartshop.dtos.responses;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Units sold and revenue over a range of days, in total and per day with sales.
+ * Cancelled orders are not counted.
+ */
+public record SalesRevenueDTO(
+        LocalDate from,
+        LocalDate to,
+        long unitsSold,
+        double revenue,
+        List<DailySales> days
+) {
+
+    public record DailySales(
+            LocalDate date,
+            long unitsSold,
+            double revenue
+    ) {
+    }
+}
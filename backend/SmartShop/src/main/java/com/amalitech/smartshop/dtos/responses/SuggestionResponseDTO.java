@@ -0,0 +1,17 @@
+package com.amalitech.smartshop.dtos.responses;
+
+import com.amalitech.smartshop.enums.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponseDTO implements Serializable {
+    private String text;
+    private SuggestionType type;
+    private Long id;
+}
@@ -17,4 +17,6 @@ public class Inventory {
     private Long productId;
     private Integer quantity;
     private String location;
+    /** Orders stock changes of the product; every write to the row draws a higher one. */
+    private Long version;
 }
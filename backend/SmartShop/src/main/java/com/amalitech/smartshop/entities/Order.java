@@ -18,7 +18,7 @@ import java.time.LocalDateTime;
 public class Order {
     private Long id;
     private Long userId;
-    private Double totalAmount;
+    private long totalAmountCents;
     @Builder.Default
     private OrderStatus status = OrderStatus.PENDING;
     private LocalDateTime createdAt;
@@ -16,6 +16,8 @@ public class OrderItem {
     private Long id;
     private Long orderId;
     private Long productId;
+    /** The product's category when the order was placed, which its sales count towards. */
+    private Long categoryId;
     private Integer quantity;
-    private Double totalPrice;
+    private long totalPriceCents;
 }
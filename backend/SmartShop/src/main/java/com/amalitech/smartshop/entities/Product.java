@@ -21,10 +21,14 @@ public class Product {
     private String imageUrl;
     private Long categoryId;
     private String sku;
-    private Double price;
+    private long priceCents;
     private Long vendorId;
     @Builder.Default
     private boolean available = true;
+    /** Maintained by the review service; never written by a product save. */
+    private long ratingCount;
+    /** Average of the product's ratings, or 0 if it has none. */
+    private float averageRating;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
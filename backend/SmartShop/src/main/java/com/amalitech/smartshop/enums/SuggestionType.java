@@ -0,0 +1,6 @@
+package com.amalitech.smartshop.enums;
+
+public enum SuggestionType {
+    PRODUCT,
+    CATEGORY
+}
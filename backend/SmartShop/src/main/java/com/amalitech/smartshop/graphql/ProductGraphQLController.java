@@ -7,6 +7,7 @@ import com.amalitech.smartshop.enums.UserRole;
 import com.amalitech.smartshop.interfaces.ProductService;
 import graphql.schema.DataFetchingEnvironment;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -28,6 +29,12 @@ public class ProductGraphQLController {
         return productService.getAllProductsList();
     }
 
+    @QueryMapping
+    public List<ProductResponseDTO> searchProducts(@Argument String query, @Argument Integer page, @Argument Integer size) {
+        Pageable pageable = Pageable.ofSize(size != null ? size : 10).withPage(page != null ? page : 0);
+        return productService.searchProducts(query, pageable).getContent();
+    }
+
     @QueryMapping
     public ProductResponseDTO productById(@Argument Long id) {
         return productService.getProductById(id);
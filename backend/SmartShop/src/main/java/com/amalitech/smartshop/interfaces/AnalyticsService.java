@@ -0,0 +1,38 @@
+package com.amalitech.smartshop.interfaces;
+
+import com.amalitech.smartshop.dtos.responses.ProductSalesDTO;
+import com.amalitech.smartshop.dtos.responses.SalesRevenueDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for sales analytics, read from the daily sales rollups.
+ */
+public interface AnalyticsService {
+
+    /**
+     * Get the best-selling products over a range of days.
+     *
+     * @param from the first day, inclusive, or null for the 30 days up to {@code to}
+     * @param to the last day, inclusive, or null for today
+     * @param categoryId only products in this category, or null for all
+     * @param vendorId only products of this vendor, or null for all
+     * @param metric what the products are ranked by
+     * @param limit the maximum number of products to return
+     * @return products with sales in the range, best first
+     */
+    List<ProductSalesDTO> getTopProducts(LocalDate from, LocalDate to, Long categoryId, Long vendorId,
+                                         SalesRollupRepository.Metric metric, int limit);
+
+    /**
+     * Get units sold and revenue over a range of days, in total and per day.
+     *
+     * @param from the first day, inclusive, or null for the 30 days up to {@code to}
+     * @param to the last day, inclusive, or null for today
+     * @param categoryId only sales in this category, or null for all
+     * @param vendorId only sales of this vendor's products, or null for all
+     * @return the totals and the days with sales
+     */
+    SalesRevenueDTO getRevenue(LocalDate from, LocalDate to, Long categoryId, Long vendorId);
+}
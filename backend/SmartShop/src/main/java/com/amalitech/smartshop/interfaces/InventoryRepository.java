@@ -60,10 +60,21 @@ public interface InventoryRepository {
      */
     List<Inventory> saveAll(List<Inventory> inventories);
 
+    /**
+     * Atomically add {@code change} to a product's quantity, unless that would take
+     * it below zero.
+     *
+     * @param productId the product ID
+     * @param change the quantity to add, negative to take stock
+     * @return the updated inventory, or empty if the product has no inventory or too little stock
+     */
+    Optional<Inventory> adjustQuantity(Long productId, int change);
+
     /**
      * Delete an inventory record.
      *
      * @param inventory the inventory to delete
+     * @return the version of the deletion, or empty if the record no longer existed
      */
-    void delete(Inventory inventory);
+    Optional<Long> delete(Inventory inventory);
 }
@@ -1,6 +1,9 @@
 package com.amalitech.smartshop.interfaces;
 
 import com.amalitech.smartshop.entities.Order;
+import com.amalitech.smartshop.enums.OrderStatus;
+import com.amalitech.smartshop.utils.Money;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -37,6 +40,19 @@ public interface OrderRepository {
      */
     Page<Order> findAll(Pageable pageable);
 
+    /**
+     * Find orders ordered by an indexed column, ties broken by ID in the same
+     * direction. With a cursor the page starts right after the cursor's row and the
+     * pageable's offset is ignored.
+     *
+     * @param sort the column to order by
+     * @param ascending true for ascending order
+     * @param after the cursor of the previous page's last order, or null to page by offset
+     * @param pageable pagination information
+     * @return a page of orders in sort order
+     */
+    Page<Order> findSorted(SortField sort, boolean ascending, KeysetCursor after, Pageable pageable);
+
     /**
      * Find an order by its ID.
      *
@@ -53,10 +69,38 @@ public interface OrderRepository {
      */
     Order save(Order order);
 
+    /**
+     * Set the status of an order.
+     *
+     * @param id the order ID
+     * @param status the new status
+     * @return the status the order had before, or empty if it does not exist
+     */
+    Optional<OrderStatus> updateStatus(Long id, OrderStatus status);
+
     /**
      * Delete an order.
      *
      * @param order the order to delete
+     * @return the status the order had when deleted, or empty if it no longer existed
      */
-    void delete(Order order);
+    Optional<OrderStatus> delete(Order order);
+
+    /**
+     * Columns order listings can be ordered by in the database; each is backed by an
+     * index ending in the ID.
+     */
+    enum SortField {
+        TOTAL_AMOUNT, CREATED_AT;
+
+        /**
+         * Returns this field's value in an order as kept in a {@link KeysetCursor}.
+         */
+        public String cursorValue(Order order) {
+            return switch (this) {
+                case TOTAL_AMOUNT -> Money.toDecimal(order.getTotalAmountCents()).toPlainString();
+                case CREATED_AT -> order.getCreatedAt().toString();
+            };
+        }
+    }
 }
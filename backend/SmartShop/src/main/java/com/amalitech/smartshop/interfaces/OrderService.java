@@ -3,6 +3,7 @@ package com.amalitech.smartshop.interfaces;
 import com.amalitech.smartshop.dtos.requests.AddOrderDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateOrderDTO;
 import com.amalitech.smartshop.dtos.responses.OrderResponseDTO;
+import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -27,6 +28,18 @@ public interface OrderService {
      */
     Page<OrderResponseDTO> getAllOrders(Pageable pageable);
 
+    /**
+     * Get all orders sorted in the database, paged by number or by cursor.
+     *
+     * @param sort the column to order by
+     * @param ascending true for ascending order
+     * @param cursor the previous page's {@code nextCursor}, or null to page by number
+     * @param pageable pagination information
+     * @return a page of order responses with the cursor of the next page
+     */
+    PagedResponse<OrderResponseDTO> getSortedOrders(OrderRepository.SortField sort, boolean ascending, String cursor,
+                                                    Pageable pageable);
+
     /**
      * Get orders for a specific user with pagination.
      *
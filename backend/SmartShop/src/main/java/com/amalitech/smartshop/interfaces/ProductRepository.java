@@ -1,6 +1,10 @@
 package com.amalitech.smartshop.interfaces;
 
+import com.amalitech.smartshop.dtos.responses.CursorPage;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
 import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.utils.Money;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -43,6 +47,15 @@ public interface ProductRepository {
      */
     void delete(Product product);
 
+    /**
+     * Apply a review change to a product's rating sum, count and per-star counts.
+     *
+     * @param productId the reviewed product
+     * @param removedRating the rating the review had, or null for a new review
+     * @param addedRating the rating the review has now, or null for a deleted review
+     */
+    void updateRating(Long productId, Integer removedRating, Integer addedRating);
+
     /**
      * Find all products with pagination.
      *
@@ -77,6 +90,22 @@ public interface ProductRepository {
      */
     Page<Product> findByVendorId(Long vendorId, Pageable pageable);
 
+    /**
+     * Find products ordered by an indexed column, ties broken by ID in the same
+     * direction. With a cursor the page starts right after the cursor's row and the
+     * pageable's offset is ignored.
+     *
+     * @param categoryId only products in this category, or null
+     * @param vendorId only products owned by this vendor, or null
+     * @param sort the column to order by
+     * @param ascending true for ascending order
+     * @param after the cursor of the previous page's last product, or null to page by offset
+     * @param pageable pagination information
+     * @return a page of products in sort order, with the total matching the filters
+     */
+    Page<Product> findSorted(Long categoryId, Long vendorId, SortField sort, boolean ascending,
+                             KeysetCursor after, Pageable pageable);
+
     /**
      * Find all products that have inventory with pagination.
      *
@@ -100,4 +129,48 @@ public interface ProductRepository {
      * @return list of all products with inventory
      */
     List<Product> findAllWithInventory();
+
+    /**
+     * Full-text search over product names, SKUs and descriptions, ranked in the
+     * database with {@code ts_rank} plus trigram similarity on the name, so typos
+     * and partial words still match. Results come in rank order and are paged by
+     * keyset: pass the previous page's {@code nextCursor} to continue.
+     *
+     * @param query the search text
+     * @param filters optional category and price filters; null or null fields mean unfiltered
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of results to return
+     * @return a page of matching products in the listing projection
+     */
+    CursorPage<ProductResponseDTO> search(String query, SearchFilters filters, String cursor, int limit);
+
+    /**
+     * Optional filters for {@link #search}.
+     *
+     * @param categoryId only products in this category
+     * @param minPrice only products priced at least this much
+     * @param maxPrice only products priced at most this much
+     */
+    record SearchFilters(Long categoryId, Double minPrice, Double maxPrice) {
+    }
+
+    /**
+     * Columns product listings can be ordered by in the database; each is backed by
+     * an index ending in the ID.
+     */
+    enum SortField {
+        NAME, PRICE, CREATED_AT, RATING;
+
+        /**
+         * Returns this field's value in a product as kept in a {@link KeysetCursor}.
+         */
+        public String cursorValue(Product product) {
+            return switch (this) {
+                case NAME -> product.getName();
+                case PRICE -> Money.toDecimal(product.getPriceCents()).toPlainString();
+                case CREATED_AT -> product.getCreatedAt().toString();
+                case RATING -> Float.toString(product.getAverageRating());
+            };
+        }
+    }
 }
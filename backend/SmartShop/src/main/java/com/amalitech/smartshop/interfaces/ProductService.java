@@ -1,7 +1,11 @@
 package com.amalitech.smartshop.interfaces;
 
 import com.amalitech.smartshop.dtos.requests.AddProductDTO;
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
 import com.amalitech.smartshop.dtos.requests.UpdateProductDTO;
+import com.amalitech.smartshop.dtos.responses.CursorPage;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse;
+import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -75,6 +79,54 @@ public interface ProductService {
      */
     List<ProductResponseDTO> getAllProductsList();
 
+    /**
+     * Get products sorted in the database, optionally in one category or of one
+     * vendor, paged by number or by cursor.
+     *
+     * @param categoryId only products in this category, or null
+     * @param vendorId only products owned by this vendor, or null
+     * @param sort the column to order by
+     * @param ascending true for ascending order
+     * @param cursor the previous page's {@code nextCursor}, or null to page by number
+     * @param pageable pagination information
+     * @return a page of product responses with the cursor of the next page
+     */
+    PagedResponse<ProductResponseDTO> getSortedProducts(Long categoryId, Long vendorId, ProductRepository.SortField sort,
+                                                        boolean ascending, String cursor, Pageable pageable);
+
+    /**
+     * Get products matching any combination of category, vendor, availability,
+     * price range and minimum rating, with per-facet counts.
+     *
+     * @param filter the filters to apply
+     * @param pageable pagination information
+     * @return a page of matching product responses with facet counts
+     */
+    FacetedPagedResponse<ProductResponseDTO> getFacetedProducts(ProductFacetFilter filter, Pageable pageable);
+
+    /**
+     * Search products by name, description and SKU, best matches first.
+     *
+     * @param query the search text
+     * @param pageable pagination information
+     * @return a page of matching product responses
+     */
+    Page<ProductResponseDTO> searchProducts(String query, Pageable pageable);
+
+    /**
+     * Search products in the database with full-text ranking, optional filters and
+     * keyset pagination. Unlike {@link #searchProducts}, results do not depend on
+     * this instance's in-memory index.
+     *
+     * @param query the search text
+     * @param filters optional category and price filters
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param size the page size
+     * @return a page of matching product responses and the cursor for the next one
+     */
+    CursorPage<ProductResponseDTO> searchProductsInDatabase(String query, ProductRepository.SearchFilters filters,
+                                                            String cursor, int size);
+
     /**
      * Delete a product.
      *
@@ -9,6 +9,8 @@ import java.util.Optional;
 public interface ReviewRepository {
     Review save(Review review);
     Optional<Review> findById(Long id);
+    /** Reads a review and locks it until the surrounding transaction ends. */
+    Optional<Review> findByIdForUpdate(Long id);
     Page<Review> findAll(Pageable pageable);
     Page<Review> findByProductId(Long productId, Pageable pageable);
     Page<Review> findByUserId(Long userId, Pageable pageable);
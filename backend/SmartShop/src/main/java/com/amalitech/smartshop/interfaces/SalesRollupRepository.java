@@ -0,0 +1,68 @@
+package com.amalitech.smartshop.interfaces;
+
+import com.amalitech.smartshop.entities.OrderItem;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for the daily sales rollups per product and per category.
+ * Orders add to them when placed and subtract from them when cancelled or deleted,
+ * so reads cost the same however many orders have been placed.
+ */
+public interface SalesRollupRepository {
+
+    /**
+     * Add the units and revenue of order items to the rollups of a day.
+     *
+     * @param salesDate the day the order was placed
+     * @param items the order's items
+     */
+    void record(LocalDate salesDate, List<OrderItem> items);
+
+    /**
+     * Subtract the units and revenue of order items from the rollups of a day.
+     *
+     * @param salesDate the day the order was placed
+     * @param items the order's items
+     */
+    void reverse(LocalDate salesDate, List<OrderItem> items);
+
+    /**
+     * Find the best-selling products over a range of days.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param categoryId only sales made while the product was in this category, or null for all
+     * @param vendorId only products of this vendor, or null for all
+     * @param metric what the products are ranked by
+     * @param limit the maximum number of products to return
+     * @return products with sales in the range, best first
+     */
+    List<ProductSales> findTopProducts(LocalDate from, LocalDate to, Long categoryId, Long vendorId,
+                                       Metric metric, int limit);
+
+    /**
+     * Find units sold and revenue per day over a range of days.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param categoryId only sales in this category, or null for all
+     * @param vendorId only sales of this vendor's products, or null for all
+     * @return the days with sales in the range, in date order
+     */
+    List<DailySales> findDailySales(LocalDate from, LocalDate to, Long categoryId, Long vendorId);
+
+    /**
+     * What top products are ranked by.
+     */
+    enum Metric {
+        REVENUE, UNITS
+    }
+
+    record ProductSales(long productId, String productName, long categoryId, long unitsSold, long revenueCents) {
+    }
+
+    record DailySales(LocalDate date, long unitsSold, long revenueCents) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.amalitech.smartshop.mappers;
+
+import com.amalitech.smartshop.utils.Money;
+import org.mapstruct.Named;
+
+/**
+ * MapStruct conversions between amounts in cents on entities and the decimal
+ * numbers DTOs carry in JSON and GraphQL.
+ */
+public class MoneyMapper {
+
+    @Named("centsToDecimal")
+    public static Double centsToDecimal(long cents) {
+        return Money.toDouble(cents);
+    }
+
+    @Named("decimalToCents")
+    public static long decimalToCents(Double amount) {
+        return Money.ofDecimal(amount);
+    }
+}
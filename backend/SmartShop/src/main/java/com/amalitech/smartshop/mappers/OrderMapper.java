@@ -10,15 +10,17 @@ import org.mapstruct.Mapping;
 /**
  * MapStruct mapper for Order entity conversions.
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = MoneyMapper.class)
 public interface OrderMapper {
 
     @Mapping(source = "userId", target = "userId")
     @Mapping(target = "userName", ignore = true)
     @Mapping(target = "items", ignore = true)
+    @Mapping(target = "totalAmount", source = "totalAmountCents", qualifiedByName = "centsToDecimal")
     OrderResponseDTO toResponseDTO(Order order);
 
     @Mapping(source = "productId", target = "productId")
     @Mapping(target = "productName", ignore = true)
+    @Mapping(target = "totalPrice", source = "totalPriceCents", qualifiedByName = "centsToDecimal")
     OrderItemResponseDTO toOrderItemResponseDTO(OrderItem orderItem);
 }
@@ -9,11 +9,14 @@ import org.mapstruct.*;
 /**
  * MapStruct mapper for Product entity conversions.
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = {MoneyMapper.class, RatingMapper.class})
 public interface ProductMapper {
 
     @Mapping(target = "categoryName", ignore = true)
     @Mapping(target = "quantity", ignore = true)
+    @Mapping(target = "price", source = "priceCents", qualifiedByName = "centsToDecimal")
+    @Mapping(target = "averageRating", source = ".", qualifiedByName = "averageRating")
+    @Mapping(target = "reviewCount", source = "ratingCount")
     ProductResponseDTO toResponseDTO(Product product);
 
     @Mapping(target = "id", ignore = true)
@@ -22,6 +25,9 @@ public interface ProductMapper {
     @Mapping(target = "available", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "ratingCount", ignore = true)
+    @Mapping(target = "averageRating", ignore = true)
+    @Mapping(target = "priceCents", source = "price", qualifiedByName = "decimalToCents")
     Product toEntity(AddProductDTO addProductDTO);
 
     @Mapping(target = "id", ignore = true)
@@ -30,6 +36,9 @@ public interface ProductMapper {
     @Mapping(target = "available", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "ratingCount", ignore = true)
+    @Mapping(target = "averageRating", ignore = true)
+    @Mapping(target = "priceCents", source = "price", qualifiedByName = "decimalToCents")
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateEntity(UpdateProductDTO updateDTO, @MappingTarget Product entity);
 }
@@ -0,0 +1,24 @@
+package com.amalitech.smartshop.mappers;
+
+import com.amalitech.smartshop.entities.Product;
+import org.mapstruct.Named;
+
+/**
+ * MapStruct conversions from the rating aggregates kept on products to the
+ * average DTOs carry in JSON and GraphQL.
+ */
+public class RatingMapper {
+
+    @Named("averageRating")
+    public static Double averageRating(Product product) {
+        return averageRating(product.getAverageRating(), product.getRatingCount());
+    }
+
+    /**
+     * Returns the stored average rounded to two decimals, or null if the product
+     * has no reviews.
+     */
+    public static Double averageRating(float average, long reviewCount) {
+        return reviewCount > 0 ? Math.round(average * 100.0) / 100.0 : null;
+    }
+}
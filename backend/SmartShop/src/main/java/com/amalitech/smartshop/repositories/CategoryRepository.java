@@ -1,5 +1,7 @@
 package com.amalitech.smartshop.repositories;
 
+import com.amalitech.smartshop.cache.ExistenceFilter;
+import com.amalitech.smartshop.cache.ExistenceFilter.KeySpace;
 import com.amalitech.smartshop.entities.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -17,9 +19,11 @@ import java.util.Optional;
 @Repository
 public class CategoryRepository implements com.amalitech.smartshop.interfaces.CategoryRepository {
     private final Connection connection;
+    private final ExistenceFilter existenceFilter;
 
-    public CategoryRepository(Connection connection) {
+    public CategoryRepository(Connection connection, ExistenceFilter existenceFilter) {
         this.connection = connection;
+        this.existenceFilter = existenceFilter;
     }
 
     private Category mapRow(ResultSet rs) throws SQLException {
@@ -34,17 +38,21 @@ public class CategoryRepository implements com.amalitech.smartshop.interfaces.Ca
 
     @Override
     public boolean existsByNameIgnoreCase(String name) {
+        if (!existenceFilter.mightContain(KeySpace.CATEGORY_NAME, name)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM categories WHERE LOWER(name) = LOWER(?)";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, name);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return true;
                 }
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error checking category existence", e);
         }
+        existenceFilter.recordMiss(KeySpace.CATEGORY_NAME, name);
         return false;
     }
 
@@ -105,6 +113,7 @@ public class CategoryRepository implements com.amalitech.smartshop.interfaces.Ca
                 }
             }
         }
+        existenceFilter.add(KeySpace.CATEGORY_NAME, category.getName());
         return category;
     }
 
@@ -116,6 +125,7 @@ public class CategoryRepository implements com.amalitech.smartshop.interfaces.Ca
             ps.setLong(3, category.getId());
             ps.executeUpdate();
         }
+        existenceFilter.add(KeySpace.CATEGORY_NAME, category.getName());
         return category;
     }
 
@@ -128,6 +138,7 @@ public class CategoryRepository implements com.amalitech.smartshop.interfaces.Ca
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting category", e);
         }
+        existenceFilter.remove(KeySpace.CATEGORY_NAME, category.getName());
     }
 
     @Override
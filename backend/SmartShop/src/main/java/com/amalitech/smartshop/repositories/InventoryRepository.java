@@ -28,6 +28,7 @@ public class InventoryRepository implements com.amalitech.smartshop.interfaces.I
                 .productId(rs.getLong("product_id"))
                 .quantity(rs.getInt("quantity"))
                 .location(rs.getString("location"))
+                .version(rs.getLong("version"))
                 .build();
     }
 
@@ -126,15 +127,15 @@ public class InventoryRepository implements com.amalitech.smartshop.interfaces.I
     }
 
     private Inventory insert(Inventory inventory) throws SQLException {
-        String sql = "INSERT INTO inventory (product_id, quantity, location) VALUES (?, ?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        String sql = "INSERT INTO inventory (product_id, quantity, location) VALUES (?, ?, ?) RETURNING id, version";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, inventory.getProductId());
             ps.setInt(2, inventory.getQuantity());
             ps.setString(3, inventory.getLocation());
-            ps.executeUpdate();
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    inventory.setId(keys.getLong(1));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    inventory.setId(rs.getLong("id"));
+                    inventory.setVersion(rs.getLong("version"));
                 }
             }
         }
@@ -142,17 +143,39 @@ public class InventoryRepository implements com.amalitech.smartshop.interfaces.I
     }
 
     private Inventory update(Inventory inventory) throws SQLException {
-        String sql = "UPDATE inventory SET product_id = ?, quantity = ?, location = ? WHERE id = ?";
+        String sql = "UPDATE inventory SET product_id = ?, quantity = ?, location = ? WHERE id = ? RETURNING version";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, inventory.getProductId());
             ps.setInt(2, inventory.getQuantity());
             ps.setString(3, inventory.getLocation());
             ps.setLong(4, inventory.getId());
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    inventory.setVersion(rs.getLong("version"));
+                }
+            }
         }
         return inventory;
     }
 
+    @Override
+    public Optional<Inventory> adjustQuantity(Long productId, int change) {
+        String sql = "UPDATE inventory SET quantity = quantity + ? WHERE product_id = ? AND quantity + ? >= 0 RETURNING *";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, change);
+            ps.setLong(2, productId);
+            ps.setInt(3, change);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error adjusting inventory quantity", e);
+        }
+        return Optional.empty();
+    }
+
     @Override
     public List<Inventory> saveAll(List<Inventory> inventories) {
         for (Inventory inventory : inventories) {
@@ -162,14 +185,19 @@ public class InventoryRepository implements com.amalitech.smartshop.interfaces.I
     }
 
     @Override
-    public void delete(Inventory inventory) {
-        String sql = "DELETE FROM inventory WHERE id = ?";
+    public Optional<Long> delete(Inventory inventory) {
+        String sql = "DELETE FROM inventory WHERE id = ? RETURNING nextval('inventory_version_seq')";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, inventory.getId());
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(rs.getLong(1));
+                }
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting inventory", e);
         }
+        return Optional.empty();
     }
 
     private long countInventories() {
@@ -1,6 +1,7 @@
 package com.amalitech.smartshop.repositories;
 
 import com.amalitech.smartshop.entities.OrderItem;
+import com.amalitech.smartshop.utils.Money;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
@@ -23,8 +24,9 @@ public class OrderItemRepository implements com.amalitech.smartshop.interfaces.O
                 .id(rs.getLong("id"))
                 .orderId(rs.getLong("order_id"))
                 .productId(rs.getLong("product_id"))
+                .categoryId(rs.getLong("category_id"))
                 .quantity(rs.getInt("quantity"))
-                .totalPrice(rs.getDouble("total_price"))
+                .totalPriceCents(Money.ofDecimal(rs.getBigDecimal("total_price")))
                 .build();
     }
 
@@ -67,12 +69,13 @@ public class OrderItemRepository implements com.amalitech.smartshop.interfaces.O
     }
 
     private OrderItem insert(OrderItem item) throws SQLException {
-        String sql = "INSERT INTO order_items (order_id, product_id, quantity, total_price) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO order_items (order_id, product_id, category_id, quantity, total_price) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setLong(1, item.getOrderId());
             ps.setLong(2, item.getProductId());
-            ps.setInt(3, item.getQuantity());
-            ps.setDouble(4, item.getTotalPrice());
+            ps.setLong(3, item.getCategoryId());
+            ps.setInt(4, item.getQuantity());
+            ps.setBigDecimal(5, Money.toDecimal(item.getTotalPriceCents()));
             ps.executeUpdate();
             try (ResultSet keys = ps.getGeneratedKeys()) {
                 if (keys.next()) {
@@ -84,13 +87,14 @@ public class OrderItemRepository implements com.amalitech.smartshop.interfaces.O
     }
 
     private OrderItem update(OrderItem item) throws SQLException {
-        String sql = "UPDATE order_items SET order_id = ?, product_id = ?, quantity = ?, total_price = ? WHERE id = ?";
+        String sql = "UPDATE order_items SET order_id = ?, product_id = ?, category_id = ?, quantity = ?, total_price = ? WHERE id = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, item.getOrderId());
             ps.setLong(2, item.getProductId());
-            ps.setInt(3, item.getQuantity());
-            ps.setDouble(4, item.getTotalPrice());
-            ps.setLong(5, item.getId());
+            ps.setLong(3, item.getCategoryId());
+            ps.setInt(4, item.getQuantity());
+            ps.setBigDecimal(5, Money.toDecimal(item.getTotalPriceCents()));
+            ps.setLong(6, item.getId());
             ps.executeUpdate();
         }
         return item;
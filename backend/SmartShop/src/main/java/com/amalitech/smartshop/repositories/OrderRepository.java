@@ -2,12 +2,18 @@ package com.amalitech.smartshop.repositories;
 
 import com.amalitech.smartshop.entities.Order;
 import com.amalitech.smartshop.enums.OrderStatus;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.utils.Money;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -27,7 +33,7 @@ public class OrderRepository implements com.amalitech.smartshop.interfaces.Order
         return Order.builder()
                 .id(rs.getLong("id"))
                 .userId(rs.getLong("user_id"))
-                .totalAmount(rs.getDouble("total_amount"))
+                .totalAmountCents(Money.ofDecimal(rs.getBigDecimal("total_amount")))
                 .status(OrderStatus.valueOf(rs.getString("status")))
                 .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
                 .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
@@ -104,6 +110,63 @@ public class OrderRepository implements com.amalitech.smartshop.interfaces.Order
         return new PageImpl<>(orders, pageable == null ? Pageable.unpaged() : pageable, total);
     }
 
+    @Override
+    public Page<Order> findSorted(SortField sort, boolean ascending, KeysetCursor after, Pageable pageable) {
+        // Column names come from this whitelist only, never from the request
+        String column = switch (sort) {
+            case TOTAL_AMOUNT -> "total_amount";
+            case CREATED_AT -> "created_at";
+        };
+        String direction = ascending ? "ASC" : "DESC";
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders");
+        if (after != null) {
+            sql.append(" WHERE (").append(column).append(", id) ").append(ascending ? ">" : "<").append(" (?, ?)");
+            params.add(cursorParameter(sort, after.value()));
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+                .append(", id ").append(direction);
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT ?");
+            params.add(pageable.getPageSize());
+            if (after == null) {
+                sql.append(" OFFSET ?");
+                params.add(pageable.getOffset());
+            }
+        }
+
+        List<Order> orders = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding sorted orders", e);
+        }
+        return new PageImpl<>(orders, pageable, countOrders());
+    }
+
+    /**
+     * Converts a cursor value to the column's SQL type, so the row comparison can
+     * use the index; a {@code double} parameter would cast the DECIMAL column instead.
+     */
+    private static Object cursorParameter(SortField sort, String value) {
+        try {
+            return switch (sort) {
+                case TOTAL_AMOUNT -> new BigDecimal(value);
+                case CREATED_AT -> Timestamp.valueOf(LocalDateTime.parse(value));
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestFormat("Invalid cursor");
+        }
+    }
+
     @Override
     public Optional<Order> findById(Long id) {
         String sql = "SELECT o.*, u.email as user_email FROM orders o JOIN users u ON o.user_id = u.id WHERE o.id = ?";
@@ -135,14 +198,17 @@ public class OrderRepository implements com.amalitech.smartshop.interfaces.Order
 
     private Order insert(Order order) throws SQLException {
         String sql = "INSERT INTO orders (user_id, total_amount, status, created_at, updated_at) VALUES (?, ?, ?, NOW(), NOW())";
-        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        // created_at comes back with the ID: sales rollups are kept per day the order was placed
+        try (PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id", "created_at"})) {
             ps.setLong(1, order.getUserId());
-            ps.setDouble(2, order.getTotalAmount());
+            ps.setBigDecimal(2, Money.toDecimal(order.getTotalAmountCents()));
             ps.setString(3, order.getStatus().name());
             ps.executeUpdate();
             try (ResultSet keys = ps.getGeneratedKeys()) {
                 if (keys.next()) {
-                    order.setId(keys.getLong(1));
+                    order.setId(keys.getLong("id"));
+                    order.setCreatedAt(keys.getTimestamp("created_at").toLocalDateTime());
+                    order.setUpdatedAt(order.getCreatedAt());
                 }
             }
         }
@@ -153,7 +219,7 @@ public class OrderRepository implements com.amalitech.smartshop.interfaces.Order
         String sql = "UPDATE orders SET user_id = ?, total_amount = ?, status = ?, updated_at = NOW() WHERE id = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, order.getUserId());
-            ps.setDouble(2, order.getTotalAmount());
+            ps.setBigDecimal(2, Money.toDecimal(order.getTotalAmountCents()));
             ps.setString(3, order.getStatus().name());
             ps.setLong(4, order.getId());
             ps.executeUpdate();
@@ -161,15 +227,45 @@ public class OrderRepository implements com.amalitech.smartshop.interfaces.Order
         return order;
     }
 
+    /**
+     * Reads the previous status in a locking subquery, so a concurrent transition of
+     * the same order waits for this one and then sees its result.
+     */
+    @Override
+    public Optional<OrderStatus> updateStatus(Long id, OrderStatus status) {
+        String sql = """
+                UPDATE orders o SET status = ?, updated_at = NOW()
+                FROM (SELECT id, status FROM orders WHERE id = ? FOR UPDATE) previous
+                WHERE o.id = previous.id
+                RETURNING previous.status""";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, status.name());
+            ps.setLong(2, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(OrderStatus.valueOf(rs.getString("status")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating order status", e);
+        }
+        return Optional.empty();
+    }
+
     @Override
-    public void delete(Order order) {
-        String sql = "DELETE FROM orders WHERE id = ?";
+    public Optional<OrderStatus> delete(Order order) {
+        String sql = "DELETE FROM orders WHERE id = ? RETURNING status";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, order.getId());
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(OrderStatus.valueOf(rs.getString("status")));
+                }
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting order", e);
         }
+        return Optional.empty();
     }
 
     private long countOrders() {
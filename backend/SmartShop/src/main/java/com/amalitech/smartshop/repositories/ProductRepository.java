@@ -1,13 +1,26 @@
 package com.amalitech.smartshop.repositories;
 
+import com.amalitech.smartshop.cache.ExistenceFilter;
+import com.amalitech.smartshop.cache.ExistenceFilter.KeySpace;
+import com.amalitech.smartshop.dtos.responses.CursorPage;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
 import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.mappers.RatingMapper;
+import com.amalitech.smartshop.utils.Money;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +30,11 @@ import java.util.Optional;
 @Repository
 public class ProductRepository implements com.amalitech.smartshop.interfaces.ProductRepository {
     private final Connection connection;
+    private final ExistenceFilter existenceFilter;
 
-    public ProductRepository(Connection connection) {
+    public ProductRepository(Connection connection, ExistenceFilter existenceFilter) {
         this.connection = connection;
+        this.existenceFilter = existenceFilter;
     }
 
     private Product mapRow(ResultSet rs) throws SQLException {
@@ -29,9 +44,11 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
                 .description(rs.getString("description"))
                 .imageUrl(rs.getString("image_url"))
                 .sku(rs.getString("sku"))
-                .price(rs.getDouble("price"))
+                .priceCents(Money.ofDecimal(rs.getBigDecimal("price")))
                 .vendorId(rs.getObject("vendor_id") != null ? rs.getLong("vendor_id") : null)
                 .available(rs.getBoolean("is_available"))
+                .ratingCount(rs.getLong("rating_count"))
+                .averageRating(rs.getFloat("average_rating"))
                 .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
                 .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
                 .categoryId(rs.getLong("category_id"))
@@ -40,22 +57,29 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
 
     @Override
     public boolean existsByNameIgnoreCase(String name) {
+        if (!existenceFilter.mightContain(KeySpace.PRODUCT_NAME, name)) {
+            return false;
+        }
         String sql = "SELECT COUNT(*) FROM products WHERE LOWER(name) = LOWER(?)";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, name);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return true;
                 }
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error checking product existence", e);
         }
+        existenceFilter.recordMiss(KeySpace.PRODUCT_NAME, name);
         return false;
     }
 
     @Override
     public Optional<Product> findById(Long id) {
+        if (!existenceFilter.mightContain(KeySpace.PRODUCT_ID, id)) {
+            return Optional.empty();
+        }
         String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.id = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, id);
@@ -67,6 +91,7 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
         } catch (SQLException e) {
             throw new RuntimeException("Error finding product by id", e);
         }
+        existenceFilter.recordMiss(KeySpace.PRODUCT_ID, id);
         return Optional.empty();
     }
 
@@ -91,7 +116,7 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
             ps.setString(3, product.getImageUrl());
             ps.setLong(4, product.getCategoryId());
             ps.setString(5, product.getSku());
-            ps.setDouble(6, product.getPrice());
+            ps.setBigDecimal(6, Money.toDecimal(product.getPriceCents()));
             if (product.getVendorId() != null) {
                 ps.setLong(7, product.getVendorId());
             } else {
@@ -105,6 +130,8 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
                 }
             }
         }
+        existenceFilter.add(KeySpace.PRODUCT_ID, product.getId());
+        existenceFilter.add(KeySpace.PRODUCT_NAME, product.getName());
         return product;
     }
 
@@ -116,7 +143,7 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
             ps.setString(3, product.getImageUrl());
             ps.setLong(4, product.getCategoryId());
             ps.setString(5, product.getSku());
-            ps.setDouble(6, product.getPrice());
+            ps.setBigDecimal(6, Money.toDecimal(product.getPriceCents()));
             if (product.getVendorId() != null) {
                 ps.setLong(7, product.getVendorId());
             } else {
@@ -126,9 +153,51 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
             ps.setLong(9, product.getId());
             ps.executeUpdate();
         }
+        existenceFilter.add(KeySpace.PRODUCT_NAME, product.getName());
         return product;
     }
 
+    /**
+     * Applies the change as deltas in one statement, so concurrent reviews of the
+     * same product add up instead of overwriting each other. Touches
+     * {@code updated_at} so the catalog snapshot picks up the new rating.
+     */
+    @Override
+    public void updateRating(Long productId, Integer removedRating, Integer addedRating) {
+        long sumDelta = 0;
+        long countDelta = 0;
+        long[] histogramDelta = new long[5];
+        if (removedRating != null) {
+            sumDelta -= removedRating;
+            countDelta--;
+            histogramDelta[removedRating - 1]--;
+        }
+        if (addedRating != null) {
+            sumDelta += addedRating;
+            countDelta++;
+            histogramDelta[addedRating - 1]++;
+        }
+        String sql = """
+                UPDATE products SET
+                    rating_sum = rating_sum + ?,
+                    rating_count = rating_count + ?,
+                    rating_histogram = ARRAY[rating_histogram[1] + ?, rating_histogram[2] + ?,
+                        rating_histogram[3] + ?, rating_histogram[4] + ?, rating_histogram[5] + ?],
+                    updated_at = NOW()
+                WHERE id = ?""";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, sumDelta);
+            ps.setLong(2, countDelta);
+            for (int star = 0; star < histogramDelta.length; star++) {
+                ps.setLong(3 + star, histogramDelta[star]);
+            }
+            ps.setLong(8, productId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating product rating", e);
+        }
+    }
+
     @Override
     public void delete(Product product) {
         String sql = "DELETE FROM products WHERE id = ?";
@@ -138,16 +207,17 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting product", e);
         }
+        existenceFilter.remove(KeySpace.PRODUCT_ID, product.getId());
+        existenceFilter.remove(KeySpace.PRODUCT_NAME, product.getName());
     }
 
     @Override
     public Page<Product> findByCategoryId(Long categoryId, Pageable pageable) {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.category_id = ? LIMIT ? OFFSET ?";
+        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.category_id = ?" + pageClause(pageable);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, categoryId);
-            ps.setInt(2, pageable.getPageSize());
-            ps.setInt(3, (int) pageable.getOffset());
+            setPage(ps, 2, pageable);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     products.add(mapRow(rs));
@@ -181,11 +251,10 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
     @Override
     public Page<Product> findByVendorId(Long vendorId, Pageable pageable) {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.vendor_id = ? LIMIT ? OFFSET ?";
+        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id WHERE p.vendor_id = ?" + pageClause(pageable);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setLong(1, vendorId);
-            ps.setInt(2, pageable.getPageSize());
-            ps.setInt(3, (int) pageable.getOffset());
+            setPage(ps, 2, pageable);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     products.add(mapRow(rs));
@@ -202,10 +271,9 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
     @Override
     public Page<Product> findAll(Pageable pageable) {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id LIMIT ? OFFSET ?";
+        String sql = "SELECT p.*, c.name as category_name FROM products p JOIN categories c ON p.category_id = c.id" + pageClause(pageable);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, pageable.getPageSize());
-            ps.setInt(2, (int) pageable.getOffset());
+            setPage(ps, 1, pageable);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     products.add(mapRow(rs));
@@ -219,6 +287,83 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
         return new PageImpl<>(products, pageable, total);
     }
 
+    @Override
+    public Page<Product> findSorted(Long categoryId, Long vendorId, SortField sort, boolean ascending,
+                                    KeysetCursor after, Pageable pageable) {
+        // Column names come from this whitelist only, never from the request
+        String column = switch (sort) {
+            case NAME -> "name";
+            case PRICE -> "price";
+            case CREATED_AT -> "created_at";
+            case RATING -> "average_rating";
+        };
+        String direction = ascending ? "ASC" : "DESC";
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (categoryId != null) {
+            conditions.add("category_id = ?");
+            params.add(categoryId);
+        }
+        if (vendorId != null) {
+            conditions.add("vendor_id = ?");
+            params.add(vendorId);
+        }
+        long total = countMatching(conditions, params);
+
+        if (after != null) {
+            conditions.add("(" + column + ", id) " + (ascending ? ">" : "<") + " (?, ?)");
+            params.add(cursorParameter(sort, after.value()));
+            params.add(after.id());
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM products");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+                .append(", id ").append(direction);
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT ?");
+            params.add(pageable.getPageSize());
+            if (after == null) {
+                sql.append(" OFFSET ?");
+                params.add(pageable.getOffset());
+            }
+        }
+
+        List<Product> products = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding sorted products", e);
+        }
+        return new PageImpl<>(products, pageable, total);
+    }
+
+    /**
+     * Converts a cursor value to the column's SQL type, so the row comparison can
+     * use the index; a {@code double} parameter would cast the DECIMAL column instead,
+     * and would compare the REAL rating column at a precision it is not stored at.
+     */
+    private static Object cursorParameter(SortField sort, String value) {
+        try {
+            return switch (sort) {
+                case NAME -> value;
+                case PRICE -> new BigDecimal(value);
+                case CREATED_AT -> Timestamp.valueOf(LocalDateTime.parse(value));
+                case RATING -> Float.parseFloat(value);
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestFormat("Invalid cursor");
+        }
+    }
+
     @Override
     public Page<Product> findAllWithInventory(Pageable pageable) {
         List<Product> products = new ArrayList<>();
@@ -274,6 +419,157 @@ public class ProductRepository implements com.amalitech.smartshop.interfaces.Pro
         return products;
     }
 
+    /**
+     * Ranks matches by {@code ts_rank} over the weighted {@code search_vector} plus
+     * the trigram similarity of the name, then pages by keyset on (rank, id). The
+     * rank is cast to {@code real} so the cursor carries exactly the value the
+     * next query compares against. A product matches if the full-text query does,
+     * or its name contains the text or is trigram-similar to it, which covers
+     * partial words and typos that stemming alone misses.
+     */
+    @Override
+    public CursorPage<ProductResponseDTO> search(String query, SearchFilters filters, String cursor, int limit) {
+        String text = query == null ? "" : query.trim();
+        if (text.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+                SELECT * FROM (
+                    SELECT p.id, p.name, p.description, p.image_url, p.sku, p.price, p.category_id, p.vendor_id,
+                           p.rating_count, p.average_rating, c.name AS category_name, i.quantity,
+                           (ts_rank(p.search_vector, q.query) + similarity(p.name, ?))::real AS rank
+                    FROM products p
+                    CROSS JOIN (SELECT websearch_to_tsquery('english', ?) AS query) q
+                    JOIN categories c ON c.id = p.category_id
+                    LEFT JOIN inventory i ON i.product_id = p.id
+                    WHERE (p.search_vector @@ q.query OR p.name ILIKE ? OR p.sku ILIKE ? OR p.name % ?)
+                """);
+        String contains = "%" + escapeLike(text) + "%";
+        params.add(text);
+        params.add(text);
+        params.add(contains);
+        params.add(contains);
+        params.add(text);
+        if (filters != null && filters.categoryId() != null) {
+            sql.append(" AND p.category_id = ?");
+            params.add(filters.categoryId());
+        }
+        if (filters != null && filters.minPrice() != null) {
+            sql.append(" AND p.price >= ?");
+            params.add(filters.minPrice());
+        }
+        if (filters != null && filters.maxPrice() != null) {
+            sql.append(" AND p.price <= ?");
+            params.add(filters.maxPrice());
+        }
+        sql.append(") ranked");
+        if (cursor != null && !cursor.isBlank()) {
+            SearchCursor after = SearchCursor.decode(cursor);
+            sql.append(" WHERE (ranked.rank < ? OR (ranked.rank = ? AND ranked.id > ?))");
+            params.add(after.rank());
+            params.add(after.rank());
+            params.add(after.id());
+        }
+        sql.append(" ORDER BY ranked.rank DESC, ranked.id LIMIT ?");
+        params.add(limit + 1);
+
+        List<ProductResponseDTO> products = new ArrayList<>();
+        List<Float> ranks = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapListingRow(rs));
+                    ranks.add(rs.getFloat("rank"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching products", e);
+        }
+
+        String nextCursor = null;
+        if (products.size() > limit) {
+            products.remove(limit);
+            ProductResponseDTO last = products.get(limit - 1);
+            nextCursor = new SearchCursor(ranks.get(limit - 1), last.getId()).encode();
+        }
+        return new CursorPage<>(products, nextCursor);
+    }
+
+    private ProductResponseDTO mapListingRow(ResultSet rs) throws SQLException {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(rs.getLong("id"));
+        product.setName(rs.getString("name"));
+        product.setDescription(rs.getString("description"));
+        product.setImageUrl(rs.getString("image_url"));
+        product.setSku(rs.getString("sku"));
+        product.setPrice(Money.toDouble(Money.ofDecimal(rs.getBigDecimal("price"))));
+        product.setQuantity(rs.getInt("quantity"));
+        product.setCategoryId(rs.getLong("category_id"));
+        product.setCategoryName(rs.getString("category_name"));
+        product.setVendorId(rs.getObject("vendor_id") != null ? rs.getLong("vendor_id") : null);
+        product.setAverageRating(RatingMapper.averageRating(rs.getFloat("average_rating"), rs.getLong("rating_count")));
+        product.setReviewCount(rs.getLong("rating_count"));
+        return product;
+    }
+
+    /** LIMIT and OFFSET placeholders for a paged request; none for an unpaged one. */
+    private static String pageClause(Pageable pageable) {
+        return pageable.isPaged() ? " LIMIT ? OFFSET ?" : "";
+    }
+
+    private static void setPage(PreparedStatement ps, int index, Pageable pageable) throws SQLException {
+        if (pageable.isPaged()) {
+            ps.setInt(index, pageable.getPageSize());
+            ps.setInt(index + 1, (int) pageable.getOffset());
+        }
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Position after the last row of a search page, opaque to clients. */
+    private record SearchCursor(float rank, long id) {
+
+        String encode() {
+            String raw = Float.toString(rank) + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SearchCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new SearchCursor(Float.parseFloat(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new BadRequestFormat("Invalid search cursor");
+            }
+        }
+    }
+
+    private long countMatching(List<String> conditions, List<Object> params) {
+        String countSql = "SELECT COUNT(*) FROM products"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+        try (PreparedStatement ps = connection.prepareStatement(countSql)) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting products", e);
+        }
+        return 0;
+    }
+
     private long countProducts() {
         String countSql = "SELECT COUNT(*) FROM products";
         try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(countSql)) {
@@ -86,6 +86,22 @@ public class ReviewRepository implements com.amalitech.smartshop.interfaces.Revi
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Review> findByIdForUpdate(Long id) {
+        String sql = "SELECT * FROM reviews WHERE id = ? FOR UPDATE";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error locking review by id", e);
+        }
+        return Optional.empty();
+    }
+
     @Override
     public Page<Review> findAll(Pageable pageable) {
         List<Review> reviews = new ArrayList<>();
@@ -0,0 +1,198 @@
+package com.amalitech.smartshop.repositories;
+
+import com.amalitech.smartshop.entities.OrderItem;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC-based implementation of the SalesRollupRepository interface.
+ * <p>
+ * An order's items are applied to each table in one statement: they are unnested
+ * from arrays, summed per key and upserted in key order, so concurrent orders take
+ * the row locks in the same order and a product bought twice in one order is one
+ * row update. Sales are keyed by the category each order item recorded when it was
+ * placed, so reversing an order subtracts from the categories it added to even if
+ * its products have moved since.
+ */
+@Repository
+public class SalesRollupRepository implements com.amalitech.smartshop.interfaces.SalesRollupRepository {
+
+    private static final String PRODUCT_UPSERT_SQL = """
+            INSERT INTO product_sales_daily (product_id, category_id, sales_date, units_sold, revenue_cents)
+            SELECT item.product_id, item.category_id, ?::date, SUM(item.units), SUM(item.revenue)
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[]) AS item(product_id, category_id, units, revenue)
+            GROUP BY item.product_id, item.category_id
+            ORDER BY item.product_id, item.category_id
+            ON CONFLICT (product_id, category_id, sales_date) DO UPDATE SET
+                units_sold = product_sales_daily.units_sold + EXCLUDED.units_sold,
+                revenue_cents = product_sales_daily.revenue_cents + EXCLUDED.revenue_cents""";
+
+    private static final String CATEGORY_UPSERT_SQL = """
+            INSERT INTO category_sales_daily (category_id, sales_date, units_sold, revenue_cents)
+            SELECT item.category_id, ?::date, SUM(item.units), SUM(item.revenue)
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[]) AS item(product_id, category_id, units, revenue)
+            GROUP BY item.category_id
+            ORDER BY item.category_id
+            ON CONFLICT (category_id, sales_date) DO UPDATE SET
+                units_sold = category_sales_daily.units_sold + EXCLUDED.units_sold,
+                revenue_cents = category_sales_daily.revenue_cents + EXCLUDED.revenue_cents""";
+
+    private final Connection connection;
+
+    public SalesRollupRepository(Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void record(LocalDate salesDate, List<OrderItem> items) {
+        apply(salesDate, items, 1);
+    }
+
+    @Override
+    public void reverse(LocalDate salesDate, List<OrderItem> items) {
+        apply(salesDate, items, -1);
+    }
+
+    private void apply(LocalDate salesDate, List<OrderItem> items, int sign) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Long[] productIds = new Long[items.size()];
+        Long[] categoryIds = new Long[items.size()];
+        Long[] units = new Long[items.size()];
+        Long[] revenue = new Long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            productIds[i] = item.getProductId();
+            categoryIds[i] = item.getCategoryId();
+            units[i] = (long) sign * item.getQuantity();
+            revenue[i] = sign * item.getTotalPriceCents();
+        }
+        try {
+            upsert(PRODUCT_UPSERT_SQL, salesDate, productIds, categoryIds, units, revenue);
+            upsert(CATEGORY_UPSERT_SQL, salesDate, productIds, categoryIds, units, revenue);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating sales rollups", e);
+        }
+    }
+
+    private void upsert(String sql, LocalDate salesDate, Long[] productIds, Long[] categoryIds, Long[] units,
+                        Long[] revenue) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setObject(1, salesDate);
+            ps.setArray(2, connection.createArrayOf("bigint", productIds));
+            ps.setArray(3, connection.createArrayOf("bigint", categoryIds));
+            ps.setArray(4, connection.createArrayOf("bigint", units));
+            ps.setArray(5, connection.createArrayOf("bigint", revenue));
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<ProductSales> findTopProducts(LocalDate from, LocalDate to, Long categoryId, Long vendorId,
+                                              Metric metric, int limit) {
+        // Ranking column comes from this whitelist only, never from the request
+        String rankColumn = switch (metric) {
+            case REVENUE -> "revenue_cents";
+            case UNITS -> "units_sold";
+        };
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+                SELECT s.product_id, p.name, p.category_id,
+                       SUM(s.units_sold) AS units_sold, SUM(s.revenue_cents) AS revenue_cents
+                FROM product_sales_daily s
+                JOIN products p ON p.id = s.product_id
+                WHERE s.sales_date BETWEEN ? AND ?""");
+        params.add(from);
+        params.add(to);
+        appendSalesFilters(sql, params, categoryId, vendorId);
+        sql.append(" GROUP BY s.product_id, p.name, p.category_id HAVING SUM(s.units_sold) > 0")
+                .append(" ORDER BY ").append(rankColumn).append(" DESC, s.product_id LIMIT ?");
+        params.add(limit);
+
+        List<ProductSales> products = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            setParams(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    products.add(new ProductSales(
+                            rs.getLong("product_id"),
+                            rs.getString("name"),
+                            rs.getLong("category_id"),
+                            rs.getLong("units_sold"),
+                            rs.getLong("revenue_cents")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding top products", e);
+        }
+        return products;
+    }
+
+    @Override
+    public List<DailySales> findDailySales(LocalDate from, LocalDate to, Long categoryId, Long vendorId) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql;
+        if (vendorId == null) {
+            // Category rollups hold one row per category and day, fewer than per product
+            sql = new StringBuilder("""
+                    SELECT s.sales_date, SUM(s.units_sold) AS units_sold, SUM(s.revenue_cents) AS revenue_cents
+                    FROM category_sales_daily s
+                    WHERE s.sales_date BETWEEN ? AND ?""");
+            params.add(from);
+            params.add(to);
+            if (categoryId != null) {
+                sql.append(" AND s.category_id = ?");
+                params.add(categoryId);
+            }
+        } else {
+            sql = new StringBuilder("""
+                    SELECT s.sales_date, SUM(s.units_sold) AS units_sold, SUM(s.revenue_cents) AS revenue_cents
+                    FROM product_sales_daily s
+                    JOIN products p ON p.id = s.product_id
+                    WHERE s.sales_date BETWEEN ? AND ?""");
+            params.add(from);
+            params.add(to);
+            appendSalesFilters(sql, params, categoryId, vendorId);
+        }
+        sql.append(" GROUP BY s.sales_date HAVING SUM(s.units_sold) > 0 ORDER BY s.sales_date");
+
+        List<DailySales> days = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            setParams(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    days.add(new DailySales(
+                            rs.getObject("sales_date", LocalDate.class),
+                            rs.getLong("units_sold"),
+                            rs.getLong("revenue_cents")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding daily sales", e);
+        }
+        return days;
+    }
+
+    private static void appendSalesFilters(StringBuilder sql, List<Object> params, Long categoryId, Long vendorId) {
+        if (categoryId != null) {
+            // The category at the time of sale, as the category rollups count it
+            sql.append(" AND s.category_id = ?");
+            params.add(categoryId);
+        }
+        if (vendorId != null) {
+            sql.append(" AND p.vendor_id = ?");
+            params.add(vendorId);
+        }
+    }
+
+    private static void setParams(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.amalitech.smartshop.repositories;
 
+import com.amalitech.smartshop.cache.ExistenceFilter;
+import com.amalitech.smartshop.cache.ExistenceFilter.KeySpace;
 import com.amalitech.smartshop.entities.User;
 import com.amalitech.smartshop.enums.UserRole;
 import com.amalitech.smartshop.exceptions.BadRequestFormat;
@@ -19,9 +21,11 @@ import java.util.Optional;
 @Repository
 public class UserRepository implements com.amalitech.smartshop.interfaces.UserRepository {
     private final Connection connection;
+    private final ExistenceFilter existenceFilter;
 
-    public UserRepository(Connection connection) {
+    public UserRepository(Connection connection, ExistenceFilter existenceFilter) {
         this.connection = connection;
+        this.existenceFilter = existenceFilter;
     }
 
     private User mapRow(ResultSet rs) throws SQLException {
@@ -39,6 +43,9 @@ public class UserRepository implements com.amalitech.smartshop.interfaces.UserRe
 
     @Override
     public Optional<User> findByEmail(String email) {
+        if (!existenceFilter.mightContain(KeySpace.USER_EMAIL, email)) {
+            return Optional.empty();
+        }
         String sql = "SELECT * FROM users WHERE email = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, email);
@@ -50,6 +57,7 @@ public class UserRepository implements com.amalitech.smartshop.interfaces.UserRe
         } catch (SQLException e) {
             throw new RuntimeException("Error finding user by email", e);
         }
+        existenceFilter.recordMiss(KeySpace.USER_EMAIL, email);
         return Optional.empty();
     }
 
@@ -107,6 +115,7 @@ public class UserRepository implements com.amalitech.smartshop.interfaces.UserRe
                 }
             }
         }
+        existenceFilter.add(KeySpace.USER_EMAIL, user.getEmail());
         return user;
     }
 
@@ -120,6 +129,7 @@ public class UserRepository implements com.amalitech.smartshop.interfaces.UserRe
         ps.setLong(5, user.getId());
         ps.executeUpdate();
     }
+    existenceFilter.add(KeySpace.USER_EMAIL, user.getEmail());
     return user;
    }
 
@@ -133,6 +143,7 @@ public class UserRepository implements com.amalitech.smartshop.interfaces.UserRe
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting user", e);
         }
+        existenceFilter.remove(KeySpace.USER_EMAIL, user.getEmail());
     }
 
     @Override
@@ -0,0 +1,555 @@
+package com.amalitech.smartshop.search;
+
+import com.amalitech.smartshop.cache.CatalogEngine;
+import com.amalitech.smartshop.cache.LongIntHashMap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over product name, description and SKU, ranked with
+ * BM25.
+ * <p>
+ * Each product is a document with a dense number; a term's postings are the
+ * documents containing it in ascending order, with the term frequency weighted by
+ * field (name and SKU count three times, description once). Queries match products
+ * containing every query term: the shortest postings list is walked and the others
+ * are probed by galloping search, so a query costs about the size of its rarest
+ * term, not the catalog. Only the requested page is kept in a bounded heap.
+ * <p>
+ * Updates replace a product's document, unless its name, description and SKU are
+ * unchanged, as for a price, stock or rating change. Deleted documents stay in the
+ * postings until a quarter of all documents are dead, then the index is compacted
+ * on a background thread while searches go on.
+ * <p>
+ * The index is loaded at startup and then follows one source of changes: the
+ * {@link CatalogEngine}, which reports writes from every instance including this
+ * one, or, with the catalog snapshot disabled, {@code ProductServiceImpl}'s writes.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 3;
+    private static final int SKU_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double MAX_DELETED_RATIO = 0.25;
+    /** Times a compaction is rebuilt after writes overtook it before it blocks writes instead. */
+    private static final int MAX_COMPACTION_ATTEMPTS = 3;
+    /** Deepest result a query can page to, which bounds the heap kept per query. */
+    static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final Connection connection;
+    private final boolean followsCatalog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ExecutorService compactor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("search-compaction").daemon(true).factory());
+
+    private Map<String, Postings> postings = new HashMap<>();
+    private long[] docProducts = new long[1024];
+    private int[] docLengths = new int[1024];
+    private long[] docFingerprints = new long[1024];
+    private BitSet deleted = new BitSet();
+    private LongIntHashMap docOf = new LongIntHashMap(1024);
+    private int docCount;
+    private int liveDocs;
+    private long totalLength;
+    /** Number of document changes, so a compaction can tell whether writes overtook it. */
+    private long writes;
+
+    public ProductSearchIndex(Connection connection, CatalogEngine catalogEngine) {
+        this.connection = connection;
+        this.followsCatalog = catalogEngine.isEnabled();
+        if (followsCatalog) {
+            catalogEngine.addProductListener((productId, product) -> {
+                if (product == null) {
+                    remove(productId);
+                } else {
+                    put(productId, product.getName(), product.getDescription(), product.getSku());
+                }
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, name, description, sku FROM products ORDER BY id")) {
+            clear();
+            while (rs.next()) {
+                String name = rs.getString("name");
+                String description = rs.getString("description");
+                String sku = rs.getString("sku");
+                addDocument(rs.getLong("id"), name, description, sku, fingerprint(name, description, sku));
+            }
+        } catch (SQLException e) {
+            log.error("Failed to build product search index", e);
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} terms in {}ms", liveDocs, postings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Indexes a product written on this instance, unless the index follows the
+     * {@link CatalogEngine}, which reports the write itself.
+     */
+    public void written(long productId, String name, String description, String sku) {
+        if (!followsCatalog) {
+            put(productId, name, description, sku);
+        }
+    }
+
+    /**
+     * Drops a product deleted on this instance, unless the index follows the
+     * {@link CatalogEngine}, which reports the deletion itself.
+     */
+    public void deleted(long productId) {
+        if (!followsCatalog) {
+            remove(productId);
+        }
+    }
+
+    /**
+     * Indexes a product, replacing its previous text if it was already indexed; does
+     * nothing if the text is unchanged.
+     */
+    public void put(long productId, String name, String description, String sku) {
+        long fingerprint = fingerprint(name, description, sku);
+        lock.writeLock().lock();
+        try {
+            int doc = docOf.get(productId, -1);
+            if (doc >= 0 && docFingerprints[doc] == fingerprint) {
+                return;
+            }
+            removeDocument(productId);
+            addDocument(productId, name, description, sku, fingerprint);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching products for one page, best first, and
+     * the total number of matches. Ties keep the older product first.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(query)));
+        int window = Math.min(offset + limit, MAX_RESULT_WINDOW);
+        if (terms.isEmpty() || limit <= 0 || offset >= window) {
+            return new SearchResult(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            float[] idf = new float[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                // Postings may still hold deleted documents; capping keeps idf, and so every score, positive
+                int df = Math.min(lists[i].size, liveDocs);
+                idf[i] = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+            }
+            float avgLength = liveDocs > 0 ? (float) totalLength / liveDocs : 1;
+
+            TopDocs top = new TopDocs(window);
+            int[] cursors = new int[lists.length];
+            int total = 0;
+            Postings first = lists[0];
+            candidates:
+            for (int p = 0; p < first.size; p++) {
+                int doc = first.docs[p];
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                for (int i = 1; i < lists.length; i++) {
+                    cursors[i] = lists[i].advance(cursors[i], doc);
+                    if (cursors[i] == lists[i].size) {
+                        break candidates;
+                    }
+                    if (lists[i].docs[cursors[i]] != doc) {
+                        continue candidates;
+                    }
+                }
+                float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                float score = 0;
+                for (int i = 0; i < lists.length; i++) {
+                    int tf = lists[i].tf(i == 0 ? p : cursors[i]);
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                top.offer(score, doc);
+                total++;
+            }
+
+            int[] ranked = top.sortedDocs();
+            List<Long> productIds = new ArrayList<>(Math.max(0, ranked.length - offset));
+            for (int i = offset; i < ranked.length; i++) {
+                productIds.add(docProducts[ranked[i]]);
+            }
+            return new SearchResult(productIds, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of deleted documents still in the postings. */
+    int deadDocuments() {
+        lock.readLock().lock();
+        try {
+            return docCount - liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    private void addDocument(long productId, String name, String description, String sku, long fingerprint) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, name, NAME_WEIGHT);
+        addTerms(frequencies, sku, SKU_WEIGHT);
+        addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+
+        if (docCount == docProducts.length) {
+            docProducts = Arrays.copyOf(docProducts, docCount * 2);
+            docLengths = Arrays.copyOf(docLengths, docCount * 2);
+            docFingerprints = Arrays.copyOf(docFingerprints, docCount * 2);
+        }
+        int doc = docCount++;
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+            length += entry.getValue();
+        }
+        docProducts[doc] = productId;
+        docLengths[doc] = length;
+        docFingerprints[doc] = fingerprint;
+        docOf.put(productId, doc);
+        totalLength += length;
+        liveDocs++;
+        writes++;
+    }
+
+    private void removeDocument(long productId) {
+        int doc = docOf.get(productId, -1);
+        if (doc < 0) {
+            return;
+        }
+        docOf.remove(productId);
+        deleted.set(doc);
+        totalLength -= docLengths[doc];
+        liveDocs--;
+        writes++;
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : SearchTokenizer.tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Hashes the indexed fields with 64-bit FNV-1a, so a write that leaves them
+     * unchanged can be told apart without keeping the text.
+     */
+    private static long fingerprint(String name, String description, String sku) {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : new String[]{name, description, sku}) {
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            // Separators lie outside the char range and tell a null field from an empty one
+            hash = (hash ^ (field != null ? 0x10000 : 0x10001)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private void compactIfNeeded() {
+        if (docCount - liveDocs > docCount * MAX_DELETED_RATIO && compactionQueued.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    compactionQueued.set(false);
+                    compact();
+                });
+            } catch (RejectedExecutionException e) {
+                compactionQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Renumbers the live documents densely and drops dead postings; document order,
+     * and so the order of every postings list, is preserved.
+     * <p>
+     * The compacted index is built under the read lock, so searches go on, and
+     * swapped in under the write lock unless a write came in meanwhile, in which case
+     * it is built again. After {@link #MAX_COMPACTION_ATTEMPTS} it is built under the
+     * write lock instead.
+     */
+    void compact() {
+        for (int attempt = 1; attempt < MAX_COMPACTION_ATTEMPTS; attempt++) {
+            long version;
+            Compacted compacted;
+            lock.readLock().lock();
+            try {
+                version = writes;
+                compacted = compacted();
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
+                if (writes == version) {
+                    install(compacted);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            install(compacted());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Compacted compacted() {
+        int[] newDoc = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            newDoc[doc] = deleted.get(doc) ? -1 : live++;
+        }
+        long[] newProducts = new long[Math.max(1024, live * 2)];
+        int[] newLengths = new int[newProducts.length];
+        long[] newFingerprints = new long[newProducts.length];
+        LongIntHashMap newDocOf = new LongIntHashMap(live);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (newDoc[doc] >= 0) {
+                newProducts[newDoc[doc]] = docProducts[doc];
+                newLengths[newDoc[doc]] = docLengths[doc];
+                newFingerprints[newDoc[doc]] = docFingerprints[doc];
+                newDocOf.put(docProducts[doc], newDoc[doc]);
+            }
+        }
+        Map<String, Postings> newPostings = new HashMap<>();
+        postings.forEach((term, list) -> {
+            Postings compacted = list.remap(newDoc);
+            if (compacted.size > 0) {
+                newPostings.put(term, compacted);
+            }
+        });
+        return new Compacted(newPostings, newProducts, newLengths, newFingerprints, newDocOf, live);
+    }
+
+    private void install(Compacted compacted) {
+        postings = compacted.postings();
+        docProducts = compacted.docProducts();
+        docLengths = compacted.docLengths();
+        docFingerprints = compacted.docFingerprints();
+        docOf = compacted.docOf();
+        deleted = new BitSet();
+        docCount = compacted.docCount();
+    }
+
+    private void clear() {
+        postings = new HashMap<>();
+        docProducts = new long[1024];
+        docLengths = new int[1024];
+        docFingerprints = new long[1024];
+        deleted = new BitSet();
+        docOf = new LongIntHashMap(1024);
+        docCount = 0;
+        liveDocs = 0;
+        totalLength = 0;
+        writes++;
+    }
+
+    public record SearchResult(List<Long> productIds, int total) {
+    }
+
+    private record Compacted(Map<String, Postings> postings, long[] docProducts, int[] docLengths,
+                             long[] docFingerprints, LongIntHashMap docOf, int docCount) {
+    }
+
+    /**
+     * Documents containing a term, in ascending order, with the weighted term
+     * frequency of each; frequencies above 255 are capped.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private byte[] tfs = new byte[4];
+        private int size;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = (byte) Math.min(tf, 255);
+            size++;
+        }
+
+        int tf(int index) {
+            return tfs[index] & 0xFF;
+        }
+
+        /**
+         * Returns the first index at or after {@code from} whose document is at least
+         * {@code target}, or {@code size}: doubles the step until it overshoots, then
+         * binary searches the last step.
+         */
+        int advance(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            int bound = 1;
+            while (from + bound < size && docs[from + bound] < target) {
+                bound <<= 1;
+            }
+            int low = from + (bound >> 1) + 1;
+            int high = Math.min(from + bound, size - 1);
+            int index = Arrays.binarySearch(docs, low, high + 1, target);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        Postings remap(int[] newDoc) {
+            Postings remapped = new Postings();
+            for (int i = 0; i < size; i++) {
+                if (newDoc[docs[i]] >= 0) {
+                    remapped.add(newDoc[docs[i]], tf(i));
+                }
+            }
+            return remapped;
+        }
+    }
+
+    /**
+     * Bounded min-heap of the best {@code capacity} documents. Entries are packed
+     * into longs, score bits high and inverted document number low; BM25 scores are
+     * positive, so comparing the longs orders by score and then by older document.
+     */
+    private static final class TopDocs {
+        private final long[] heap;
+        private int size;
+
+        TopDocs(int capacity) {
+            heap = new long[capacity];
+        }
+
+        void offer(float score, int doc) {
+            long entry = ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - doc);
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(size++);
+            } else if (entry > heap[0]) {
+                heap[0] = entry;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedDocs() {
+            long[] entries = Arrays.copyOf(heap, size);
+            Arrays.sort(entries);
+            int[] docs = new int[size];
+            for (int i = 0; i < size; i++) {
+                docs[i] = Integer.MAX_VALUE - (int) entries[size - 1 - i];
+            }
+            return docs;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[i] <= heap[child]) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
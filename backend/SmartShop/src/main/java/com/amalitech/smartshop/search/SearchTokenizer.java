@@ -0,0 +1,97 @@
+package com.amalitech.smartshop.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits product text and search queries into index terms: lower-cased runs of
+ * letters and digits, without stop words, reduced to a common stem.
+ * <p>
+ * Stemming is light suffix stripping (plurals, {@code -ing}, {@code -ed}, final
+ * {@code -e}) rather than full Porter stemming, which conflates too many product
+ * names; tokens containing digits, such as model numbers and SKU parts, are kept
+ * as they are. Documents and queries go through the same code, so both sides
+ * always agree on a term.
+ */
+public final class SearchTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "the", "to", "with");
+
+    private SearchTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String token) {
+        if (token.length() < 4 || !token.chars().allMatch(Character::isLetter)) {
+            return token;
+        }
+        String stem = token;
+        if (stem.endsWith("ies") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 3) + "y";
+        } else if (stem.endsWith("es") && endsWithAny(stem.substring(0, stem.length() - 2), "s", "x", "z", "ch", "sh")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !endsWithAny(stem, "ss", "us", "is")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        if (stem.endsWith("ing") && hasVowel(stem, stem.length() - 3) && stem.length() - 3 >= 3) {
+            stem = undouble(stem.substring(0, stem.length() - 3));
+        } else if (stem.endsWith("ed") && hasVowel(stem, stem.length() - 2) && stem.length() - 2 >= 3) {
+            stem = undouble(stem.substring(0, stem.length() - 2));
+        }
+        if (stem.endsWith("e") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    private static boolean endsWithAny(String word, String... suffixes) {
+        for (String suffix : suffixes) {
+            if (word.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if ("aeiouy".indexOf(word.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Turns "runn" (from "running") back into "run"; l, s and z stay doubled as in "fall". */
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n >= 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "aeiouylsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,161 @@
+package com.amalitech.smartshop.search;
+
+import com.amalitech.smartshop.cache.CatalogEngine;
+import com.amalitech.smartshop.dtos.responses.SuggestionResponseDTO;
+import com.amalitech.smartshop.enums.SuggestionType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves search-box suggestions from a {@link SuggestionIndex} of product and
+ * category names weighted by the units sold, read from the daily sales rollups.
+ * <p>
+ * The index is rebuilt from the database on a background thread and swapped in
+ * with a single volatile write, so lookups never wait for a rebuild. A rebuild
+ * runs when {@link CatalogEngine} reports a product or category name added,
+ * changed or removed on any instance, waiting a short delay so a burst of writes
+ * costs one rebuild. Stock, price and rating changes leave the names alone and do
+ * not trigger one. It also runs periodically to pick up changes in popularity, and
+ * to pick up name changes if the catalog snapshot is disabled.
+ */
+@Component
+@Slf4j
+public class SuggestionEngine {
+
+    /** Largest number of suggestions a single lookup returns. */
+    public static final int MAX_LIMIT = 20;
+
+    private static final String PRODUCTS_SQL = """
+            SELECT p.id, p.name, COALESCE(s.units, 0) AS units
+            FROM products p
+            LEFT JOIN (SELECT product_id, SUM(units_sold) AS units FROM product_sales_daily GROUP BY product_id) s
+                ON s.product_id = p.id
+            """;
+    private static final String CATEGORIES_SQL = """
+            SELECT c.id, c.name, COALESCE(s.units, 0) AS units
+            FROM categories c
+            LEFT JOIN (SELECT category_id, SUM(units_sold) AS units FROM category_sales_daily GROUP BY category_id) s
+                ON s.category_id = c.id
+            """;
+
+    private final boolean enabled;
+    private final long refreshIntervalMillis;
+    private final long rebuildDelayMillis;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile SuggestionIndex index = SuggestionIndex.EMPTY;
+    private volatile boolean running;
+    private Thread worker;
+
+    public SuggestionEngine(CatalogEngine catalogEngine,
+                            @Value("${search.suggest.enabled:true}") boolean enabled,
+                            @Value("${search.suggest.refresh-interval-millis:300000}") long refreshIntervalMillis,
+                            @Value("${search.suggest.rebuild-delay-millis:2000}") long rebuildDelayMillis,
+                            @Value("${spring.datasource.url}") String url,
+                            @Value("${spring.datasource.username}") String username,
+                            @Value("${spring.datasource.password}") String password) {
+        this.enabled = enabled;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.rebuildDelayMillis = rebuildDelayMillis;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        if (enabled) {
+            catalogEngine.addProductListener((productId, product) -> {
+                if (!index.hasProductName(productId, product != null ? product.getName() : null)) {
+                    wakeUp.release();
+                }
+            });
+            catalogEngine.addCategoryListener(categoryId -> wakeUp.release());
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} completions of {@code prefix}, most popular first;
+     * empty until the first build completes.
+     */
+    public List<SuggestionResponseDTO> suggest(String prefix, int limit) {
+        return index.suggest(prefix, Math.min(limit, MAX_LIMIT));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("suggestion-index").daemon(true).start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                rebuild();
+            } catch (SQLException e) {
+                log.warn("Suggestion index rebuild failed: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Suggestion index rebuild failed", e);
+            }
+            awaitChange();
+        }
+    }
+
+    private void rebuild() throws SQLException {
+        long start = System.nanoTime();
+        SuggestionIndex.Builder builder = SuggestionIndex.builder();
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery(CATEGORIES_SQL)) {
+                while (rs.next()) {
+                    builder.add(rs.getString("name"), SuggestionType.CATEGORY, rs.getLong("id"), rs.getLong("units"));
+                }
+            }
+            try (ResultSet rs = st.executeQuery(PRODUCTS_SQL)) {
+                while (rs.next()) {
+                    builder.add(rs.getString("name"), SuggestionType.PRODUCT, rs.getLong("id"), rs.getLong("units"));
+                }
+            }
+        }
+        index = builder.build();
+        log.debug("Suggestion index rebuilt: {} names in {}ms", index.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /** Waits for a catalog change or the refresh interval, then lets further changes settle. */
+    private void awaitChange() {
+        try {
+            if (wakeUp.tryAcquire(refreshIntervalMillis, TimeUnit.MILLISECONDS)) {
+                Thread.sleep(rebuildDelayMillis);
+            }
+            wakeUp.drainPermits();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
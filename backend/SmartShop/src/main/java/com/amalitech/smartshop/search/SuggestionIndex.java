@@ -0,0 +1,347 @@
+package com.amalitech.smartshop.search;
+
+import com.amalitech.smartshop.cache.LongIntHashMap;
+import com.amalitech.smartshop.dtos.responses.SuggestionResponseDTO;
+import com.amalitech.smartshop.enums.SuggestionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable typeahead index over product and category names, returning the most
+ * popular completions of a prefix.
+ * <p>
+ * Every name is normalized (lower case, punctuation collapsed to single spaces)
+ * and entered once per word start, so "charg" completes "Wireless Charger" as
+ * well as "Charger Cable". The entries are kept as one sorted array of
+ * (suggestion, offset) pairs, which is the leaf level of a trie: the entries
+ * sharing a prefix are a contiguous range found by two binary searches. A max
+ * tree over the entries' weights then yields the heaviest entries of that range
+ * one by one in O(log n) each, so a lookup costs O(log n) per returned
+ * suggestion regardless of how many names share the prefix. Compared with a
+ * pointer trie with top-k lists on every node, this stores two ints per entry.
+ * <p>
+ * Ties in weight go to matches at the start of a name, then to the
+ * alphabetically first entry.
+ */
+public final class SuggestionIndex {
+
+    public static final SuggestionIndex EMPTY = builder().build();
+
+    /** Word starts indexed per name beyond the first; later words are not completed. */
+    private static final int MAX_WORD_STARTS = 8;
+
+    private final String[] texts;
+    private final String[] normalized;
+    private final SuggestionType[] types;
+    private final long[] ids;
+    private final long[] weights;
+    private final int[] entrySuggestions;
+    private final int[] entryOffsets;
+    /** Iterative segment tree; leaves at {@code [n, 2n)} hold entry numbers, inner nodes the heavier child's. */
+    private final int[] maxTree;
+    private final LongIntHashMap productSuggestions;
+
+    private SuggestionIndex(Builder builder) {
+        int count = builder.texts.size();
+        texts = builder.texts.toArray(new String[0]);
+        normalized = builder.normalized.toArray(new String[0]);
+        types = builder.types.toArray(new SuggestionType[0]);
+        ids = Arrays.copyOf(builder.ids, count);
+        weights = Arrays.copyOf(builder.weights, count);
+        productSuggestions = new LongIntHashMap(count);
+        for (int s = 0; s < count; s++) {
+            if (types[s] == SuggestionType.PRODUCT) {
+                productSuggestions.put(ids[s], s);
+            }
+        }
+
+        long[] entries = new long[builder.entryCount];
+        int e = 0;
+        for (int s = 0; s < count; s++) {
+            String name = normalized[s];
+            entries[e++] = pack(s, 0);
+            int starts = 0;
+            for (int i = 1; i < name.length() && starts < MAX_WORD_STARTS; i++) {
+                if (name.charAt(i - 1) == ' ') {
+                    entries[e++] = pack(s, i);
+                    starts++;
+                }
+            }
+        }
+        sortEntries(entries, new long[entries.length], 0, entries.length);
+
+        entrySuggestions = new int[entries.length];
+        entryOffsets = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            entrySuggestions[i] = (int) (entries[i] >>> 32);
+            entryOffsets[i] = (int) entries[i];
+        }
+
+        int n = entries.length;
+        maxTree = new int[2 * Math.max(n, 1)];
+        for (int i = 0; i < n; i++) {
+            maxTree[n + i] = i;
+        }
+        for (int node = n - 1; node >= 1; node--) {
+            maxTree[node] = heavier(maxTree[2 * node], maxTree[2 * node + 1]);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Number of names in the index. */
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * Returns true if the index holds {@code name} for the product, or nothing for
+     * it if {@code name} is null or blank, i.e. if a rebuild would not change its name.
+     */
+    public boolean hasProductName(long productId, String name) {
+        int s = productSuggestions.get(productId, -1);
+        boolean blank = name == null || name.isBlank();
+        return s < 0 ? blank : !blank && texts[s].equals(name.strip());
+    }
+
+    /**
+     * Returns up to {@code limit} distinct names containing a word that starts with
+     * {@code prefix}, most popular first.
+     */
+    public List<SuggestionResponseDTO> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        List<SuggestionResponseDTO> suggestions = new ArrayList<>();
+        if (query.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+        int from = lowerBound(query);
+        int to = upperBound(query, from);
+        if (from >= to) {
+            return suggestions;
+        }
+
+        // Each queued range is represented by its heaviest entry; taking it splits the range in two.
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compareWeight(b[2], a[2]));
+        ranges.add(new int[]{from, to, rangeMax(from, to)});
+        Set<Integer> seen = new HashSet<>();
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int entry = range[2];
+            int s = entrySuggestions[entry];
+            if (seen.add(s)) {
+                suggestions.add(new SuggestionResponseDTO(texts[s], types[s], ids[s]));
+            }
+            if (range[0] < entry) {
+                ranges.add(new int[]{range[0], entry, rangeMax(range[0], entry)});
+            }
+            if (entry + 1 < range[1]) {
+                ranges.add(new int[]{entry + 1, range[1], rangeMax(entry + 1, range[1])});
+            }
+        }
+        return suggestions;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !out.isEmpty()) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        // A trailing space means the last word is complete, so "usb " does not complete "usbc".
+        if (pendingSpace && !out.isEmpty() && Character.isWhitespace(text.charAt(text.length() - 1))) {
+            out.append(' ');
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private int lowerBound(String query) {
+        int lo = 0;
+        int hi = entrySuggestions.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToPrefix(mid, query) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int upperBound(String query, int from) {
+        int lo = from;
+        int hi = entrySuggestions.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToPrefix(mid, query) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Compares an entry's key with the query, treating keys that start with the query as equal to it. */
+    private int compareToPrefix(int entry, String query) {
+        String name = normalized[entrySuggestions[entry]];
+        int offset = entryOffsets[entry];
+        int length = Math.min(name.length() - offset, query.length());
+        for (int i = 0; i < length; i++) {
+            int diff = name.charAt(offset + i) - query.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length() - offset >= query.length() ? 0 : -1;
+    }
+
+    private int rangeMax(int from, int to) {
+        int n = entrySuggestions.length;
+        int best = -1;
+        for (int lo = from + n, hi = to + n; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                best = best < 0 ? maxTree[lo] : heavier(best, maxTree[lo]);
+                lo++;
+            }
+            if ((hi & 1) == 1) {
+                hi--;
+                best = best < 0 ? maxTree[hi] : heavier(best, maxTree[hi]);
+            }
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        return compareWeight(a, b) >= 0 ? a : b;
+    }
+
+    /** Orders entries by weight, then start-of-name matches, then position (earlier wins). */
+    private int compareWeight(int a, int b) {
+        int byWeight = Long.compare(weights[entrySuggestions[a]], weights[entrySuggestions[b]]);
+        if (byWeight != 0) {
+            return byWeight;
+        }
+        int byStart = Boolean.compare(entryOffsets[a] == 0, entryOffsets[b] == 0);
+        if (byStart != 0) {
+            return byStart;
+        }
+        return Integer.compare(b, a);
+    }
+
+    private static long pack(int suggestion, int offset) {
+        return ((long) suggestion << 32) | offset;
+    }
+
+    private int compareEntries(long a, long b) {
+        String x = normalized[(int) (a >>> 32)];
+        String y = normalized[(int) (b >>> 32)];
+        int i = (int) a;
+        int j = (int) b;
+        int length = Math.min(x.length() - i, y.length() - j);
+        for (int k = 0; k < length; k++) {
+            int diff = x.charAt(i + k) - y.charAt(j + k);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        int byLength = (x.length() - i) - (y.length() - j);
+        return byLength != 0 ? byLength : Long.compare(a, b);
+    }
+
+    /** Merge sort on packed entries, so building never boxes them. */
+    private void sortEntries(long[] entries, long[] buffer, int from, int to) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                long entry = entries[i];
+                int j = i - 1;
+                while (j >= from && compareEntries(entries[j], entry) > 0) {
+                    entries[j + 1] = entries[j];
+                    j--;
+                }
+                entries[j + 1] = entry;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortEntries(entries, buffer, from, mid);
+        sortEntries(entries, buffer, mid, to);
+        if (compareEntries(entries[mid - 1], entries[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(entries, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compareEntries(buffer[i], buffer[j]) <= 0)) {
+                entries[k] = buffer[i++];
+            } else {
+                entries[k] = buffer[j++];
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<String> texts = new ArrayList<>();
+        private final List<String> normalized = new ArrayList<>();
+        private final List<SuggestionType> types = new ArrayList<>();
+        private long[] ids = new long[64];
+        private long[] weights = new long[64];
+        private int entryCount;
+
+        private Builder() {
+        }
+
+        /** Adds a name; blank names are skipped. */
+        public Builder add(String text, SuggestionType type, long id, long weight) {
+            String name = normalize(text).strip();
+            if (name.isEmpty()) {
+                return this;
+            }
+            int s = texts.size();
+            if (s == ids.length) {
+                ids = Arrays.copyOf(ids, s * 2);
+                weights = Arrays.copyOf(weights, s * 2);
+            }
+            texts.add(text.strip());
+            normalized.add(name);
+            types.add(type);
+            ids[s] = id;
+            weights[s] = weight;
+
+            int starts = 0;
+            for (int i = 1; i < name.length() && starts < MAX_WORD_STARTS; i++) {
+                if (name.charAt(i - 1) == ' ') {
+                    starts++;
+                }
+            }
+            entryCount += 1 + starts;
+            return this;
+        }
+
+        public SuggestionIndex build() {
+            return new SuggestionIndex(this);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.amalitech.smartshop.services;
+
+import com.amalitech.smartshop.dtos.responses.ProductSalesDTO;
+import com.amalitech.smartshop.dtos.responses.SalesRevenueDTO;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.interfaces.AnalyticsService;
+import com.amalitech.smartshop.interfaces.SalesRollupRepository;
+import com.amalitech.smartshop.utils.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the AnalyticsService interface.
+ * Reads only the daily sales rollups, so a query costs the same however many
+ * orders have been placed; the day range it may span is capped instead.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    static final int DEFAULT_DAYS = 30;
+    static final int MAX_DAYS = 366;
+    static final int MAX_LIMIT = 100;
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    @Override
+    public List<ProductSalesDTO> getTopProducts(LocalDate from, LocalDate to, Long categoryId, Long vendorId,
+                                                SalesRollupRepository.Metric metric, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestFormat("limit must be between 1 and " + MAX_LIMIT);
+        }
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = firstDay(from, last);
+
+        return salesRollupRepository.findTopProducts(first, last, categoryId, vendorId, metric, limit).stream()
+                .map(sales -> new ProductSalesDTO(sales.productId(), sales.productName(), sales.categoryId(),
+                        sales.unitsSold(), Money.toDouble(sales.revenueCents())))
+                .toList();
+    }
+
+    @Override
+    public SalesRevenueDTO getRevenue(LocalDate from, LocalDate to, Long categoryId, Long vendorId) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = firstDay(from, last);
+
+        List<SalesRevenueDTO.DailySales> days = new ArrayList<>();
+        long unitsSold = 0;
+        long revenueCents = 0;
+        for (SalesRollupRepository.DailySales day : salesRollupRepository.findDailySales(first, last, categoryId, vendorId)) {
+            days.add(new SalesRevenueDTO.DailySales(day.date(), day.unitsSold(), Money.toDouble(day.revenueCents())));
+            unitsSold += day.unitsSold();
+            revenueCents = Money.plus(revenueCents, day.revenueCents());
+        }
+        return new SalesRevenueDTO(first, last, unitsSold, Money.toDouble(revenueCents), days);
+    }
+
+    private static LocalDate firstDay(LocalDate from, LocalDate last) {
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_DAYS - 1);
+        if (first.isAfter(last)) {
+            throw new BadRequestFormat("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(first, last) >= MAX_DAYS) {
+            throw new BadRequestFormat("The date range must not span more than " + MAX_DAYS + " days");
+        }
+        return first;
+    }
+}
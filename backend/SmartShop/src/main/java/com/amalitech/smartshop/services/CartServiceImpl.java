@@ -12,6 +12,7 @@ import com.amalitech.smartshop.entities.Product;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.exceptions.UnauthorizedException;
 import com.amalitech.smartshop.interfaces.*;
+import com.amalitech.smartshop.utils.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -177,25 +178,25 @@ public class CartServiceImpl implements CartService {
         List<CartItem> cartItems = cartItemRepository.findByCartId(cart.getId());
         
         List<CartItemResponseDTO> items = new ArrayList<>();
-        double totalAmount = 0.0;
+        long totalAmountCents = 0;
         int totalItems = 0;
         
         for (CartItem item : cartItems) {
             Product product = productRepository.findById(item.getProductId()).orElse(null);
             if (product != null) {
-                double itemTotal = product.getPrice() * item.getQuantity();
+                long itemTotalCents = Money.times(product.getPriceCents(), item.getQuantity());
                 CartItemResponseDTO itemDTO = CartItemResponseDTO.builder()
                         .id(item.getId())
                         .productId(item.getProductId())
                         .productName(product.getName())
-                        .productPrice(product.getPrice())
+                        .productPrice(Money.toDouble(product.getPriceCents()))
                         .quantity(item.getQuantity())
-                        .totalPrice(itemTotal)
+                        .totalPrice(Money.toDouble(itemTotalCents))
                         .createdAt(item.getCreatedAt())
                         .updatedAt(item.getUpdatedAt())
                         .build();
                 items.add(itemDTO);
-                totalAmount += itemTotal;
+                totalAmountCents = Money.plus(totalAmountCents, itemTotalCents);
                 totalItems += item.getQuantity();
             }
         }
@@ -204,7 +205,7 @@ public class CartServiceImpl implements CartService {
                 .id(cart.getId())
                 .userId(cart.getUserId())
                 .items(items)
-                .totalAmount(totalAmount)
+                .totalAmount(Money.toDouble(totalAmountCents))
                 .totalItems(totalItems)
                 .createdAt(cart.getCreatedAt())
                 .updatedAt(cart.getUpdatedAt())
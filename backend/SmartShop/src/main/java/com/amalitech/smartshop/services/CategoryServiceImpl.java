@@ -1,6 +1,7 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.dtos.requests.AddCategoryDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateCategoryDTO;
 import com.amalitech.smartshop.dtos.responses.CategoryResponseDTO;
@@ -35,6 +36,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final CacheManager cacheManager;
     private final ProductRepository productRepository;
     private final InventoryRepository inventoryRepository;
+    private final StockIndex stockIndex;
 
     @Override
     public CategoryResponseDTO addCategory(AddCategoryDTO addCategoryDTO) {
@@ -46,6 +48,7 @@ public class CategoryServiceImpl implements CategoryService {
         
         Category category = categoryMapper.toEntity(addCategoryDTO);
         Category savedCategory = categoryRepository.save(category);
+        cacheManager.invalidate("cat:" + savedCategory.getId());
         
         log.info("Category added successfully with id: {}", savedCategory.getId());
         return categoryMapper.toResponseDTO(savedCategory);
@@ -53,9 +56,11 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public Page<CategoryResponseDTO> getAllCategories(Pageable pageable) {
+        long stamp = cacheManager.loadStamp();
         return categoryRepository.findAll(pageable).map(category -> {
             CategoryResponseDTO dto = categoryMapper.toResponseDTO(category);
-            cacheManager.get("cat:" + category.getId(), () -> category);
+            Long id = category.getId();
+            cacheManager.preload("cat:" + id, category, () -> categoryRepository.findById(id).orElse(null), stamp);
             return dto;
         });
     }
@@ -98,7 +103,12 @@ public class CategoryServiceImpl implements CategoryService {
             deleteProductInventory(product);
             productRepository.delete(product);
             cacheManager.invalidate("prod:" + product.getId());
+            if (product.getVendorId() != null) {
+                cacheManager.invalidate("prod:list:vendor:" + product.getVendorId());
+            }
         }
+        cacheManager.invalidate("prod:list:all");
+        cacheManager.invalidate("prod:list:cat:" + id);
 
         categoryRepository.delete(category);
         cacheManager.invalidate("cat:" + id);
@@ -117,9 +127,9 @@ public class CategoryServiceImpl implements CategoryService {
     private void deleteProductInventory(Product product) {
         inventoryRepository.findByProductId(product.getId())
                 .ifPresent(inventory -> {
-                    inventoryRepository.delete(inventory);
-                    cacheManager.invalidate("invent:" + inventory.getId());
-                    cacheManager.invalidate("invent:" + product.getId());
+                    inventoryRepository.delete(inventory)
+                            .ifPresent(version -> stockIndex.remove(product.getId(), version));
+                    cacheManager.invalidate("inventory:" + inventory.getId());
                     cacheManager.invalidate("invent:" + product.getId());
                 });
     }
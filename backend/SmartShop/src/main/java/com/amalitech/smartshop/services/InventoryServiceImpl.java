@@ -1,6 +1,7 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.dtos.requests.AddInventoryDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateInventoryDTO;
 import com.amalitech.smartshop.dtos.responses.InventoryResponseDTO;
@@ -32,6 +33,7 @@ public class InventoryServiceImpl implements InventoryService {
     private final ProductRepository productRepository;
     private final InventoryMapper inventoryMapper;
     private final CacheManager cacheManager;
+    private final StockIndex stockIndex;
 
     @Override
     public InventoryResponseDTO addInventory(AddInventoryDTO addInventoryDTO) {
@@ -56,6 +58,7 @@ public class InventoryServiceImpl implements InventoryService {
         
         log.info("Inventory added successfully with id: {}", savedInventory.getId());
         cacheManager.invalidate("invent:" + addInventoryDTO.getProductId());
+        stockIndex.set(savedInventory.getProductId(), savedInventory.getQuantity(), savedInventory.getVersion());
         return response;
     }
 
@@ -115,13 +118,11 @@ public class InventoryServiceImpl implements InventoryService {
         Inventory inventory = inventoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found with ID: " + id));
 
-        int newQuantity = inventory.getQuantity() + quantityChange;
-        if (newQuantity < 0) {
-            throw new IllegalArgumentException("Insufficient inventory. Available: " + inventory.getQuantity() + ", Required: " + Math.abs(quantityChange));
-        }
-
-        inventory.setQuantity(newQuantity);
-        return saveAndBuildResponse(id, inventory);
+        // Applied in the database so concurrent adjustments and orders are not lost
+        Inventory adjustedInventory = inventoryRepository.adjustQuantity(inventory.getProductId(), quantityChange)
+                .orElseThrow(() -> new IllegalArgumentException("Insufficient inventory. Available: "
+                        + inventory.getQuantity() + ", Required: " + Math.abs(quantityChange)));
+        return publishAndBuildResponse(id, adjustedInventory, cacheManager.loadStamp());
     }
 
     @Override
@@ -134,7 +135,8 @@ public class InventoryServiceImpl implements InventoryService {
         Long productId = inventory.getProductId();
 
         try {
-            inventoryRepository.delete(inventory);
+            inventoryRepository.delete(inventory)
+                    .ifPresent(version -> stockIndex.remove(productId, version));
             invalidateInventoryCache(id, productId);
             log.info("Inventory deleted successfully: {}", id);
         } catch (Exception ex) {
@@ -148,7 +150,22 @@ public class InventoryServiceImpl implements InventoryService {
 
     private InventoryResponseDTO saveAndBuildResponse(Long id, Inventory inventory) {
         Inventory updatedInventory = inventoryRepository.save(inventory);
-        invalidateInventoryCache(id, inventory.getProductId());
+        return publishAndBuildResponse(id, updatedInventory, cacheManager.loadStamp());
+    }
+
+    /**
+     * Publishes a written quantity; {@code stamp} is taken right after the write so a
+     * publish overtaken by a later write is dropped.
+     */
+    private InventoryResponseDTO publishAndBuildResponse(Long id, Inventory updatedInventory, long stamp) {
+        Long productId = updatedInventory.getProductId();
+        cacheManager.invalidate("inventory:" + id);
+        cacheManager.invalidate("prod:" + productId);
+        cacheManager.writeThrough("invent:" + productId, updatedInventory.getQuantity(), () ->
+                inventoryRepository.findByProductId(productId)
+                        .map(Inventory::getQuantity)
+                        .orElse(0), stamp);
+        stockIndex.set(productId, updatedInventory.getQuantity(), updatedInventory.getVersion());
 
         InventoryResponseDTO response = inventoryMapper.toResponseDTO(updatedInventory);
         enrichResponseWithProductName(response, updatedInventory.getProductId());
@@ -161,8 +178,7 @@ public class InventoryServiceImpl implements InventoryService {
     }
 
     private void invalidateInventoryCache(Long inventoryId, Long productId) {
-        cacheManager.invalidate("invent:" + inventoryId);
-        cacheManager.invalidate("invent:" + productId);
+        cacheManager.invalidate("inventory:" + inventoryId);
         cacheManager.invalidate("invent:" + productId);
         cacheManager.invalidate("prod:" + productId);
     }
@@ -1,11 +1,14 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
+import com.amalitech.smartshop.config.JdbcTransactions;
 import com.amalitech.smartshop.dtos.requests.AddOrderDTO;
 import com.amalitech.smartshop.dtos.requests.OrderItemDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateOrderDTO;
 import com.amalitech.smartshop.dtos.responses.OrderItemResponseDTO;
 import com.amalitech.smartshop.dtos.responses.OrderResponseDTO;
+import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.entities.Inventory;
 import com.amalitech.smartshop.entities.Order;
 import com.amalitech.smartshop.entities.OrderItem;
@@ -15,12 +18,13 @@ import com.amalitech.smartshop.exceptions.ConstraintViolationException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.interfaces.*;
 import com.amalitech.smartshop.mappers.OrderMapper;
+import com.amalitech.smartshop.utils.Money;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,7 +33,8 @@ import java.util.stream.Collectors;
 /**
  * Implementation of the OrderService interface.
  * Handles all order-related business logic including order creation,
- * status updates, and inventory management.
+ * status updates, and inventory management. Each write runs in one JDBC
+ * transaction with the stock and sales rollups it changes.
  */
 @Service
 @Slf4j
@@ -43,41 +48,43 @@ public class OrderServiceImpl implements OrderService {
     private final InventoryRepository inventoryRepository;
     private final OrderMapper orderMapper;
     private final CacheManager cacheManager;
+    private final StockIndex stockIndex;
+    private final SalesRollupRepository salesRollupRepository;
+    private final JdbcTransactions jdbcTransactions;
 
     @Override
-    @Transactional
     public OrderResponseDTO createOrder(AddOrderDTO addOrderDTO) {
+        return jdbcTransactions.inTransaction(() -> placeOrder(addOrderDTO));
+    }
+
+    private OrderResponseDTO placeOrder(AddOrderDTO addOrderDTO) {
         log.info("Creating order for user: {}", addOrderDTO.getUserId());
         
         userRepository.findById(addOrderDTO.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + addOrderDTO.getUserId()));
 
         List<OrderItem> orderItems = new ArrayList<>();
-        List<Inventory> inventoriesToUpdate = new ArrayList<>();
-        double totalAmount = 0.0;
+        long totalAmountCents = 0;
 
         for (OrderItemDTO itemDTO : addOrderDTO.getItems()) {
             Product product = validateAndGetProduct(itemDTO.getProductId());
-            Inventory inventory = validateAndReserveInventory(product, itemDTO.getQuantity());
-            
-            inventoriesToUpdate.add(inventory);
-            invalidateProductCache(product.getId());
+            Inventory inventory = reserveInventory(product, itemDTO.getQuantity());
+            writeThroughStock(inventory, cacheManager.loadStamp());
 
-            double itemTotal = product.getPrice() * itemDTO.getQuantity();
-            totalAmount += itemTotal;
+            long itemTotalCents = Money.times(product.getPriceCents(), itemDTO.getQuantity());
+            totalAmountCents = Money.plus(totalAmountCents, itemTotalCents);
 
             orderItems.add(OrderItem.builder()
                     .productId(product.getId())
+                    .categoryId(product.getCategoryId())
                     .quantity(itemDTO.getQuantity())
-                    .totalPrice(itemTotal)
+                    .totalPriceCents(itemTotalCents)
                     .build());
         }
 
-        inventoryRepository.saveAll(inventoriesToUpdate);
-
         Order order = Order.builder()
                 .userId(addOrderDTO.getUserId())
-                .totalAmount(totalAmount)
+                .totalAmountCents(totalAmountCents)
                 .status(OrderStatus.PENDING)
                 .build();
         Order savedOrder = orderRepository.save(order);
@@ -86,6 +93,7 @@ public class OrderServiceImpl implements OrderService {
             item.setOrderId(savedOrder.getId());
         }
         List<OrderItem> savedItems = orderItemRepository.saveAll(orderItems);
+        salesRollupRepository.record(savedOrder.getCreatedAt().toLocalDate(), savedItems);
 
         log.info("Order created successfully with id: {}", savedOrder.getId());
         return buildOrderResponse(savedOrder, savedItems);
@@ -101,6 +109,26 @@ public class OrderServiceImpl implements OrderService {
         );
     }
 
+    @Override
+    public PagedResponse<OrderResponseDTO> getSortedOrders(OrderRepository.SortField sort, boolean ascending,
+                                                           String cursor, Pageable pageable) {
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor, sort.name()) : null;
+        Page<Order> orders = orderRepository.findSorted(sort, ascending, after, pageable);
+        List<OrderResponseDTO> content = orders.getContent().stream()
+                .map(order -> cacheManager.get("ord:" + order.getId(), () ->
+                        buildOrderResponse(order, orderItemRepository.findByOrderId(order.getId()))))
+                .toList();
+
+        boolean last = after != null ? content.size() < pageable.getPageSize() : orders.isLast();
+        String nextCursor = null;
+        if (!last && !orders.getContent().isEmpty()) {
+            Order lastOrder = orders.getContent().getLast();
+            nextCursor = new KeysetCursor(sort.name(), sort.cursorValue(lastOrder), lastOrder.getId()).encode();
+        }
+        return new PagedResponse<>(content, orders.getNumber(), (int) orders.getTotalElements(),
+                orders.getTotalPages(), last, nextCursor);
+    }
+
     @Override
     public Page<OrderResponseDTO> getOrdersByUserId(Long userId, Pageable pageable) {
         userRepository.findById(userId)
@@ -123,27 +151,30 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Transactional
     public OrderResponseDTO updateOrderStatus(Long id, UpdateOrderDTO updateOrderDTO) {
 
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
-
-        if (updateOrderDTO.getStatus() != null) {
-            order.setStatus(updateOrderDTO.getStatus());
+        List<OrderItem> items = orderItemRepository.findByOrderId(id);
+
+        OrderStatus status = updateOrderDTO.getStatus();
+        if (status != null) {
+            jdbcTransactions.runInTransaction(() -> {
+                // The previous status is read under the row lock, so of two concurrent
+                // cancellations only the first one reverses the sales
+                OrderStatus previous = orderRepository.updateStatus(id, status)
+                        .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + id));
+                applySalesTransition(order, items, previous, status);
+            });
+            order.setStatus(status);
         }
-
-        Order updatedOrder = orderRepository.save(order);
         cacheManager.invalidate("ord:" + id);
-
-        List<OrderItem> items = orderItemRepository.findByOrderId(updatedOrder.getId());
         
         log.info("Order status updated successfully: {}", id);
-        return buildOrderResponse(updatedOrder, items);
+        return buildOrderResponse(order, items);
     }
 
     @Override
-    @Transactional
     public void deleteOrder(Long id) {
         log.info("Deleting order: {}", id);
         
@@ -152,8 +183,11 @@ public class OrderServiceImpl implements OrderService {
 
         try {
             List<OrderItem> items = orderItemRepository.findByOrderId(id);
-            orderItemRepository.deleteAll(items);
-            orderRepository.delete(order);
+            jdbcTransactions.runInTransaction(() -> {
+                orderItemRepository.deleteAll(items);
+                orderRepository.delete(order)
+                        .ifPresent(status -> applySalesTransition(order, items, status, null));
+            });
 
             cacheManager.invalidate("ord:" + id);
             log.info("Order deleted successfully: {}", id);
@@ -166,6 +200,20 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Keeps the sales rollups in step with an order moving between statuses; a null
+     * status means the order was deleted. Cancelled orders are left out of the rollups.
+     */
+    private void applySalesTransition(Order order, List<OrderItem> items, OrderStatus from, OrderStatus to) {
+        boolean wasCounted = from != OrderStatus.CANCELLED;
+        boolean isCounted = to != null && to != OrderStatus.CANCELLED;
+        if (wasCounted && !isCounted) {
+            salesRollupRepository.reverse(order.getCreatedAt().toLocalDate(), items);
+        } else if (!wasCounted && isCounted) {
+            salesRollupRepository.record(order.getCreatedAt().toLocalDate(), items);
+        }
+    }
+
     private Product validateAndGetProduct(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + productId));
@@ -176,22 +224,29 @@ public class OrderServiceImpl implements OrderService {
         return product;
     }
 
-    private Inventory validateAndReserveInventory(Product product, int requestedQuantity) {
-        Inventory inventory = inventoryRepository.findByProductId(product.getId())
+    /**
+     * Takes the requested quantity in one conditional update, so concurrent orders
+     * cannot sell the same stock twice. The row stays locked until the order commits.
+     */
+    private Inventory reserveInventory(Product product, int requestedQuantity) {
+        return inventoryRepository.adjustQuantity(product.getId(), -requestedQuantity)
                 .orElseThrow(() -> new IllegalArgumentException("Product '" + product.getName() + "' is out of stock"));
-
-        if (inventory.getQuantity() < requestedQuantity) {
-            throw new IllegalArgumentException("Product '" + product.getName() + "' is out of stock");
-        }
-
-        inventory.setQuantity(inventory.getQuantity() - requestedQuantity);
-        return inventory;
     }
 
-    private void invalidateProductCache(Long productId) {
+    /**
+     * Publishes a reserved quantity to the cache once the order commits, so hot
+     * products keep hitting the cache while they sell. {@code stamp} is taken while
+     * the inventory row is locked, so a publish overtaken by a later order is dropped.
+     */
+    private void writeThroughStock(Inventory inventory, long stamp) {
+        Long productId = inventory.getProductId();
         cacheManager.invalidate("prod:" + productId);
-        cacheManager.invalidate("invent:" + productId);
-        cacheManager.invalidate("invent:" + productId);
+        cacheManager.invalidate("inventory:" + inventory.getId());
+        cacheManager.writeThrough("invent:" + productId, inventory.getQuantity(), () ->
+                inventoryRepository.findByProductId(productId)
+                        .map(Inventory::getQuantity)
+                        .orElse(0), stamp);
+        stockIndex.set(productId, inventory.getQuantity(), inventory.getVersion());
     }
 
     private OrderResponseDTO buildOrderResponse(Order order, List<OrderItem> items) {
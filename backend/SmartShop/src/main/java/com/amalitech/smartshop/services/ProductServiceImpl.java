@@ -1,12 +1,20 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.CatalogEngine;
+import com.amalitech.smartshop.cache.CatalogSnapshot;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.dtos.requests.AddProductDTO;
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
 import com.amalitech.smartshop.dtos.requests.UpdateProductDTO;
+import com.amalitech.smartshop.dtos.responses.CursorPage;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse;
+import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
 import com.amalitech.smartshop.entities.Category;
 import com.amalitech.smartshop.entities.Inventory;
 import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
 import com.amalitech.smartshop.exceptions.ConstraintViolationException;
 import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
@@ -15,13 +23,18 @@ import com.amalitech.smartshop.interfaces.InventoryRepository;
 import com.amalitech.smartshop.interfaces.ProductRepository;
 import com.amalitech.smartshop.interfaces.ProductService;
 import com.amalitech.smartshop.mappers.ProductMapper;
+import com.amalitech.smartshop.search.ProductSearchIndex;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Implementation of the ProductService interface.
@@ -38,6 +51,9 @@ public class ProductServiceImpl implements ProductService {
     private final CategoryRepository categoryRepository;
     private final InventoryRepository inventoryRepository;
     private final CacheManager cacheManager;
+    private final StockIndex stockIndex;
+    private final CatalogEngine catalogEngine;
+    private final ProductSearchIndex productSearchIndex;
 
     @Override
     public ProductResponseDTO addProduct(AddProductDTO addProductDTO, Long userId, String userRole) {
@@ -57,6 +73,9 @@ public class ProductServiceImpl implements ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
+        cacheManager.invalidate("prod:" + savedProduct.getId());
+        invalidateProductListings(savedProduct);
+        indexProduct(savedProduct);
         
         ProductResponseDTO response = productMapper.toResponseDTO(savedProduct);
         response.setCategoryName(category.getName());
@@ -69,12 +88,24 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Page<ProductResponseDTO> getAllProducts(Pageable pageable, boolean isAdmin) {
+        CatalogSnapshot snapshot = catalogEngine.current();
+        if (snapshot != null) {
+            return snapshot.page(pageable);
+        }
         Page<Product> productPage = productRepository.findAll(pageable);
         return mapProductPageToResponse(productPage);
     }
 
     @Override
     public Page<ProductResponseDTO> getProductsByCategory(Long categoryId, Pageable pageable, boolean isAdmin) {
+        CatalogSnapshot snapshot = catalogEngine.current();
+        if (snapshot != null) {
+            // A category created since the last poll is not in the snapshot yet
+            if (!snapshot.hasCategory(categoryId) && categoryRepository.findById(categoryId).isEmpty()) {
+                throw new ResourceNotFoundException("Category not found with ID: " + categoryId);
+            }
+            return snapshot.pageByCategory(categoryId, pageable);
+        }
         categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + categoryId));
 
@@ -84,10 +115,47 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Page<ProductResponseDTO> getProductsByVendor(Long vendorId, Pageable pageable) {
+        CatalogSnapshot snapshot = catalogEngine.current();
+        if (snapshot != null) {
+            return snapshot.pageByVendor(vendorId, pageable);
+        }
         Page<Product> productPage = productRepository.findByVendorId(vendorId, pageable);
         return mapProductPageToResponse(productPage);
     }
 
+    @Override
+    public PagedResponse<ProductResponseDTO> getSortedProducts(Long categoryId, Long vendorId,
+                                                               ProductRepository.SortField sort, boolean ascending,
+                                                               String cursor, Pageable pageable) {
+        if (categoryId != null) {
+            categoryRepository.findById(categoryId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + categoryId));
+        }
+        KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor, sort.name()) : null;
+        Page<Product> productPage = productRepository.findSorted(categoryId, vendorId, sort, ascending, after, pageable);
+        List<ProductResponseDTO> content = mapProductPageToResponse(productPage).getContent();
+
+        boolean last = after != null ? content.size() < pageable.getPageSize() : productPage.isLast();
+        String nextCursor = null;
+        if (!last && !productPage.getContent().isEmpty()) {
+            Product lastProduct = productPage.getContent().getLast();
+            nextCursor = new KeysetCursor(sort.name(), sort.cursorValue(lastProduct), lastProduct.getId()).encode();
+        }
+        return new PagedResponse<>(content, productPage.getNumber(), (int) productPage.getTotalElements(),
+                productPage.getTotalPages(), last, nextCursor);
+    }
+
+    @Override
+    public FacetedPagedResponse<ProductResponseDTO> getFacetedProducts(ProductFacetFilter filter, Pageable pageable) {
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice() > filter.maxPrice()) {
+            throw new BadRequestFormat("minPrice cannot be greater than maxPrice");
+        }
+        if (filter.minRating() != null && (filter.minRating() < 1 || filter.minRating() > 5)) {
+            throw new BadRequestFormat("minRating must be between 1 and 5");
+        }
+        return catalogEngine.require().facetedPage(filter, pageable);
+    }
+
     @Override
     public ProductResponseDTO getProductById(Long id) {
         Product product = productRepository.findById(id)
@@ -111,6 +179,7 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
 
         validateProductNameUniqueness(existingProduct, updateProductDTO.getName());
+        Long previousCategoryId = existingProduct.getCategoryId();
         
         if (updateProductDTO.getCategoryId() != null) {
             categoryRepository.findById(updateProductDTO.getCategoryId())
@@ -122,6 +191,11 @@ public class ProductServiceImpl implements ProductService {
         Product updatedProduct = productRepository.save(existingProduct);
 
         invalidateProductCache(id);
+        invalidateProductListings(updatedProduct);
+        indexProduct(updatedProduct);
+        if (!Objects.equals(updatedProduct.getCategoryId(), previousCategoryId)) {
+            cacheManager.invalidate("prod:list:cat:" + previousCategoryId);
+        }
 
         ProductResponseDTO response = productMapper.toResponseDTO(updatedProduct);
         enrichProductResponse(response, updatedProduct);
@@ -132,18 +206,57 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<ProductResponseDTO> getAllProductsList() {
-        return productRepository.findAllWithInventory().stream()
-                .map(product -> {
-                    ProductResponseDTO response = productMapper.toResponseDTO(product);
-                    Integer quantity = cacheManager.get("invent:" + product.getId(), () ->
-                            inventoryRepository.findByProductId(product.getId())
-                                    .map(Inventory::getQuantity)
-                                    .orElse(null)
-                    );
-                    response.setQuantity(quantity);
-                    return response;
-                })
+        CatalogSnapshot snapshot = catalogEngine.current();
+        if (snapshot != null) {
+            return snapshot.listWithInventory();
+        }
+        List<ProductResponseDTO> responses = productRepository.findAllWithInventory().stream()
+                .map(productMapper::toResponseDTO)
                 .toList();
+        if (!stockIndex.fillQuantities(responses, null)) {
+            for (ProductResponseDTO response : responses) {
+                response.setQuantity(cacheManager.get("invent:" + response.getId(), () ->
+                        inventoryRepository.findByProductId(response.getId())
+                                .map(Inventory::getQuantity)
+                                .orElse(null)
+                ));
+            }
+        }
+        return responses;
+    }
+
+    @Override
+    public Page<ProductResponseDTO> searchProducts(String query, Pageable pageable) {
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        CatalogSnapshot snapshot = catalogEngine.current();
+
+        List<ProductResponseDTO> products = new ArrayList<>(result.productIds().size());
+        for (Long productId : result.productIds()) {
+            ProductResponseDTO response = snapshot != null ? snapshot.find(productId) : null;
+            if (response != null) {
+                products.add(response);
+                continue;
+            }
+            productRepository.findById(productId).ifPresent(product -> {
+                ProductResponseDTO fromDatabase = productMapper.toResponseDTO(product);
+                enrichProductResponse(fromDatabase, product);
+                products.add(fromDatabase);
+            });
+        }
+        return new PageImpl<>(products, pageable, result.total());
+    }
+
+    @Override
+    public CursorPage<ProductResponseDTO> searchProductsInDatabase(String query, ProductRepository.SearchFilters filters,
+                                                                   String cursor, int size) {
+        if (size < 1) {
+            throw new BadRequestFormat("Page size must be at least 1");
+        }
+        if (filters != null && filters.minPrice() != null && filters.maxPrice() != null
+                && filters.minPrice() > filters.maxPrice()) {
+            throw new BadRequestFormat("minPrice cannot be greater than maxPrice");
+        }
+        return productRepository.search(query, filters, cursor, size);
     }
 
     @Override
@@ -156,6 +269,8 @@ public class ProductServiceImpl implements ProductService {
         try {
             productRepository.delete(product);
             invalidateProductCache(id);
+            invalidateProductListings(product);
+            productSearchIndex.deleted(id);
             log.info("Product deleted successfully: {}", id);
         } catch (Exception ex) {
             if (ex.getMessage() != null && ex.getMessage().contains("foreign key constraint")) {
@@ -167,7 +282,7 @@ public class ProductServiceImpl implements ProductService {
     }
 
     private Page<ProductResponseDTO> mapProductPageToResponse(Page<Product> productPage) {
-        return productPage.map(product -> {
+        Page<ProductResponseDTO> responsePage = productPage.map(product -> {
             ProductResponseDTO response = productMapper.toResponseDTO(product);
 
             Category category = cacheManager.get("cat:" + product.getCategoryId(), () ->
@@ -176,15 +291,19 @@ public class ProductServiceImpl implements ProductService {
             if (category != null) {
                 response.setCategoryName(category.getName());
             }
-
-            Integer quantity = cacheManager.get("invent:" + product.getId(), () ->
-                    inventoryRepository.findByProductId(product.getId())
-                            .map(Inventory::getQuantity)
-                            .orElse(0)
-            );
-            response.setQuantity(quantity);
             return response;
         });
+
+        if (!stockIndex.fillQuantities(responsePage.getContent(), 0)) {
+            for (ProductResponseDTO response : responsePage.getContent()) {
+                response.setQuantity(cacheManager.get("invent:" + response.getId(), () ->
+                        inventoryRepository.findByProductId(response.getId())
+                                .map(Inventory::getQuantity)
+                                .orElse(0)
+                ));
+            }
+        }
+        return responsePage;
     }
 
     private void validateProductNameUniqueness(Product existingProduct, String newName) {
@@ -203,8 +322,24 @@ public class ProductServiceImpl implements ProductService {
                 .ifPresent(inventory -> response.setQuantity(inventory.getQuantity()));
     }
 
+    private void indexProduct(Product product) {
+        productSearchIndex.written(product.getId(), product.getName(), product.getDescription(), product.getSku());
+    }
+
     private void invalidateProductCache(Long productId) {
         cacheManager.invalidate("prod:" + productId);
         cacheManager.invalidate("invent:" + productId);
     }
+
+    /**
+     * Evicts the cached listing pages a product may have entered, left or moved
+     * within. Listings have no stable order yet, so any write can reshuffle them.
+     */
+    private void invalidateProductListings(Product product) {
+        cacheManager.invalidate("prod:list:all");
+        cacheManager.invalidate("prod:list:cat:" + product.getCategoryId());
+        if (product.getVendorId() != null) {
+            cacheManager.invalidate("prod:list:vendor:" + product.getVendorId());
+        }
+    }
 }
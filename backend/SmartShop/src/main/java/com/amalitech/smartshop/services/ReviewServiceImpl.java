@@ -1,5 +1,7 @@
 package com.amalitech.smartshop.services;
 
+import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.config.JdbcTransactions;
 import com.amalitech.smartshop.dtos.requests.AddReviewDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateReviewDTO;
 import com.amalitech.smartshop.dtos.responses.ReviewResponseDTO;
@@ -18,6 +20,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+
+/**
+ * Review operations. Each review written, re-rated or deleted is applied to the
+ * rating aggregates on its product as a delta, so product listings show and sort by
+ * ratings without reading reviews. The review and its delta are written in one
+ * transaction, with the review row locked, so concurrent changes to the same review
+ * cannot apply a delta from a rating that was already replaced.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -26,6 +37,8 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final JdbcTransactions jdbcTransactions;
 
     @Override
     public ReviewResponseDTO addReview(AddReviewDTO request, Long userId) {
@@ -44,7 +57,12 @@ public class ReviewServiceImpl implements ReviewService {
                 .comment(request.getComment())
                 .build();
         
-        Review savedReview = reviewRepository.save(review);
+        Review savedReview = jdbcTransactions.inTransaction(() -> {
+            Review saved = reviewRepository.save(review);
+            productRepository.updateRating(product.getId(), null, saved.getRating());
+            return saved;
+        });
+        invalidateProductCaches(product);
         
         log.info("Review added successfully with id: {}", savedReview.getId());
         return mapToResponseDTO(savedReview, product.getName(), user.getFirstName() + " " + user.getLastName());
@@ -54,24 +72,28 @@ public class ReviewServiceImpl implements ReviewService {
     public ReviewResponseDTO updateReview(Long id, UpdateReviewDTO request, Long userId) {
         log.info("Updating review: {} by user: {}", id, userId);
         
-        Review review = reviewRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Review not found with ID: " + id));
-        
-        if (!review.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You can only update your own reviews");
-        }
-        
-        if (request.getRating() != null) {
-            review.setRating(request.getRating());
-        }
-        if (request.getComment() != null) {
-            review.setComment(request.getComment());
-        }
-        
-        Review updatedReview = reviewRepository.save(review);
-        
-        Product product = productRepository.findById(review.getProductId())
+        RatedReview change = jdbcTransactions.inTransaction(() -> {
+            Review review = lockOwnReview(id, userId, "You can only update your own reviews");
+            Integer previousRating = review.getRating();
+            if (request.getRating() != null) {
+                review.setRating(request.getRating());
+            }
+            if (request.getComment() != null) {
+                review.setComment(request.getComment());
+            }
+            Review saved = reviewRepository.save(review);
+            if (!Objects.equals(previousRating, saved.getRating())) {
+                productRepository.updateRating(saved.getProductId(), previousRating, saved.getRating());
+            }
+            return new RatedReview(saved, previousRating);
+        });
+        Review updatedReview = change.review();
+        
+        Product product = productRepository.findById(updatedReview.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        if (!Objects.equals(change.previousRating(), updatedReview.getRating())) {
+            invalidateProductCaches(product);
+        }
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         
@@ -83,14 +105,13 @@ public class ReviewServiceImpl implements ReviewService {
     public void deleteReview(Long id, Long userId) {
         log.info("Deleting review: {} by user: {}", id, userId);
         
-        Review review = reviewRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Review not found with ID: " + id));
-        
-        if (!review.getUserId().equals(userId)) {
-            throw new UnauthorizedException("You can only delete your own reviews");
-        }
-        
-        reviewRepository.deleteById(id);
+        Review review = jdbcTransactions.inTransaction(() -> {
+            Review deleted = lockOwnReview(id, userId, "You can only delete your own reviews");
+            reviewRepository.deleteById(id);
+            productRepository.updateRating(deleted.getProductId(), deleted.getRating(), null);
+            return deleted;
+        });
+        productRepository.findById(review.getProductId()).ifPresent(this::invalidateProductCaches);
         log.info("Review deleted successfully: {}", id);
     }
 
@@ -131,6 +152,32 @@ public class ReviewServiceImpl implements ReviewService {
                 .map(this::mapToResponseDTOWithLookup);
     }
 
+    /**
+     * Locks a review for the rest of the transaction; a review deleted meanwhile is
+     * reported as not found.
+     */
+    private Review lockOwnReview(Long id, Long userId, String notOwnerMessage) {
+        Review review = reviewRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found with ID: " + id));
+        if (!review.getUserId().equals(userId)) {
+            throw new UnauthorizedException(notOwnerMessage);
+        }
+        return review;
+    }
+
+    /**
+     * Evicts the cached product and the listings it appears in, which a rating
+     * sort may have reordered.
+     */
+    private void invalidateProductCaches(Product product) {
+        cacheManager.invalidate("prod:" + product.getId());
+        cacheManager.invalidate("prod:list:all");
+        cacheManager.invalidate("prod:list:cat:" + product.getCategoryId());
+        if (product.getVendorId() != null) {
+            cacheManager.invalidate("prod:list:vendor:" + product.getVendorId());
+        }
+    }
+
     private ReviewResponseDTO mapToResponseDTO(Review review, String productName, String userName) {
         return ReviewResponseDTO.builder()
                 .id(review.getId())
@@ -154,4 +201,7 @@ public class ReviewServiceImpl implements ReviewService {
         
         return mapToResponseDTO(review, productName, userName);
     }
+
+    private record RatedReview(Review review, Integer previousRating) {
+    }
 }
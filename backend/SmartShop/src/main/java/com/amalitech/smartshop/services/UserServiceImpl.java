@@ -1,17 +1,21 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.config.JdbcTransactions;
 import com.amalitech.smartshop.dtos.requests.LoginDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateUserDTO;
 import com.amalitech.smartshop.dtos.requests.UserRegistrationDTO;
 import com.amalitech.smartshop.dtos.responses.LoginResponseDTO;
 import com.amalitech.smartshop.dtos.responses.UserSummaryDTO;
 import com.amalitech.smartshop.entities.Order;
+import com.amalitech.smartshop.entities.OrderItem;
+import com.amalitech.smartshop.enums.OrderStatus;
 import com.amalitech.smartshop.entities.User;
 import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.interfaces.OrderItemRepository;
 import com.amalitech.smartshop.interfaces.OrderRepository;
+import com.amalitech.smartshop.interfaces.SalesRollupRepository;
 import com.amalitech.smartshop.interfaces.UserRepository;
 import com.amalitech.smartshop.interfaces.UserService;
 import com.amalitech.smartshop.interfaces.SessionService;
@@ -41,6 +45,8 @@ public class UserServiceImpl implements UserService {
     private final CacheManager cacheManager;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final JdbcTransactions jdbcTransactions;
 
     private final SessionService sessionService;
 
@@ -128,13 +134,21 @@ public class UserServiceImpl implements UserService {
         String email = user.getEmail();
 
         List<Order> orders = orderRepository.findByUserId(id);
+        jdbcTransactions.runInTransaction(() -> {
+            for (Order order : orders) {
+                List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+                orderItemRepository.deleteAll(items);
+                // Deleted orders leave the sales rollups unless they were already cancelled
+                orderRepository.delete(order)
+                        .filter(status -> status != OrderStatus.CANCELLED)
+                        .ifPresent(status -> salesRollupRepository.reverse(order.getCreatedAt().toLocalDate(), items));
+            }
+            userRepository.delete(user);
+        });
+
         for (Order order : orders) {
-            orderItemRepository.deleteAll(orderItemRepository.findByOrderId(order.getId()));
-            orderRepository.delete(order);
             cacheManager.invalidate("ord:" + order.getId());
         }
-
-        userRepository.delete(user);
         cacheManager.invalidate("usr:" + id);
         cacheManager.invalidate("usr:" + email);
         
@@ -0,0 +1,73 @@
+package com.amalitech.smartshop.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts held as a {@code long} number of cents.
+ * <p>
+ * Entities keep prices and totals in cents so sums, comparisons and sorts are exact
+ * integer arithmetic on primitives: no boxing and no floating-point drift across
+ * many items. Amounts become decimals only where they leave the application, as
+ * {@code DECIMAL(10,2)} columns through JDBC and as numbers in JSON and GraphQL.
+ */
+public final class Money {
+
+    private static final int SCALE = 2;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount, such as a {@code DECIMAL(10,2)} column, to cents,
+     * rounding half-up past the second decimal place.
+     */
+    public static long ofDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts an amount received as a JSON or GraphQL number to cents, rounding the
+     * decimal it was written as half-up, so {@code 0.285} becomes 29 cents.
+     */
+    public static long ofDecimal(double amount) {
+        return ofDecimal(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Recovers the cents of a double that already holds a whole number of cents,
+     * such as one produced by {@link #toDouble}, without allocating.
+     */
+    public static long ofExactDouble(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    /**
+     * Returns the amount as a decimal with two places, for JDBC parameters and cursors.
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Returns the amount as the double closest to its decimal value, for response DTOs.
+     */
+    public static double toDouble(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    /**
+     * Returns the price of {@code quantity} units, failing on overflow instead of wrapping.
+     */
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Returns the sum of two amounts, failing on overflow instead of wrapping.
+     */
+    public static long plus(long cents, long otherCents) {
+        return Math.addExact(cents, otherCents);
+    }
+}
@@ -0,0 +1,103 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stable merge sort that starts from the runs already present in the input.
+ * <p>
+ * Ascending runs are taken as they are and strictly descending ones reversed;
+ * runs shorter than {@link #MIN_RUN} are extended by binary insertion. Adjacent
+ * runs are then merged pairwise, passing back and forth between the array and a
+ * single buffer allocated once. A list that is already in order is one run and
+ * costs n - 1 comparisons; in general the cost is O(n log r) for r runs.
+ */
+public class AdaptiveMergeSort {
+
+    static final int MIN_RUN = 32;
+
+    public static <T> void sort(List<T> list, Comparator<T> comparator) {
+        if (list == null || list.size() <= 1) return;
+        Object[] a = list.toArray();
+        sort(a, 0, a.length, new Object[a.length], SortSupport.erase(comparator));
+        SortSupport.writeBack(list, a);
+    }
+
+    /** Sorts {@code a[from, to)}, using the same range of {@code buffer} as scratch space. */
+    static void sort(Object[] a, int from, int to, Object[] buffer, Comparator<Object> comparator) {
+        int n = to - from;
+        if (n <= 1) return;
+
+        int[] bounds = new int[n / MIN_RUN + 2];
+        int runs = 0;
+        for (int start = from; start < to; ) {
+            int end = runEnd(a, start, to, comparator);
+            if (end - start < MIN_RUN) {
+                int forced = Math.min(to, start + MIN_RUN);
+                SortSupport.binaryInsertionSort(a, start, end, forced, comparator);
+                end = forced;
+            }
+            bounds[runs++] = start;
+            start = end;
+        }
+        bounds[runs] = to;
+
+        Object[] source = a;
+        Object[] target = buffer;
+        while (runs > 1) {
+            int merged = 0;
+            for (int r = 0; r < runs; r += 2) {
+                int lo = bounds[r];
+                if (r + 1 < runs) {
+                    merge(source, lo, bounds[r + 1], bounds[r + 2], target, comparator);
+                } else {
+                    System.arraycopy(source, lo, target, lo, bounds[r + 1] - lo);
+                }
+                bounds[merged++] = lo;
+            }
+            bounds[merged] = to;
+            runs = merged;
+            Object[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != a) {
+            System.arraycopy(source, from, a, from, n);
+        }
+    }
+
+    /** Returns the end of the run starting at {@code start}, reversing it first if it descends. */
+    private static int runEnd(Object[] a, int start, int to, Comparator<Object> comparator) {
+        int end = start + 1;
+        if (end == to) return end;
+        if (comparator.compare(a[end++], a[start]) < 0) {
+            while (end < to && comparator.compare(a[end], a[end - 1]) < 0) end++;
+            // Strictly descending, so reversing it cannot reorder equal elements
+            for (int i = start, j = end - 1; i < j; i++, j--) {
+                Object temp = a[i];
+                a[i] = a[j];
+                a[j] = temp;
+            }
+        } else {
+            while (end < to && comparator.compare(a[end], a[end - 1]) >= 0) end++;
+        }
+        return end;
+    }
+
+    /** Merges the sorted ranges {@code source[lo, mid)} and {@code source[mid, hi)} into {@code target[lo, hi)}. */
+    static void merge(Object[] source, int lo, int mid, int hi, Object[] target, Comparator<Object> comparator) {
+        if (comparator.compare(source[mid - 1], source[mid]) <= 0) {
+            System.arraycopy(source, lo, target, lo, hi - lo);
+            return;
+        }
+        int i = lo;
+        int j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && comparator.compare(source[i], source[j]) <= 0)) {
+                target[k] = source[i++];
+            } else {
+                target[k] = source[j++];
+            }
+        }
+    }
+}
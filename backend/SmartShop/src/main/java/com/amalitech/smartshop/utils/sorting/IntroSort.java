@@ -0,0 +1,95 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Quicksort with median-of-three pivots that falls back to heapsort once the
+ * recursion gets deeper than {@code 2 log2 n}, so it stays O(n log n) on any
+ * input, including the already sorted lists the database returns. Recursing into
+ * the smaller side only keeps the stack O(log n). Not stable.
+ */
+public class IntroSort {
+
+    public static <T> void sort(List<T> list, Comparator<T> comparator) {
+        if (list == null || list.size() <= 1) return;
+        Object[] a = list.toArray();
+        sort(a, 0, a.length, SortSupport.erase(comparator));
+        SortSupport.writeBack(list, a);
+    }
+
+    static void sort(Object[] a, int from, int to, Comparator<Object> comparator) {
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(to - from));
+        introSort(a, from, to, depthLimit, comparator);
+    }
+
+    private static void introSort(Object[] a, int from, int to, int depthLimit, Comparator<Object> comparator) {
+        while (to - from > SortSupport.INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, from, to, comparator);
+                return;
+            }
+            int split = partition(a, from, to - 1, comparator);
+            if (split - from < to - split) {
+                introSort(a, from, split, depthLimit, comparator);
+                from = split;
+            } else {
+                introSort(a, split, to, depthLimit, comparator);
+                to = split;
+            }
+        }
+        SortSupport.binaryInsertionSort(a, from, from + 1, to, comparator);
+    }
+
+    /**
+     * Hoare partition of {@code a[lo, hi]} around the median of its first, middle
+     * and last elements; returns the start of the upper part. Both parts are non-empty.
+     */
+    private static int partition(Object[] a, int lo, int hi, Comparator<Object> comparator) {
+        int mid = (lo + hi) >>> 1;
+        if (comparator.compare(a[mid], a[lo]) < 0) swap(a, mid, lo);
+        if (comparator.compare(a[hi], a[mid]) < 0) {
+            swap(a, hi, mid);
+            if (comparator.compare(a[mid], a[lo]) < 0) swap(a, mid, lo);
+        }
+        Object pivot = a[mid];
+        int i = lo - 1;
+        int j = hi + 1;
+        while (true) {
+            do i++; while (comparator.compare(a[i], pivot) < 0);
+            do j--; while (comparator.compare(a[j], pivot) > 0);
+            if (i >= j) return j + 1;
+            swap(a, i, j);
+        }
+    }
+
+    private static void heapSort(Object[] a, int from, int to, Comparator<Object> comparator) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, from, i, n, comparator);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, from, from + end);
+            siftDown(a, from, 0, end, comparator);
+        }
+    }
+
+    private static void siftDown(Object[] a, int base, int index, int size, Comparator<Object> comparator) {
+        Object element = a[base + index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && comparator.compare(a[base + child + 1], a[base + child]) > 0) child++;
+            if (comparator.compare(a[base + child], element) <= 0) break;
+            a[base + index] = a[base + child];
+            index = child;
+        }
+        a[base + index] = element;
+    }
+
+    private static void swap(Object[] a, int i, int j) {
+        Object temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+}
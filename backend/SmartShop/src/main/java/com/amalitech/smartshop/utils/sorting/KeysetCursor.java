@@ -0,0 +1,40 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page in a listing sorted by one column, ties
+ * broken by ID. Clients receive it as an opaque URL-safe string and pass it back
+ * to read the next page with {@code WHERE (column, id) > (value, id)} instead of
+ * an offset, so deep pages cost the same as the first and rows inserted meanwhile
+ * neither repeat nor go missing.
+ *
+ * @param sortKey the sort the cursor was issued for; it is rejected for any other
+ * @param value the sort column's value in the last row, as text
+ * @param id the ID of the last row
+ */
+public record KeysetCursor(String sortKey, String value, long id) {
+
+    public String encode() {
+        String raw = sortKey + "\n" + id + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor, String expectedSortKey) {
+        String[] parts;
+        long id;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+            id = parts.length == 3 ? Long.parseLong(parts[1]) : 0;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormat("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(expectedSortKey)) {
+            throw new BadRequestFormat("Cursor does not belong to a listing sorted by " + expectedSortKey);
+        }
+        return new KeysetCursor(parts[0], parts[2], id);
+    }
+}
@@ -0,0 +1,60 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort that sorts the two halves of large ranges as parallel tasks
+ * on the common {@link ForkJoinPool}. Ranges below {@link #SEQUENTIAL_THRESHOLD}
+ * are sorted by {@link AdaptiveMergeSort}; everything shares one buffer.
+ */
+public class ParallelMergeSort {
+
+    /** Ranges shorter than this are not split further; forking them costs more than it saves. */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    public static <T> void sort(List<T> list, Comparator<T> comparator) {
+        if (list == null || list.size() <= 1) return;
+        Object[] a = list.toArray();
+        Comparator<Object> erased = SortSupport.erase(comparator);
+        Object[] buffer = new Object[a.length];
+        if (a.length < SEQUENTIAL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            AdaptiveMergeSort.sort(a, 0, a.length, buffer, erased);
+        } else {
+            ForkJoinPool.commonPool().invoke(new SortTask(a, buffer, 0, a.length, erased));
+        }
+        SortSupport.writeBack(list, a);
+    }
+
+    private static final class SortTask extends RecursiveAction {
+
+        private final Object[] a;
+        private final Object[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<Object> comparator;
+
+        SortTask(Object[] a, Object[] buffer, int from, int to, Comparator<Object> comparator) {
+            this.a = a;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < SEQUENTIAL_THRESHOLD) {
+                AdaptiveMergeSort.sort(a, from, to, buffer, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(a, buffer, from, mid, comparator), new SortTask(a, buffer, mid, to, comparator));
+            if (comparator.compare(a[mid - 1], a[mid]) <= 0) return;
+            AdaptiveMergeSort.merge(a, from, mid, to, buffer, comparator);
+            System.arraycopy(buffer, from, a, from, to - from);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stable sort of a list by a numeric key, without comparisons.
+ * <p>
+ * Every element's key is read once into a {@code long[]}; an LSD radix sort, one
+ * byte per pass, then orders an index permutation alongside the keys, and the
+ * list is rewritten in that order. Passes over a byte that every key shares are
+ * skipped, so small integer keys cost two or three passes rather than eight.
+ * Callers scale decimal keys to whole units, such as cents, and timestamp keys
+ * go through {@link #epochNanos}, which maps them to longs with the same ordering.
+ */
+public class RadixSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, ToLongFunction<? super T> key, boolean ascending) {
+        if (list == null || list.size() <= 1) return;
+        Object[] elements = list.toArray();
+        long[] keys = new long[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            // Flipping the sign bit makes signed order unsigned; inverting every bit reverses it
+            long unsigned = key.applyAsLong((T) elements[i]) ^ Long.MIN_VALUE;
+            keys[i] = ascending ? unsigned : ~unsigned;
+        }
+
+        int[] order = sortedOrder(keys);
+
+        ListIterator<T> it = list.listIterator();
+        for (int index : order) {
+            it.next();
+            it.set((T) elements[index]);
+        }
+    }
+
+    /** Nanoseconds since the epoch, reading the timestamp as UTC; a null sorts first. */
+    public static long epochNanos(LocalDateTime value) {
+        if (value == null) return Long.MIN_VALUE;
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + value.getNano();
+    }
+
+    /** Returns the positions of {@code keys} in ascending unsigned order, equal keys by position. */
+    private static int[] sortedOrder(long[] keys) {
+        int n = keys.length;
+        int[][] counts = new int[PASSES][BUCKETS];
+        for (long key : keys) {
+            for (int pass = 0; pass < PASSES; pass++) {
+                counts[pass][(int) (key >>> (pass * RADIX_BITS)) & (BUCKETS - 1)]++;
+            }
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        long[] keyBuffer = new long[n];
+        int[] orderBuffer = new int[n];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            int[] count = counts[pass];
+            if (count[(int) (keys[0] >>> shift) & (BUCKETS - 1)] == n) {
+                continue;
+            }
+            int offset = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                int c = count[bucket];
+                count[bucket] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = keys[i];
+                int target = count[(int) (key >>> shift) & (BUCKETS - 1)]++;
+                keyBuffer[target] = key;
+                orderBuffer[target] = order[i];
+            }
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+        return order;
+    }
+}
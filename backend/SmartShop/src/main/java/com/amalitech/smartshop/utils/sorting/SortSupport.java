@@ -0,0 +1,52 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Helpers shared by the array-based sorts: they sort a copy of the list as an
+ * {@code Object[]}, which avoids a bounds-checked {@code get}/{@code set} per
+ * access and works for any list, then write the result back in one pass.
+ */
+final class SortSupport {
+
+    /** Inputs at most this long are sorted by insertion, which beats splitting them further. */
+    static final int INSERTION_THRESHOLD = 16;
+
+    private SortSupport() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Comparator<Object> erase(Comparator<T> comparator) {
+        return (Comparator<Object>) comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> void writeBack(List<T> list, Object[] sorted) {
+        ListIterator<T> it = list.listIterator();
+        for (Object element : sorted) {
+            it.next();
+            it.set((T) element);
+        }
+    }
+
+    /** Stable binary insertion sort of {@code a[from, to)}, whose prefix {@code [from, sortedTo)} is already sorted. */
+    static void binaryInsertionSort(Object[] a, int from, int sortedTo, int to, Comparator<Object> comparator) {
+        for (int i = Math.max(sortedTo, from + 1); i < to; i++) {
+            Object element = a[i];
+            int lo = from;
+            int hi = i;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(element, a[mid]) < 0) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            System.arraycopy(a, lo, a, lo + 1, i - lo);
+            a[lo] = element;
+        }
+    }
+}
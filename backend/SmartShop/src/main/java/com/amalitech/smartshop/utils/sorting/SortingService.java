@@ -2,20 +2,34 @@ package com.amalitech.smartshop.utils.sorting;
 
 import com.amalitech.smartshop.dtos.responses.OrderResponseDTO;
 import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.utils.Money;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.ToLongFunction;
 
 @Service
 public class SortingService {
 
+    /**
+     * In-memory sort strategies. RADIX sorts numeric fields by {@link RadixSort} and
+     * text fields like ADAPTIVE_MERGESORT. AUTO uses RADIX for numeric fields from
+     * {@link #RADIX_THRESHOLD} elements; otherwise it picks {@link AdaptiveMergeSort}
+     * below {@link #PARALLEL_THRESHOLD} elements and {@link ParallelMergeSort} from there on.
+     */
     public enum SortAlgorithm {
-        QUICKSORT, MERGESORT
+        QUICKSORT, MERGESORT, INTROSORT, ADAPTIVE_MERGESORT, PARALLEL_MERGESORT, RADIX, AUTO
     }
 
+    /** Size from which AUTO sorts in parallel; smaller lists do not repay the task overhead. */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Size from which AUTO sorts numeric fields by radix; below it the fixed passes cost more than comparing. */
+    static final int RADIX_THRESHOLD = 1 << 8;
+
     public enum ProductSortField {
-        NAME, PRICE, QUANTITY
+        NAME, PRICE, QUANTITY, RATING
     }
 
     public enum OrderSortField {
@@ -24,40 +38,100 @@ public class SortingService {
 
     public void sortProducts(List<ProductResponseDTO> products, ProductSortField field,
                              boolean ascending, SortAlgorithm algorithm) {
-        Comparator<ProductResponseDTO> comparator = getProductComparator(field, ascending);
-
-        if (algorithm == SortAlgorithm.QUICKSORT) {
-            QuickSort.sort(products, comparator);
+        ToLongFunction<ProductResponseDTO> key = getProductKey(field);
+        if (key != null && usesRadix(algorithm, products.size())) {
+            RadixSort.sort(products, key, ascending);
         } else {
-            MergeSort.sort(products, comparator);
+            sort(products, getProductComparator(field, ascending), algorithm);
         }
     }
 
     public void sortOrders(List<OrderResponseDTO> orders, OrderSortField field,
                            boolean ascending, SortAlgorithm algorithm) {
-        Comparator<OrderResponseDTO> comparator = getOrderComparator(field, ascending);
-
-        if (algorithm == SortAlgorithm.QUICKSORT) {
-            QuickSort.sort(orders, comparator);
+        if (usesRadix(algorithm, orders.size())) {
+            RadixSort.sort(orders, getOrderKey(field), ascending);
         } else {
-            MergeSort.sort(orders, comparator);
+            sort(orders, getOrderComparator(field, ascending), algorithm);
         }
     }
 
+    private static boolean usesRadix(SortAlgorithm algorithm, int size) {
+        return algorithm == SortAlgorithm.RADIX || (algorithm == SortAlgorithm.AUTO && size >= RADIX_THRESHOLD);
+    }
+
+    static <T> void sort(List<T> list, Comparator<T> comparator, SortAlgorithm algorithm) {
+        if (algorithm == null) {
+            algorithm = SortAlgorithm.MERGESORT;
+        } else if (algorithm == SortAlgorithm.AUTO) {
+            algorithm = list.size() < PARALLEL_THRESHOLD ? SortAlgorithm.ADAPTIVE_MERGESORT : SortAlgorithm.PARALLEL_MERGESORT;
+        }
+        switch (algorithm) {
+            case QUICKSORT -> QuickSort.sort(list, comparator);
+            case MERGESORT -> MergeSort.sort(list, comparator);
+            case INTROSORT -> IntroSort.sort(list, comparator);
+            // RADIX reaches here only for fields without a numeric key
+            case ADAPTIVE_MERGESORT, RADIX -> AdaptiveMergeSort.sort(list, comparator);
+            case PARALLEL_MERGESORT -> ParallelMergeSort.sort(list, comparator);
+        }
+    }
+
+    /**
+     * Returns the first {@code k} products in the given order without sorting the
+     * whole list; the list itself is not reordered.
+     */
+    public List<ProductResponseDTO> topK(List<ProductResponseDTO> products, ProductSortField field,
+                                         boolean ascending, int k) {
+        return TopK.select(products, getProductComparator(field, ascending), k);
+    }
+
     private Comparator<ProductResponseDTO> getProductComparator(ProductSortField field, boolean ascending) {
         Comparator<ProductResponseDTO> comparator = switch (field) {
             case NAME -> Comparator.comparing(ProductResponseDTO::getName);
-            case PRICE -> Comparator.comparing(ProductResponseDTO::getPrice);
+            case PRICE -> Comparator.comparingLong(p -> cents(p.getPrice()));
             case QUANTITY -> Comparator.comparing(p -> p.getQuantity() != null ? p.getQuantity() : 0);
+            case RATING -> Comparator.comparingLong(p -> hundredths(p.getAverageRating()));
         };
         return ascending ? comparator : comparator.reversed();
     }
 
+    /** Returns the field as a long with the same ordering as its comparator, or null for text fields. */
+    private ToLongFunction<ProductResponseDTO> getProductKey(ProductSortField field) {
+        return switch (field) {
+            case NAME -> null;
+            case PRICE -> p -> cents(p.getPrice());
+            case QUANTITY -> p -> p.getQuantity() != null ? p.getQuantity() : 0;
+            case RATING -> p -> hundredths(p.getAverageRating());
+        };
+    }
+
+    private ToLongFunction<OrderResponseDTO> getOrderKey(OrderSortField field) {
+        return switch (field) {
+            case TOTAL_AMOUNT -> o -> cents(o.getTotalAmount());
+            case CREATED_AT -> o -> RadixSort.epochNanos(o.getCreatedAt());
+        };
+    }
+
     private Comparator<OrderResponseDTO> getOrderComparator(OrderSortField field, boolean ascending) {
         Comparator<OrderResponseDTO> comparator = switch (field) {
-            case TOTAL_AMOUNT -> Comparator.comparing(OrderResponseDTO::getTotalAmount);
+            case TOTAL_AMOUNT -> Comparator.comparingLong(o -> cents(o.getTotalAmount()));
             case CREATED_AT -> Comparator.comparing(OrderResponseDTO::getCreatedAt);
         };
         return ascending ? comparator : comparator.reversed();
     }
+
+    /**
+     * Compares amounts as whole cents, which DTO amounts always are, so price sorts
+     * and radix keys are plain long comparisons; a null sorts first.
+     */
+    private static long cents(Double amount) {
+        return amount != null ? Money.ofExactDouble(amount) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Compares average ratings as whole hundredths, which DTO averages are rounded
+     * to; an unrated product sorts first.
+     */
+    private static long hundredths(Double averageRating) {
+        return averageRating != null ? Math.round(averageRating * 100) : Long.MIN_VALUE;
+    }
 }
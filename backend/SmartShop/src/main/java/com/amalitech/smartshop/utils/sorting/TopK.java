@@ -0,0 +1,99 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects the first {@code k} elements of a list in comparator order without
+ * sorting the rest.
+ * <p>
+ * A max-heap holds the best {@code k} elements seen so far with the worst of them
+ * at the root, so each further element costs one comparison against the root and,
+ * only if it beats it, an O(log k) sift. That is O(n log k) time and O(k) extra
+ * memory, against O(n log n) for sorting the whole list. Ties are broken by list
+ * position, so the result matches the head of a stable sort.
+ */
+public class TopK {
+
+    /**
+     * Returns the first {@code k} elements of {@code list} in {@code comparator}
+     * order, as a new list; the input is left untouched.
+     */
+    public static <T> List<T> select(List<T> list, Comparator<T> comparator, int k) {
+        if (list == null || list.isEmpty() || k <= 0) return new ArrayList<>();
+        int capacity = Math.min(k, list.size());
+        Object[] heap = new Object[capacity];
+        int[] positions = new int[capacity];
+
+        int count = 0;
+        int position = 0;
+        for (T element : list) {
+            if (count < capacity) {
+                heap[count] = element;
+                positions[count] = position;
+                siftUp(heap, positions, count++, comparator);
+            } else if (comparator.compare(element, cast(heap[0])) < 0) {
+                // A later element only displaces the root if strictly better, keeping ties stable
+                heap[0] = element;
+                positions[0] = position;
+                siftDown(heap, positions, 0, capacity, comparator);
+            }
+            position++;
+        }
+
+        // Heapsort in place: moving the worst remaining element to the back leaves the heap in order
+        for (int end = capacity - 1; end > 0; end--) {
+            swap(heap, positions, 0, end);
+            siftDown(heap, positions, 0, end, comparator);
+        }
+
+        List<T> result = new ArrayList<>(capacity);
+        for (Object element : heap) {
+            result.add(cast(element));
+        }
+        return result;
+    }
+
+    private static <T> void siftUp(Object[] heap, int[] positions, int index, Comparator<T> comparator) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(heap, positions, index, parent, comparator) <= 0) return;
+            swap(heap, positions, index, parent);
+            index = parent;
+        }
+    }
+
+    private static <T> void siftDown(Object[] heap, int[] positions, int index, int size, Comparator<T> comparator) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && compare(heap, positions, left, worst, comparator) > 0) worst = left;
+            if (right < size && compare(heap, positions, right, worst, comparator) > 0) worst = right;
+            if (worst == index) return;
+            swap(heap, positions, index, worst);
+            index = worst;
+        }
+    }
+
+    /** Orders heap slots by the comparator, then by list position (later is worse). */
+    private static <T> int compare(Object[] heap, int[] positions, int a, int b, Comparator<T> comparator) {
+        int byValue = comparator.compare(cast(heap[a]), cast(heap[b]));
+        return byValue != 0 ? byValue : Integer.compare(positions[a], positions[b]);
+    }
+
+    private static void swap(Object[] heap, int[] positions, int i, int j) {
+        Object element = heap[i];
+        heap[i] = heap[j];
+        heap[j] = element;
+        int position = positions[i];
+        positions[i] = positions[j];
+        positions[j] = position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object element) {
+        return (T) element;
+    }
+}
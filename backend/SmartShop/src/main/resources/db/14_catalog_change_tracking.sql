@@ -0,0 +1,63 @@
+-- Change tracking for the in-memory catalog snapshot, which polls products,
+-- inventory and categories by updated_at and applies the changed rows
+
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_products_updated_at ON products(updated_at);
+CREATE INDEX IF NOT EXISTS idx_inventory_updated_at ON inventory(updated_at);
+CREATE INDEX IF NOT EXISTS idx_categories_updated_at ON categories(updated_at);
+
+-- Stock is written by both inventory and order updates, so a trigger keeps updated_at current
+CREATE OR REPLACE FUNCTION touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at = NOW();
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_touch_updated_at ON inventory;
+CREATE TRIGGER trg_inventory_touch_updated_at
+    BEFORE UPDATE ON inventory
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+-- Deleted rows leave no updated_at to poll, so deletions are recorded here.
+-- Inventory deletions are keyed by product_id, the key the snapshot holds stock under.
+CREATE TABLE IF NOT EXISTS catalog_deletions (
+    id BIGSERIAL PRIMARY KEY,
+    table_name VARCHAR(32) NOT NULL,
+    row_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_deletions_deleted_at ON catalog_deletions(deleted_at);
+
+CREATE OR REPLACE FUNCTION record_catalog_deletion() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'inventory' THEN
+        INSERT INTO catalog_deletions (table_name, row_id, deleted_at) VALUES (TG_TABLE_NAME, OLD.product_id, NOW());
+    ELSE
+        INSERT INTO catalog_deletions (table_name, row_id, deleted_at) VALUES (TG_TABLE_NAME, OLD.id, NOW());
+    END IF;
+    RETURN OLD;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_products_record_deletion ON products;
+CREATE TRIGGER trg_products_record_deletion
+    AFTER DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION record_catalog_deletion();
+
+DROP TRIGGER IF EXISTS trg_categories_record_deletion ON categories;
+CREATE TRIGGER trg_categories_record_deletion
+    AFTER DELETE ON categories
+    FOR EACH ROW EXECUTE FUNCTION record_catalog_deletion();
+
+DROP TRIGGER IF EXISTS trg_inventory_record_deletion ON inventory;
+CREATE TRIGGER trg_inventory_record_deletion
+    AFTER DELETE ON inventory
+    FOR EACH ROW EXECUTE FUNCTION record_catalog_deletion();
+
+-- Moving an inventory row to another product removes the stock of the old one
+DROP TRIGGER IF EXISTS trg_inventory_record_move ON inventory;
+CREATE TRIGGER trg_inventory_record_move
+    AFTER UPDATE OF product_id ON inventory
+    FOR EACH ROW WHEN (OLD.product_id IS DISTINCT FROM NEW.product_id)
+    EXECUTE FUNCTION record_catalog_deletion();
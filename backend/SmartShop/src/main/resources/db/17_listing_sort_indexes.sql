@@ -0,0 +1,15 @@
+-- Indexes behind the whitelisted ORDER BY columns of product and order listings.
+-- The trailing id is the keyset tie-breaker, so sorted pages are read in index
+-- order from the cursor onwards rather than sorted after a full scan.
+-- Vendor listings are small enough to sort after the vendor_id index lookup.
+
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products(price, id);
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products(name, id);
+CREATE INDEX IF NOT EXISTS idx_products_created_at_id ON products(created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_products_category_price_id ON products(category_id, price, id);
+CREATE INDEX IF NOT EXISTS idx_products_category_name_id ON products(category_id, name, id);
+CREATE INDEX IF NOT EXISTS idx_products_category_created_at_id ON products(category_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_orders_total_amount_id ON orders(total_amount, id);
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id ON orders(created_at, id);
@@ -0,0 +1,54 @@
+-- Daily sales per product and per category, maintained by the order service as
+-- orders are placed, cancelled, reinstated or deleted. Analytics read only these
+-- tables, so their cost depends on the date range asked for, not on order history.
+-- Cancelled orders are not counted. Amounts are in cents.
+-- Sales count towards the category the product was in when the order was placed,
+-- which each order item records, so moving a product leaves past sales in place.
+
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS category_id BIGINT;
+
+-- Items ordered before the column existed take their product's current category
+UPDATE order_items oi
+SET category_id = p.category_id
+FROM products p
+WHERE p.id = oi.product_id
+  AND oi.category_id IS NULL;
+
+CREATE TABLE IF NOT EXISTS product_sales_daily (
+    product_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    revenue_cents BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, category_id, sales_date),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_sales_daily_sales_date ON product_sales_daily(sales_date);
+CREATE INDEX IF NOT EXISTS idx_product_sales_daily_category_sales_date ON product_sales_daily(category_id, sales_date);
+
+CREATE TABLE IF NOT EXISTS category_sales_daily (
+    category_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    units_sold BIGINT NOT NULL DEFAULT 0,
+    revenue_cents BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (category_id, sales_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_category_sales_daily_sales_date ON category_sales_daily(sales_date);
+
+-- One-off backfill from the orders placed before the rollups existed; skipped
+-- once the order service has written to them
+INSERT INTO product_sales_daily (product_id, category_id, sales_date, units_sold, revenue_cents)
+SELECT oi.product_id, oi.category_id, o.created_at::date, SUM(oi.quantity), SUM(ROUND(oi.total_price * 100))
+FROM order_items oi
+JOIN orders o ON o.id = oi.order_id
+WHERE o.status <> 'CANCELLED'
+  AND NOT EXISTS (SELECT 1 FROM product_sales_daily)
+GROUP BY oi.product_id, oi.category_id, o.created_at::date;
+
+INSERT INTO category_sales_daily (category_id, sales_date, units_sold, revenue_cents)
+SELECT s.category_id, s.sales_date, SUM(s.units_sold), SUM(s.revenue_cents)
+FROM product_sales_daily s
+WHERE NOT EXISTS (SELECT 1 FROM category_sales_daily)
+GROUP BY s.category_id, s.sales_date;
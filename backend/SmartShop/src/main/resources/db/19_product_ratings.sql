@@ -0,0 +1,32 @@
+-- Review aggregates per product, maintained by the review service as reviews are
+-- added, changed or deleted. Listings read the average and count from the product
+-- row and sort by average_rating, so they never aggregate over reviews.
+-- Unrated products have an average of 0 and sort below every rated product.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS rating_count BIGINT NOT NULL DEFAULT 0;
+-- Number of reviews with 1 to 5 stars, in that order
+ALTER TABLE products ADD COLUMN IF NOT EXISTS rating_histogram BIGINT[] NOT NULL DEFAULT '{0,0,0,0,0}';
+ALTER TABLE products ADD COLUMN IF NOT EXISTS average_rating REAL GENERATED ALWAYS AS (
+    CASE WHEN rating_count > 0 THEN (rating_sum::double precision / rating_count)::real ELSE 0 END
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_products_average_rating_id ON products(average_rating, id);
+CREATE INDEX IF NOT EXISTS idx_products_category_average_rating_id ON products(category_id, average_rating, id);
+
+-- One-off backfill from the reviews written before the aggregates existed; skipped
+-- once the review service has written to them
+UPDATE products p
+SET rating_sum = r.rating_sum,
+    rating_count = r.rating_count,
+    rating_histogram = r.rating_histogram
+FROM (
+    SELECT product_id, SUM(rating) AS rating_sum, COUNT(*) AS rating_count,
+           ARRAY[COUNT(*) FILTER (WHERE rating = 1), COUNT(*) FILTER (WHERE rating = 2),
+                 COUNT(*) FILTER (WHERE rating = 3), COUNT(*) FILTER (WHERE rating = 4),
+                 COUNT(*) FILTER (WHERE rating = 5)] AS rating_histogram
+    FROM reviews
+    GROUP BY product_id
+) r
+WHERE p.id = r.product_id
+  AND NOT EXISTS (SELECT 1 FROM products WHERE rating_count > 0);
@@ -0,0 +1,19 @@
+-- Version of every stock change, drawn from one sequence while the row is locked,
+-- so a later write to a product always carries a higher version. The stock index
+-- and the cache bus drop changes that arrive older than the one they hold.
+-- Deletions take their version from the same sequence.
+
+CREATE SEQUENCE IF NOT EXISTS inventory_version_seq;
+
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT nextval('inventory_version_seq');
+
+CREATE OR REPLACE FUNCTION next_inventory_version() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.version = nextval('inventory_version_seq');
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_next_version ON inventory;
+CREATE TRIGGER trg_inventory_next_version
+    BEFORE UPDATE ON inventory
+    FOR EACH ROW EXECUTE FUNCTION next_inventory_version();
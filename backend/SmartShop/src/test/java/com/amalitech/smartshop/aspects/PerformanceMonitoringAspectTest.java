@@ -0,0 +1,35 @@
+package com.amalitech.smartshop.aspects;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerformanceMonitoringAspectTest {
+
+    @Test
+    void cacheMetrics_AreAggregatedPerRegion() {
+        PerformanceMonitoringAspect aspect = new PerformanceMonitoringAspect();
+        aspect.registerCacheSizes(() -> Map.of("invent", 2));
+
+        for (int i = 0; i < 10_000; i++) {
+            aspect.recordCacheMiss("invent:" + i);
+            aspect.recordCacheHit("invent:" + i);
+            aspect.recordCacheHit("invent:" + i);
+        }
+        aspect.recordCacheEviction("invent:1");
+        aspect.recordCacheLoad("cat:1", 2_000_000);
+
+        Map<String, Map<String, Object>> metrics = aspect.getCacheMetrics();
+
+        assertEquals(2, metrics.size());
+        Map<String, Object> invent = metrics.get("invent");
+        assertEquals(20_000L, invent.get("hits"));
+        assertEquals(10_000L, invent.get("misses"));
+        assertEquals(1L, invent.get("evictions"));
+        assertEquals(2, invent.get("size"));
+        assertEquals(1L, metrics.get("cat").get("loads"));
+        assertEquals(2.048, (double) metrics.get("cat").get("p99Time"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.aspects.PerformanceMonitoringAspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CacheManagerTest {
+
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void tearDown() {
+        if (cacheManager != null) {
+            cacheManager.shutdown();
+        }
+    }
+
+    @Test
+    void get_CachesValueUntilInvalidated() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, (int) cacheManager.get("invent:1", loads::incrementAndGet));
+        assertEquals(1, (int) cacheManager.get("invent:1", loads::incrementAndGet));
+        assertEquals(1, loads.get());
+
+        cacheManager.invalidate("invent:1");
+
+        assertEquals(2, (int) cacheManager.get("invent:1", loads::incrementAndGet));
+    }
+
+    @Test
+    void get_RefreshesInBackgroundWithinRefreshWindow() throws InterruptedException {
+        // A window equal to the TTL makes every hit eligible for refresh-ahead
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, true, 300, 60, 1, "cat,invent");
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<String> loader = () -> loads.incrementAndGet() == 1 ? "initial" : "refreshed";
+
+        assertEquals("initial", cacheManager.get("cat:1", loader));
+        assertEquals("initial", cacheManager.get("cat:1", loader));
+
+        String value = "initial";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ("initial".equals(value) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            value = cacheManager.get("cat:1", loader);
+        }
+
+        assertEquals("refreshed", value);
+        assertTrue(loads.get() >= 2);
+    }
+
+    @Test
+    void get_DoesNotRefreshRegionsOutsideRefreshRegions() throws InterruptedException {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, true, 300, 60, 1, "cat,invent");
+        AtomicInteger loads = new AtomicInteger();
+        // an order page loader returns the row it was built from, so re-running it would refresh nothing
+        Supplier<String> loader = () -> "order " + loads.incrementAndGet();
+
+        assertEquals("order 1", cacheManager.get("ord:1", loader));
+        assertEquals("order 1", cacheManager.get("ord:1", loader));
+        Thread.sleep(100);
+
+        assertEquals("order 1", cacheManager.get("ord:1", loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_PromotesEntriesDemotedToOffHeapTier() throws InterruptedException {
+        OffHeapCacheTier offHeapTier = new OffHeapCacheTier(true, 1);
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), offHeapTier, 300, false, 30, 60, 1, "cat,invent");
+
+        cacheManager.get("invent:0", () -> 42);
+        Thread.sleep(5); // make invent:0 the entry closest to expiry, so it is evicted first
+        for (int i = 1; i <= 1000; i++) {
+            int value = i;
+            cacheManager.get("invent:" + i, () -> value);
+        }
+
+        assertEquals(1, offHeapTier.size());
+        assertEquals(42, (int) cacheManager.get("invent:0", () -> fail("should be promoted from off-heap")));
+        offHeapTier.close();
+    }
+
+    @Test
+    void get_DropsPromotionInvalidatedWhileInFlight() throws InterruptedException {
+        // the "write" lands after the entry left the off-heap tier but before it is cached again
+        OffHeapCacheTier offHeapTier = new OffHeapCacheTier(true, 1) {
+            @Override
+            public Optional<Promoted> take(String key) {
+                Optional<Promoted> promoted = super.take(key);
+                cacheManager.invalidate(key);
+                return promoted;
+            }
+        };
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), offHeapTier, 300, false, 30, 60, 1, "cat,invent");
+
+        cacheManager.get("invent:0", () -> 42);
+        Thread.sleep(5);
+        for (int i = 1; i <= 1000; i++) {
+            int value = i;
+            cacheManager.get("invent:" + i, () -> value);
+        }
+
+        assertEquals(42, (int) cacheManager.get("invent:0", () -> fail("should be promoted from off-heap")));
+        assertEquals(7, (int) cacheManager.get("invent:0", () -> 7));
+        offHeapTier.close();
+    }
+
+    @Test
+    void get_DiscardsLoadInvalidatedWhileInFlight() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        AtomicInteger loads = new AtomicInteger();
+
+        // the "write" lands after the loader read the old value but before it is cached
+        Integer stale = cacheManager.get("invent:1", () -> {
+            loads.incrementAndGet();
+            cacheManager.invalidate("invent:1");
+            return 5;
+        });
+
+        assertEquals(5, stale);
+        assertEquals(7, (int) cacheManager.get("invent:1", () -> {
+            loads.incrementAndGet();
+            return 7;
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void preload_SkipsKeysInvalidatedAfterStamp() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+
+        long stamp = cacheManager.loadStamp();
+        cacheManager.invalidate("cat:1");
+        cacheManager.preload("cat:1", "old", () -> "reloaded", stamp);
+        cacheManager.preload("cat:2", "warm", () -> "reloaded", stamp);
+
+        assertEquals("fresh", cacheManager.get("cat:1", () -> "fresh"));
+        assertEquals("warm", cacheManager.get("cat:2", () -> fail("should be preloaded")));
+    }
+
+    @Test
+    void invalidate_EvictsEntriesBuiltFromKey() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<String>> page = () -> {
+            loads.incrementAndGet();
+            return List.of("prod:1", "prod:2");
+        };
+
+        cacheManager.get("page:products|0", page, keys -> keys);
+        cacheManager.get("page:products|0", page, keys -> keys);
+        cacheManager.invalidate("prod:3");
+        cacheManager.get("page:products|0", page, keys -> keys);
+        assertEquals(1, loads.get());
+
+        cacheManager.invalidate("prod:2");
+        cacheManager.get("page:products|0", page, keys -> keys);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void writeThrough_ReplacesValueAndDiscardsOlderLoad() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        cacheManager.get("invent:1", () -> 10);
+
+        // a reader loaded 10 before the order committed 9 and would otherwise cache it
+        Integer stale = cacheManager.get("invent:2", () -> {
+            cacheManager.writeThrough("invent:2", 9, () -> 9, cacheManager.loadStamp());
+            return 10;
+        });
+        cacheManager.writeThrough("invent:1", 8, () -> 8, cacheManager.loadStamp());
+
+        assertEquals(10, stale);
+        assertEquals(9, (int) cacheManager.get("invent:2", () -> fail("should be written through")));
+        assertEquals(8, (int) cacheManager.get("invent:1", () -> fail("should be written through")));
+    }
+
+    @Test
+    void writeThrough_OvertakenWriteOnlyEvicts() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+
+        // the order that sold down to 7 commits first but publishes after the one selling down to 6
+        long olderStamp = cacheManager.loadStamp();
+        cacheManager.writeThrough("invent:1", 6, () -> 6, cacheManager.loadStamp());
+        cacheManager.writeThrough("invent:1", 7, () -> 7, olderStamp);
+
+        assertEquals(6, (int) cacheManager.get("invent:1", () -> 6));
+        assertEquals(1, cacheManager.regionSizes().get("invent"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.aspects.PerformanceMonitoringAspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CatalogETagsTest {
+
+    private CacheManager cacheManager;
+    private CatalogETags catalogETags;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        catalogETags = new CatalogETags(cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    @Test
+    void tag_IsRememberedUntilDependentRegionIsInvalidated() {
+        String products = catalogETags.tag("products|0|10", "prod", "cat").of(List.of("Lamp", 4));
+        String categories = catalogETags.tag("categories|0|10", "cat").of(List.of("Lighting"));
+
+        assertEquals(products, catalogETags.tag("products|0|10", "prod", "cat").current());
+        assertNull(catalogETags.tag("products|1|10", "prod", "cat").current());
+
+        cacheManager.invalidate("prod:1");
+
+        assertNull(catalogETags.tag("products|0|10", "prod", "cat").current());
+        assertTrue(catalogETags.tag("categories|0|10", "cat").matches(categories));
+    }
+
+    @Test
+    void tag_DependsOnlyOnDataSoInstancesAgree() {
+        CacheManager otherCacheManager = new CacheManager(mock(PerformanceMonitoringAspect.class), new OffHeapCacheTier(false, 0), 300, false, 30, 60, 1, "cat,invent");
+        try {
+            otherCacheManager.invalidate("cat:1");
+            CatalogETags other = new CatalogETags(otherCacheManager);
+
+            String etag = catalogETags.tag("category|1", "cat").of(List.of("Lighting", 1));
+
+            assertEquals(etag, other.tag("category|1", "cat").of(List.of("Lighting", 1)));
+            assertNotEquals(etag, other.tag("category|1", "cat").of(List.of("Lighting", 2)));
+        } finally {
+            otherCacheManager.shutdown();
+        }
+    }
+
+    @Test
+    void matches_HandlesListsAndWildcard() {
+        String etag = catalogETags.tag("category|1", "cat").of("Lighting");
+
+        assertTrue(catalogETags.matches(etag, etag));
+        assertTrue(catalogETags.matches("\"other\", " + etag, etag));
+        assertTrue(catalogETags.matches("*", etag));
+        assertFalse(catalogETags.matches("\"other\"", etag));
+        assertFalse(catalogETags.matches(null, etag));
+    }
+}
@@ -0,0 +1,183 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.dtos.requests.ProductFacetFilter;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse;
+import com.amalitech.smartshop.dtos.responses.FacetedPagedResponse.FacetValue;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private static CatalogSnapshot catalog() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(null);
+        builder.putCategory(1, "Books");
+        builder.putCategory(2, "Games");
+        for (long id = 1; id <= 10; id++) {
+            builder.putProduct(id, "Product " + id, null, null, "SKU-" + id, id * 150,
+                    id % 2 == 0 ? 2 : 1, id <= 3 ? 7 : CatalogSnapshot.NO_ID);
+            if (id % 3 != 0) {
+                builder.putStock(id, (int) id * 10);
+            }
+        }
+        builder.putRating(1, 4.5f, 2);
+        builder.putRating(2, 3.9f, 10);
+        builder.putRating(4, 5f, 1);
+        return builder.build();
+    }
+
+    @Test
+    void page_ReturnsRowsInIdOrderWithCategoryNameAndStock() {
+        Page<ProductResponseDTO> page = catalog().page(Pageable.ofSize(4).withPage(1));
+
+        assertEquals(10, page.getTotalElements());
+        assertEquals(List.of(5L, 6L, 7L, 8L), page.getContent().stream().map(ProductResponseDTO::getId).toList());
+        ProductResponseDTO six = page.getContent().get(1);
+        assertEquals("Games", six.getCategoryName());
+        assertEquals(0, six.getQuantity());
+        assertEquals(50, page.getContent().get(0).getQuantity());
+        assertNull(six.getVendorId());
+    }
+
+    @Test
+    void pageByCategoryAndVendor_OnlyTouchTheirRows() {
+        CatalogSnapshot snapshot = catalog();
+
+        Page<ProductResponseDTO> games = snapshot.pageByCategory(2, Pageable.ofSize(2).withPage(1));
+        assertEquals(5, games.getTotalElements());
+        assertEquals(List.of(6L, 8L), games.getContent().stream().map(ProductResponseDTO::getId).toList());
+
+        Page<ProductResponseDTO> vendor = snapshot.pageByVendor(7, Pageable.ofSize(10));
+        assertEquals(List.of(1L, 2L, 3L), vendor.getContent().stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(0, snapshot.pageByVendor(99, Pageable.ofSize(10)).getTotalElements());
+        assertTrue(snapshot.hasCategory(2));
+        assertFalse(snapshot.hasCategory(3));
+    }
+
+    @Test
+    void listWithInventory_SkipsProductsWithoutStock() {
+        List<ProductResponseDTO> products = catalog().listWithInventory();
+
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L, 8L, 10L), products.stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    void builder_AppliesChangesAndReportsOnlyAffectedKeys() {
+        CatalogSnapshot base = catalog();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(base);
+
+        builder.putProduct(4, "Product 4", null, null, "SKU-4", 600, 2, CatalogSnapshot.NO_ID);
+        builder.putStock(1, 10);
+        assertTrue(builder.changedKeys().isEmpty());
+
+        builder.putProduct(4, "Renamed", null, null, "SKU-4", 600, 1, CatalogSnapshot.NO_ID);
+        builder.removeProduct(5);
+        builder.removeStock(2);
+        builder.putProduct(11, "Product 11", null, null, "SKU-11", 100, 1, CatalogSnapshot.NO_ID);
+        builder.putCategory(1, "Novels");
+        CatalogSnapshot next = builder.build();
+
+        assertEquals(Set.of("prod:4", "prod:list:all", "prod:list:cat:2", "prod:list:cat:1", "prod:5", "invent:5",
+                "invent:2", "prod:11", "cat:1"), builder.changedKeys());
+        assertEquals(10, next.size());
+        assertEquals(List.of(1L, 3L, 4L, 7L, 9L, 11L),
+                next.pageByCategory(1, Pageable.ofSize(10)).getContent().stream().map(ProductResponseDTO::getId).toList());
+        assertEquals("Novels", next.page(Pageable.ofSize(1)).getContent().get(0).getCategoryName());
+        assertEquals(10, base.size());
+        assertEquals("Product 4", base.page(Pageable.ofSize(1).withPage(3)).getContent().get(0).getName());
+    }
+
+    @Test
+    void builder_LeavesBaseSnapshotUntouched() {
+        CatalogSnapshot base = catalog();
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(base);
+
+        builder.putStock(1, 99);
+        builder.putRating(2, 1f, 11);
+        builder.putProduct(3, "Renamed", null, null, "SKU-3", 450, 1, 7);
+        CatalogSnapshot next = builder.build();
+
+        assertEquals(10, base.find(1).getQuantity());
+        assertEquals(10L, base.find(2).getReviewCount());
+        assertEquals("Product 3", base.find(3).getName());
+        assertEquals(99, next.find(1).getQuantity());
+        assertEquals("Renamed", next.find(3).getName());
+    }
+
+    @Test
+    void builder_SortsProductsAddedOutOfIdOrder() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalog());
+        builder.putProduct(20, "Product 20", null, null, "SKU-20", 100, 1, CatalogSnapshot.NO_ID);
+        builder.putProduct(15, "Product 15", null, null, "SKU-15", 100, 1, CatalogSnapshot.NO_ID);
+        builder.putStock(15, 3);
+
+        CatalogSnapshot next = builder.build();
+
+        List<ProductResponseDTO> tail = next.page(Pageable.ofSize(2).withPage(5)).getContent();
+        assertEquals(List.of(15L, 20L), tail.stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(3, tail.get(0).getQuantity());
+    }
+
+    @Test
+    void facetedPage_IntersectsFiltersAndCountsEachFacetWithoutItsOwnFilter() {
+        ProductFacetFilter filter = new ProductFacetFilter(List.of(2L), null, true, null, 12.0, null);
+
+        FacetedPagedResponse<ProductResponseDTO> page = catalog().facetedPage(filter, Pageable.ofSize(2).withPage(1));
+
+        assertEquals(3, page.totalItems());
+        assertEquals(List.of(8L), page.content().stream().map(ProductResponseDTO::getId).toList());
+        assertTrue(page.isLast());
+        assertEquals(List.of(new FacetValue("1", "Books", 3), new FacetValue("2", "Games", 3)),
+                page.facets().get("category"));
+        assertEquals(List.of(new FacetValue("7", null, 1)), page.facets().get("vendor"));
+        assertEquals(List.of(new FacetValue("IN_STOCK", "In stock", 3), new FacetValue("OUT_OF_STOCK", "Out of stock", 1)),
+                page.facets().get("availability"));
+        assertEquals(List.of(new FacetValue("0-10", "Under 10", 2), new FacetValue("10-25", "10 to 25", 2)),
+                page.facets().get("price"));
+        assertEquals(List.of(new FacetValue("5", "5 stars", 1), new FacetValue("3", "3 & up", 2)),
+                page.facets().get("rating"));
+    }
+
+    @Test
+    void facetedPage_FiltersByMinimumRating() {
+        ProductFacetFilter filter = new ProductFacetFilter(null, null, null, null, null, 4);
+
+        FacetedPagedResponse<ProductResponseDTO> page = catalog().facetedPage(filter, Pageable.ofSize(10));
+
+        assertEquals(List.of(1L, 4L), page.content().stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(List.of(new FacetValue("5", "5 stars", 1), new FacetValue("4", "4 & up", 2),
+                new FacetValue("3", "3 & up", 3)), page.facets().get("rating"));
+    }
+
+    @Test
+    void find_CarriesAverageRatingAndReviewCount() {
+        CatalogSnapshot snapshot = catalog();
+
+        ProductResponseDTO two = snapshot.find(2);
+        assertEquals(3.9, two.getAverageRating());
+        assertEquals(10L, two.getReviewCount());
+        ProductResponseDTO three = snapshot.find(3);
+        assertNull(three.getAverageRating());
+        assertEquals(0L, three.getReviewCount());
+    }
+
+    @Test
+    void builder_ReportsRatingChangesUnderTheProductAndItsListings() {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(catalog());
+        builder.putRating(1, 4.5f, 2);
+        assertFalse(builder.hasChanges());
+
+        builder.putRating(1, CatalogSnapshot.NO_RATING, 0);
+
+        assertTrue(builder.hasChanges());
+        assertEquals(Set.of("prod:1", "prod:list:all", "prod:list:cat:1", "prod:list:vendor:7"),
+                builder.changedKeys());
+        assertEquals(Set.of(1L), builder.changedProducts());
+    }
+}
@@ -0,0 +1,155 @@
+package com.amalitech.smartshop.cache;
+
+import com.amalitech.smartshop.cache.ExistenceFilter.KeySpace;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ExistenceFilterTest {
+
+    @Test
+    void mightContain_AnswersTrueUntilLoaded() throws SQLException {
+        ExistenceFilter filter = new ExistenceFilter(connection(mock(ResultSet.class)), 30);
+
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_ID, 7));
+
+        filter.rebuild();
+
+        assertFalse(filter.mightContain(KeySpace.PRODUCT_ID, 7));
+    }
+
+    @Test
+    void rebuild_MergesKeysAddedWhileLoading() throws SQLException {
+        ResultSet productIds = mock(ResultSet.class);
+        ExistenceFilter filter = new ExistenceFilter(connection(productIds), 30);
+        // A product inserted after the load read its rows, before the loaded set is swapped in
+        when(productIds.next()).thenReturn(true).thenAnswer(invocation -> {
+            filter.add(KeySpace.PRODUCT_ID, 99);
+            return false;
+        });
+        when(productIds.getLong(1)).thenReturn(1L);
+
+        filter.rebuild();
+
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_ID, 1));
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_ID, 99));
+        assertFalse(filter.mightContain(KeySpace.PRODUCT_ID, 2));
+    }
+
+    @Test
+    void remove_ReportsTheKeyAbsent() throws SQLException {
+        ExistenceFilter filter = loaded();
+        filter.add(KeySpace.PRODUCT_ID, 5);
+        filter.add(KeySpace.CATEGORY_NAME, "Lighting");
+
+        filter.remove(KeySpace.PRODUCT_ID, 5);
+        filter.remove(KeySpace.CATEGORY_NAME, "lighting");
+
+        assertFalse(filter.mightContain(KeySpace.PRODUCT_ID, 5));
+        assertFalse(filter.mightContain(KeySpace.CATEGORY_NAME, "Lighting"));
+    }
+
+    @Test
+    void remove_WaitsForTheTransactionToCommit() throws SQLException {
+        ExistenceFilter filter = loaded();
+        filter.add(KeySpace.USER_EMAIL, "ada@example.com");
+        filter.add(KeySpace.PRODUCT_ID, 5);
+
+        List<TransactionSynchronization> rolledBack = inTransaction(() -> filter.remove(KeySpace.USER_EMAIL, "ada@example.com"));
+        assertTrue(filter.mightContain(KeySpace.USER_EMAIL, "ada@example.com"));
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertTrue(filter.mightContain(KeySpace.USER_EMAIL, "ada@example.com"));
+
+        List<TransactionSynchronization> committed = inTransaction(() -> filter.remove(KeySpace.PRODUCT_ID, 5));
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_ID, 5));
+        committed.forEach(TransactionSynchronization::afterCommit);
+        assertFalse(filter.mightContain(KeySpace.PRODUCT_ID, 5));
+    }
+
+    @Test
+    void mightContain_IgnoresCaseOfNamesOnly() throws SQLException {
+        ExistenceFilter filter = loaded();
+        filter.add(KeySpace.PRODUCT_NAME, "Desk Lamp");
+        filter.add(KeySpace.USER_EMAIL, "Ada@example.com");
+
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_NAME, "desk lamp"));
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_NAME, "DESK LAMP"));
+        assertFalse(filter.mightContain(KeySpace.CATEGORY_NAME, "Desk Lamp"));
+        assertTrue(filter.mightContain(KeySpace.USER_EMAIL, "Ada@example.com"));
+        assertFalse(filter.mightContain(KeySpace.USER_EMAIL, "ada@example.com"));
+    }
+
+    @Test
+    void recordMiss_RemembersMissesUntilTheyExpireOrTheKeyIsAdded() throws Exception {
+        ExistenceFilter remembering = new ExistenceFilter(mock(Connection.class), 30);
+        remembering.recordMiss(KeySpace.PRODUCT_ID, 3);
+        remembering.recordMiss(KeySpace.PRODUCT_ID, 4);
+
+        assertFalse(remembering.mightContain(KeySpace.PRODUCT_ID, 3));
+        assertTrue(remembering.mightContain(KeySpace.PRODUCT_NAME, 3));
+        remembering.add(KeySpace.PRODUCT_ID, 4);
+        assertTrue(remembering.mightContain(KeySpace.PRODUCT_ID, 4));
+
+        ExistenceFilter expiring = new ExistenceFilter(mock(Connection.class), 0);
+        expiring.recordMiss(KeySpace.PRODUCT_ID, 3);
+        Thread.sleep(5);
+
+        assertTrue(expiring.mightContain(KeySpace.PRODUCT_ID, 3));
+    }
+
+    @Test
+    void recordMiss_StopsRememberingAtTheCapWhileEntriesAreLive() {
+        ExistenceFilter filter = new ExistenceFilter(mock(Connection.class), 30);
+        for (int id = 0; id < 10_000; id++) {
+            filter.recordMiss(KeySpace.PRODUCT_ID, id);
+        }
+
+        filter.recordMiss(KeySpace.PRODUCT_ID, 10_000);
+
+        assertFalse(filter.mightContain(KeySpace.PRODUCT_ID, 9_999));
+        assertTrue(filter.mightContain(KeySpace.PRODUCT_ID, 10_000));
+    }
+
+    private static ExistenceFilter loaded() throws SQLException {
+        ExistenceFilter filter = new ExistenceFilter(connection(mock(ResultSet.class)), 30);
+        filter.rebuild();
+        return filter;
+    }
+
+    /**
+     * A connection whose product id query returns {@code productIds} and whose other
+     * queries return no rows.
+     */
+    private static Connection connection(ResultSet productIds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> mock(ResultSet.class));
+        when(statement.executeQuery("SELECT id FROM products")).thenReturn(productIds);
+        return connection;
+    }
+
+    /**
+     * Runs {@code work} as if inside a transaction and returns the callbacks it
+     * registered, for the test to complete the transaction.
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.amalitech.smartshop.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void addContainsRemove_MatchesJdkSet() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(expected.contains(key), set.contains(key), "key " + key);
+        }
+    }
+
+    @Test
+    void forEach_VisitsEveryKeyIncludingZero() {
+        LongHashSet set = new LongHashSet(16);
+        set.add(0L);
+        set.add(7L);
+        set.add(-3L);
+
+        Set<Long> visited = new HashSet<>();
+        set.forEach(visited::add);
+
+        assertEquals(Set.of(0L, 7L, -3L), visited);
+    }
+}
@@ -0,0 +1,49 @@
+package com.amalitech.smartshop.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGetRemove_MatchesJdkMap() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) > 0) {
+                int value = random.nextInt(1_000);
+                expected.put(key, value);
+                map.put(key, value);
+            } else {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key, -1), "key " + key);
+            assertEquals(expected.containsKey(key), map.containsKey(key), "key " + key);
+        }
+    }
+
+    @Test
+    void forEach_VisitsEveryEntryIncludingZeroKey() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        map.put(0L, 5);
+        map.put(7L, 0);
+        map.put(-3L, 12);
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+
+        assertEquals(Map.of(0L, 5, 7L, 0, -3L, 12), visited);
+    }
+}
@@ -0,0 +1,99 @@
+package com.amalitech.smartshop.search;
+
+import com.amalitech.smartshop.cache.CatalogEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(mock(Connection.class), mock(CatalogEngine.class));
+    }
+
+    @Test
+    void tokenize_DropsStopWordsAndStems() {
+        assertEquals(List.of("run", "shoe", "box", "battery", "x200"),
+                SearchTokenizer.tokenize("The Running Shoes, boxes & batteries for X200"));
+    }
+
+    @Test
+    void search_RanksNameMatchesAboveDescriptionMatches() {
+        index.put(1, "USB Cable", "Braided cable for wireless chargers", "ELEC-001");
+        index.put(2, "Wireless Charger", "Charges any phone", "ELEC-002");
+        index.put(3, "Desk Lamp", "Warm light", "HOME-042");
+
+        ProductSearchIndex.SearchResult result = index.search("wireless charger", 0, 10);
+
+        assertEquals(List.of(2L, 1L), result.productIds());
+        assertEquals(2, result.total());
+        assertEquals(List.of(3L), index.search("home-042", 0, 10).productIds());
+        assertEquals(0, index.search("lamp cable", 0, 10).total());
+        assertEquals(0, index.search("the", 0, 10).total());
+    }
+
+    @Test
+    void put_ReplacesPreviousTextAndRemoveDropsProduct() {
+        index.put(1, "Red Mug", null, "KIT-1");
+        index.put(1, "Blue Mug", null, "KIT-1");
+        index.put(2, "Red Plate", null, "KIT-2");
+
+        assertEquals(List.of(2L), index.search("red", 0, 10).productIds());
+        assertEquals(List.of(1L), index.search("blue mugs", 0, 10).productIds());
+
+        index.remove(2);
+
+        assertEquals(0, index.search("red", 0, 10).total());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void put_SkipsProductsWhoseTextIsUnchanged() {
+        index.put(1, "Red Mug", null, "KIT-1");
+        index.put(1, "Red Mug", null, "KIT-1");
+        assertEquals(0, index.deadDocuments());
+
+        index.put(1, "Red Mug", "", "KIT-1");
+        assertEquals(1, index.deadDocuments());
+        assertEquals(List.of(1L), index.search("mug", 0, 10).productIds());
+    }
+
+    @Test
+    void written_IsLeftToCatalogEngineWhenItIsEnabled() {
+        CatalogEngine catalogEngine = mock(CatalogEngine.class);
+        when(catalogEngine.isEnabled()).thenReturn(true);
+        ProductSearchIndex followingIndex = new ProductSearchIndex(mock(Connection.class), catalogEngine);
+
+        followingIndex.written(1, "Red Mug", null, "KIT-1");
+        index.written(1, "Red Mug", null, "KIT-1");
+
+        verify(catalogEngine).addProductListener(any());
+        assertEquals(0, followingIndex.size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_PagesCorrectlyAfterCompaction() {
+        LongStream.rangeClosed(1, 200).forEach(id ->
+                index.put(id, "Item " + id, id % 2 == 0 ? "garden widget" : "kitchen tool", "SKU-" + id));
+        LongStream.rangeClosed(1, 120).forEach(index::remove);
+        index.compact();
+        assertEquals(0, index.deadDocuments());
+
+        ProductSearchIndex.SearchResult page = index.search("widget", 10, 5);
+
+        assertEquals(40, page.total());
+        assertEquals(List.of(142L, 144L, 146L, 148L, 150L), page.productIds());
+        assertEquals(80, index.size());
+    }
+}
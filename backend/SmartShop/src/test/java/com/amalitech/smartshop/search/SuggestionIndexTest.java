@@ -0,0 +1,62 @@
+package com.amalitech.smartshop.search;
+
+import com.amalitech.smartshop.dtos.responses.SuggestionResponseDTO;
+import com.amalitech.smartshop.enums.SuggestionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    private static final SuggestionIndex INDEX = SuggestionIndex.builder()
+            .add("Chargers", SuggestionType.CATEGORY, 1, 40)
+            .add("Wireless Charger", SuggestionType.PRODUCT, 10, 25)
+            .add("Charger Cable", SuggestionType.PRODUCT, 11, 25)
+            .add("USB-C Charging Hub", SuggestionType.PRODUCT, 12, 3)
+            .add("USB Cable", SuggestionType.PRODUCT, 13, 90)
+            .add("Chair", SuggestionType.PRODUCT, 14, 0)
+            .add("   ", SuggestionType.PRODUCT, 15, 100)
+            .build();
+
+    private static List<String> texts(List<SuggestionResponseDTO> suggestions) {
+        return suggestions.stream().map(SuggestionResponseDTO::getText).toList();
+    }
+
+    @Test
+    void suggest_CompletesAnyWordMostPopularFirst() {
+        assertEquals(List.of("Chargers", "Charger Cable", "Wireless Charger", "USB-C Charging Hub", "Chair"),
+                texts(INDEX.suggest("CH", 10)));
+        assertEquals(List.of("Chargers", "Charger Cable"), texts(INDEX.suggest("charg", 2)));
+        assertEquals(SuggestionType.CATEGORY, INDEX.suggest("charg", 1).get(0).getType());
+        assertEquals(6, INDEX.size());
+    }
+
+    @Test
+    void suggest_MatchesAcrossPunctuationAndCompletedWords() {
+        assertEquals(List.of("USB-C Charging Hub"), texts(INDEX.suggest("usb-c ch", 10)));
+        assertEquals(List.of("USB Cable", "USB-C Charging Hub"), texts(INDEX.suggest("usb", 10)));
+        assertEquals(List.of("USB Cable", "USB-C Charging Hub"), texts(INDEX.suggest("usb ", 10)));
+        assertEquals(List.of(13L), INDEX.suggest("usb ca", 10).stream().map(SuggestionResponseDTO::getId).toList());
+    }
+
+    @Test
+    void suggest_ReturnsNothingForUnknownOrBlankPrefix() {
+        assertTrue(INDEX.suggest("zebra", 10).isEmpty());
+        assertTrue(INDEX.suggest("  ", 10).isEmpty());
+        assertTrue(SuggestionIndex.EMPTY.suggest("a", 10).isEmpty());
+    }
+
+    @Test
+    void hasProductName_MatchesOnlyTheIndexedProductName() {
+        assertTrue(INDEX.hasProductName(10, "Wireless Charger"));
+        assertTrue(INDEX.hasProductName(10, " Wireless Charger "));
+        assertFalse(INDEX.hasProductName(10, "Wireless Charger Pad"));
+        assertFalse(INDEX.hasProductName(10, null));
+        assertFalse(INDEX.hasProductName(1, "Chargers"));
+        assertTrue(INDEX.hasProductName(15, "  "));
+        assertTrue(INDEX.hasProductName(99, null));
+        assertFalse(INDEX.hasProductName(99, "Desk"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.amalitech.smartshop.services;
+
+import com.amalitech.smartshop.dtos.responses.ProductSalesDTO;
+import com.amalitech.smartshop.dtos.responses.SalesRevenueDTO;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
+import com.amalitech.smartshop.interfaces.SalesRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsServiceTest {
+
+    private AnalyticsServiceImpl analyticsService;
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        analyticsService = new AnalyticsServiceImpl(salesRollupRepository);
+    }
+
+    @Test
+    void getRevenue_SumsDailyRollupsInCents() {
+        LocalDate to = LocalDate.of(2024, 3, 31);
+        LocalDate from = to.minusDays(AnalyticsServiceImpl.DEFAULT_DAYS - 1);
+        when(salesRollupRepository.findDailySales(from, to, 2L, null)).thenReturn(List.of(
+                new SalesRollupRepository.DailySales(LocalDate.of(2024, 3, 2), 3, 10),
+                new SalesRollupRepository.DailySales(LocalDate.of(2024, 3, 9), 1, 20)));
+
+        SalesRevenueDTO revenue = analyticsService.getRevenue(null, to, 2L, null);
+
+        assertEquals(from, revenue.from());
+        assertEquals(to, revenue.to());
+        assertEquals(4, revenue.unitsSold());
+        assertEquals(0.3, revenue.revenue());
+        assertEquals(List.of(new SalesRevenueDTO.DailySales(LocalDate.of(2024, 3, 2), 3, 0.1),
+                new SalesRevenueDTO.DailySales(LocalDate.of(2024, 3, 9), 1, 0.2)), revenue.days());
+    }
+
+    @Test
+    void getTopProducts_ConvertsRevenueAndPassesFilters() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        when(salesRollupRepository.findTopProducts(day, day, null, 7L, SalesRollupRepository.Metric.UNITS, 5))
+                .thenReturn(List.of(new SalesRollupRepository.ProductSales(4L, "Lamp", 1L, 12, 14_988)));
+
+        List<ProductSalesDTO> products = analyticsService.getTopProducts(day, day, null, 7L,
+                SalesRollupRepository.Metric.UNITS, 5);
+
+        assertEquals(List.of(new ProductSalesDTO(4L, "Lamp", 1L, 12L, 149.88)), products);
+    }
+
+    @Test
+    void getTopProducts_RejectsInvalidRangesAndLimits() {
+        LocalDate to = LocalDate.of(2024, 3, 31);
+        SalesRollupRepository.Metric revenue = SalesRollupRepository.Metric.REVENUE;
+
+        assertThrows(BadRequestFormat.class, () -> analyticsService.getTopProducts(to.plusDays(1), to, null, null, revenue, 10));
+        assertThrows(BadRequestFormat.class,
+                () -> analyticsService.getTopProducts(to.minusDays(AnalyticsServiceImpl.MAX_DAYS), to, null, null, revenue, 10));
+        assertThrows(BadRequestFormat.class, () -> analyticsService.getTopProducts(to, to, null, null, revenue, 0));
+        assertThrows(BadRequestFormat.class,
+                () -> analyticsService.getTopProducts(to, to, null, null, revenue, AnalyticsServiceImpl.MAX_LIMIT + 1));
+        verify(salesRollupRepository, never()).findTopProducts(any(), any(), any(), any(), any(), anyInt());
+
+        analyticsService.getTopProducts(to.minusDays(AnalyticsServiceImpl.MAX_DAYS - 1), to, null, null, revenue, 10);
+        verify(salesRollupRepository).findTopProducts(to.minusDays(AnalyticsServiceImpl.MAX_DAYS - 1), to, null, null, revenue, 10);
+    }
+}
@@ -9,6 +9,7 @@ import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.mappers.CategoryMapper;
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.interfaces.CategoryRepository;
 import com.amalitech.smartshop.interfaces.ProductRepository;
 import com.amalitech.smartshop.interfaces.InventoryRepository;
@@ -35,6 +36,9 @@ class CategoryServiceTest {
     @Mock
     private CacheManager cacheManager;
 
+    @Mock
+    private StockIndex stockIndex;
+
     @Mock
     private ProductRepository productRepository;
 
@@ -44,7 +48,7 @@ class CategoryServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        categoryService = new CategoryServiceImpl(categoryRepository, categoryMapper, cacheManager, productRepository, inventoryRepository);
+        categoryService = new CategoryServiceImpl(categoryRepository, categoryMapper, cacheManager, productRepository, inventoryRepository, stockIndex);
     }
 
     @Test
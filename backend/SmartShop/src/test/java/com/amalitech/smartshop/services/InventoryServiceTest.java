@@ -9,6 +9,7 @@ import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.mappers.InventoryMapper;
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.interfaces.InventoryRepository;
 import com.amalitech.smartshop.interfaces.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,10 +38,13 @@ class InventoryServiceTest {
     @Mock
     private CacheManager cacheManager;
 
+    @Mock
+    private StockIndex stockIndex;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        inventoryService = new InventoryServiceImpl(inventoryRepository, productRepository, inventoryMapper, cacheManager);
+        inventoryService = new InventoryServiceImpl(inventoryRepository, productRepository, inventoryMapper, cacheManager, stockIndex);
     }
 
     @Test
@@ -55,6 +59,7 @@ class InventoryServiceTest {
         
         Inventory savedEntity = new Inventory();
         savedEntity.setId(1L);
+        savedEntity.setVersion(1L);
         
         InventoryResponseDTO responseDTO = new InventoryResponseDTO();
         responseDTO.setId(1L);
@@ -154,6 +159,7 @@ class InventoryServiceTest {
         Inventory updatedEntity = new Inventory();
         updatedEntity.setId(1L);
         updatedEntity.setProductId(1L);
+        updatedEntity.setVersion(2L);
         
         Product product = new Product();
         product.setName("Laptop");
@@ -178,8 +184,11 @@ class InventoryServiceTest {
 
         when(inventoryRepository.findById(1L)).thenReturn(Optional.of(entity));
 
+        when(inventoryRepository.delete(entity)).thenReturn(Optional.of(9L));
+
         assertDoesNotThrow(() -> inventoryService.deleteInventory(1L));
         verify(inventoryRepository).delete(entity);
+        verify(stockIndex).remove(entity.getProductId(), 9L);
     }
 
     @Test
@@ -191,7 +200,9 @@ class InventoryServiceTest {
         
         Inventory updatedEntity = new Inventory();
         updatedEntity.setId(1L);
+        updatedEntity.setProductId(1L);
         updatedEntity.setQuantity(150);
+        updatedEntity.setVersion(2L);
         
         Product product = new Product();
         product.setName("Laptop");
@@ -200,12 +211,27 @@ class InventoryServiceTest {
         responseDTO.setId(1L);
 
         when(inventoryRepository.findById(1L)).thenReturn(Optional.of(entity));
-        when(inventoryRepository.save(entity)).thenReturn(updatedEntity);
+        when(inventoryRepository.adjustQuantity(1L, 50)).thenReturn(Optional.of(updatedEntity));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(inventoryMapper.toResponseDTO(updatedEntity)).thenReturn(responseDTO);
 
         InventoryResponseDTO result = inventoryService.adjustInventoryQuantity(1L, 50);
 
         assertNotNull(result);
+        verify(stockIndex).set(1L, 150, 2L);
+    }
+
+    @Test
+    void adjustInventoryQuantity_Insufficient() {
+        Inventory entity = new Inventory();
+        entity.setId(1L);
+        entity.setProductId(1L);
+        entity.setQuantity(10);
+
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(entity));
+        when(inventoryRepository.adjustQuantity(1L, -50)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.adjustInventoryQuantity(1L, -50));
+        verifyNoInteractions(stockIndex);
     }
 }
@@ -11,14 +11,20 @@ import com.amalitech.smartshop.interfaces.*;
 import com.amalitech.smartshop.enums.OrderStatus;
 import com.amalitech.smartshop.mappers.OrderMapper;
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.StockIndex;
+import com.amalitech.smartshop.config.JdbcTransactions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -48,11 +54,26 @@ class OrderServiceTest {
     @Mock
     private CacheManager cacheManager;
 
+    @Mock
+    private StockIndex stockIndex;
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private JdbcTransactions jdbcTransactions;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         orderService = new OrderServiceImpl(orderRepository, orderItemRepository, productRepository, 
-                                       userRepository, inventoryRepository, orderMapper, cacheManager);
+                                       userRepository, inventoryRepository, orderMapper, cacheManager, stockIndex,
+                                       salesRollupRepository, jdbcTransactions);
+        when(jdbcTransactions.inTransaction(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(jdbcTransactions).runInTransaction(any());
     }
 
     @Test
@@ -70,14 +91,18 @@ class OrderServiceTest {
         
         Product product = new Product();
         product.setId(1L);
-        product.setPrice(999.99);
+        product.setPriceCents(99_999);
+        product.setCategoryId(4L);
         product.setAvailable(true);
         
         Inventory inventory = new Inventory();
-        inventory.setQuantity(10);
+        inventory.setProductId(1L);
+        inventory.setQuantity(8);
+        inventory.setVersion(5L);
         
         Order savedOrder = new Order();
         savedOrder.setId(1L);
+        savedOrder.setCreatedAt(LocalDateTime.of(2024, 3, 1, 23, 59));
         
         OrderItem savedItem = new OrderItem();
         savedItem.setId(1L);
@@ -87,7 +112,7 @@ class OrderServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+        when(inventoryRepository.adjustQuantity(1L, -2)).thenReturn(Optional.of(inventory));
         when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
         when(orderItemRepository.saveAll(anyList())).thenReturn(List.of(savedItem));
         when(orderMapper.toResponseDTO(savedOrder)).thenReturn(responseDTO);
@@ -97,6 +122,79 @@ class OrderServiceTest {
 
         assertNotNull(result);
         verify(orderRepository).save(any(Order.class));
+        verify(salesRollupRepository).record(LocalDate.of(2024, 3, 1), List.of(savedItem));
+        verify(stockIndex).set(1L, 8, 5L);
+        // Sales stay with the category the product was in when ordered
+        ArgumentCaptor<List<OrderItem>> items = ArgumentCaptor.captor();
+        verify(orderItemRepository).saveAll(items.capture());
+        assertEquals(4L, items.getValue().getFirst().getCategoryId());
+    }
+
+    @Test
+    void createOrder_OutOfStock() {
+        AddOrderDTO dto = new AddOrderDTO();
+        dto.setUserId(1L);
+
+        OrderItemDTO itemDTO = new OrderItemDTO();
+        itemDTO.setProductId(1L);
+        itemDTO.setQuantity(2);
+        dto.setItems(List.of(itemDTO));
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Lamp");
+        product.setAvailable(true);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryRepository.adjustQuantity(1L, -2)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(dto));
+        verify(orderRepository, never()).save(any());
+        verifyNoInteractions(stockIndex, salesRollupRepository);
+    }
+
+    @Test
+    void createOrder_TotalsInExactCents() {
+        AddOrderDTO dto = new AddOrderDTO();
+        dto.setUserId(1L);
+
+        OrderItemDTO itemDTO = new OrderItemDTO();
+        itemDTO.setProductId(1L);
+        itemDTO.setQuantity(3);
+        dto.setItems(List.of(itemDTO));
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setPriceCents(10);
+        product.setAvailable(true);
+
+        Inventory inventory = new Inventory();
+        inventory.setProductId(1L);
+        inventory.setQuantity(7);
+        inventory.setVersion(5L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryRepository.adjustQuantity(1L, -3)).thenReturn(Optional.of(inventory));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order placed = invocation.getArgument(0);
+            placed.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0));
+            return placed;
+        });
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderMapper.toResponseDTO(any(Order.class))).thenReturn(new OrderResponseDTO());
+        when(orderMapper.toOrderItemResponseDTO(any())).thenReturn(new OrderItemResponseDTO());
+
+        orderService.createOrder(dto);
+
+        // 3 x 0.10 is 0.30000000000000004 in doubles
+        ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).save(order.capture());
+        assertEquals(30, order.getValue().getTotalAmountCents());
+        ArgumentCaptor<List<OrderItem>> items = ArgumentCaptor.captor();
+        verify(orderItemRepository).saveAll(items.capture());
+        assertEquals(30, items.getValue().getFirst().getTotalPriceCents());
     }
 
     @Test
@@ -150,10 +248,6 @@ class OrderServiceTest {
         existingOrder.setUserId(1L);
         existingOrder.setStatus(OrderStatus.PENDING);
         
-        Order updatedOrder = new Order();
-        updatedOrder.setId(1L);
-        updatedOrder.setStatus(OrderStatus.SHIPPED);
-        
         User user = new User();
         user.setFirstName("John");
         user.setLastName("Doe");
@@ -162,25 +256,77 @@ class OrderServiceTest {
         responseDTO.setId(1L);
 
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
-        when(orderRepository.save(existingOrder)).thenReturn(updatedOrder);
+        when(orderRepository.updateStatus(1L, OrderStatus.SHIPPED)).thenReturn(Optional.of(OrderStatus.PENDING));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(orderMapper.toResponseDTO(updatedOrder)).thenReturn(responseDTO);
+        when(orderMapper.toResponseDTO(existingOrder)).thenReturn(responseDTO);
         when(orderItemRepository.findByOrderId(1L)).thenReturn(new ArrayList<>());
 
         OrderResponseDTO result = orderService.updateOrderStatus(1L, updateDTO);
 
         assertNotNull(result);
+        assertEquals(OrderStatus.SHIPPED, existingOrder.getStatus());
+        verifyNoInteractions(salesRollupRepository);
+    }
+
+    @Test
+    void updateOrderStatus_CancellingReversesSalesAndReinstatingRecordsThem() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setUserId(1L);
+        order.setStatus(OrderStatus.PROCESSING);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 30));
+        List<OrderItem> items = List.of(OrderItem.builder().id(3L).orderId(1L).productId(7L).quantity(2)
+                .totalPriceCents(1_998).build());
+
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        // The second cancellation finds the order already cancelled under the row lock
+        when(orderRepository.updateStatus(eq(1L), any())).thenReturn(Optional.of(OrderStatus.PROCESSING),
+                Optional.of(OrderStatus.CANCELLED), Optional.of(OrderStatus.CANCELLED));
+        when(orderItemRepository.findByOrderId(1L)).thenReturn(items);
+        when(orderMapper.toResponseDTO(order)).thenReturn(new OrderResponseDTO());
+        when(orderMapper.toOrderItemResponseDTO(any())).thenReturn(new OrderItemResponseDTO());
+
+        UpdateOrderDTO cancel = new UpdateOrderDTO();
+        cancel.setStatus(OrderStatus.CANCELLED);
+        orderService.updateOrderStatus(1L, cancel);
+        orderService.updateOrderStatus(1L, cancel);
+        verify(salesRollupRepository, times(1)).reverse(LocalDate.of(2024, 3, 1), items);
+
+        UpdateOrderDTO reinstate = new UpdateOrderDTO();
+        reinstate.setStatus(OrderStatus.PENDING);
+        orderService.updateOrderStatus(1L, reinstate);
+        verify(salesRollupRepository).record(LocalDate.of(2024, 3, 1), items);
     }
 
     @Test
     void deleteOrder_Success() {
         Order order = new Order();
         order.setId(1L);
+        order.setStatus(OrderStatus.DELIVERED);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 30));
 
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
         when(orderItemRepository.findByOrderId(1L)).thenReturn(new ArrayList<>());
+        when(orderRepository.delete(order)).thenReturn(Optional.of(OrderStatus.DELIVERED));
 
         assertDoesNotThrow(() -> orderService.deleteOrder(1L));
         verify(orderRepository).delete(order);
+        verify(salesRollupRepository).reverse(LocalDate.of(2024, 3, 1), List.of());
+    }
+
+    @Test
+    void deleteOrder_AlreadyDeletedLeavesSalesAlone() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setStatus(OrderStatus.DELIVERED);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 30));
+
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.findByOrderId(1L)).thenReturn(new ArrayList<>());
+        when(orderRepository.delete(order)).thenReturn(Optional.empty());
+
+        orderService.deleteOrder(1L);
+
+        verifyNoInteractions(salesRollupRepository);
     }
 }
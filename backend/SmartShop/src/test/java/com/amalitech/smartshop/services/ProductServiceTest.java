@@ -1,22 +1,31 @@
 package com.amalitech.smartshop.services;
 
 import com.amalitech.smartshop.dtos.requests.AddProductDTO;
+import com.amalitech.smartshop.dtos.responses.PagedResponse;
 import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
 import com.amalitech.smartshop.dtos.requests.UpdateProductDTO;
 import com.amalitech.smartshop.entities.Category;
 import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.exceptions.BadRequestFormat;
 import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.mappers.ProductMapper;
+import com.amalitech.smartshop.search.ProductSearchIndex;
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.CatalogEngine;
+import com.amalitech.smartshop.cache.StockIndex;
 import com.amalitech.smartshop.interfaces.CategoryRepository;
 import com.amalitech.smartshop.interfaces.InventoryRepository;
 import com.amalitech.smartshop.interfaces.ProductRepository;
+import com.amalitech.smartshop.utils.sorting.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,10 +50,19 @@ class ProductServiceTest {
     @Mock
     private CacheManager cacheManager;
 
+    @Mock
+    private StockIndex stockIndex;
+
+    @Mock
+    private CatalogEngine catalogEngine;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        productService = new ProductServiceImpl(productRepository, productMapper, categoryRepository, inventoryRepository, cacheManager);
+        productService = new ProductServiceImpl(productRepository, productMapper, categoryRepository, inventoryRepository, cacheManager, stockIndex, catalogEngine, productSearchIndex);
     }
 
     @Test
@@ -175,4 +193,43 @@ class ProductServiceTest {
         assertDoesNotThrow(() -> productService.deleteProduct(1L));
         verify(productRepository).delete(entity);
     }
+
+    @Test
+    void searchProductsInDatabase_RejectsInvertedPriceRange() {
+        ProductRepository.SearchFilters filters = new ProductRepository.SearchFilters(null, 50.0, 10.0);
+
+        assertThrows(BadRequestFormat.class, () -> productService.searchProductsInDatabase("mug", filters, null, 10));
+        verify(productRepository, never()).search(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getSortedProducts_ContinuesFromCursorOfLastProduct() {
+        Product lamp = Product.builder().id(4L).name("Lamp").priceCents(1_250).categoryId(1L).build();
+        Product mug = Product.builder().id(9L).name("Mug").priceCents(1_250).categoryId(1L).build();
+        Product vase = Product.builder().id(2L).name("Vase").priceCents(3_000).categoryId(1L).build();
+        Pageable pageable = Pageable.ofSize(2);
+        KeysetCursor afterMug = new KeysetCursor("PRICE", "12.50", 9L);
+
+        when(productRepository.findSorted(null, null, ProductRepository.SortField.PRICE, true, null, pageable))
+                .thenReturn(new PageImpl<>(List.of(lamp, mug), pageable, 3));
+        when(productRepository.findSorted(null, null, ProductRepository.SortField.PRICE, true, afterMug, pageable))
+                .thenReturn(new PageImpl<>(List.of(vase), pageable, 3));
+        when(productMapper.toResponseDTO(any(Product.class))).thenAnswer(invocation -> {
+            ProductResponseDTO response = new ProductResponseDTO();
+            response.setId(invocation.<Product>getArgument(0).getId());
+            return response;
+        });
+
+        PagedResponse<ProductResponseDTO> first = productService.getSortedProducts(
+                null, null, ProductRepository.SortField.PRICE, true, null, pageable);
+        assertFalse(first.isLast());
+        assertEquals(afterMug, KeysetCursor.decode(first.nextCursor(), "PRICE"));
+        assertThrows(BadRequestFormat.class, () -> KeysetCursor.decode(first.nextCursor(), "NAME"));
+
+        PagedResponse<ProductResponseDTO> second = productService.getSortedProducts(
+                null, null, ProductRepository.SortField.PRICE, true, first.nextCursor(), pageable);
+        assertEquals(List.of(2L), second.content().stream().map(ProductResponseDTO::getId).toList());
+        assertTrue(second.isLast());
+        assertNull(second.nextCursor());
+    }
 }
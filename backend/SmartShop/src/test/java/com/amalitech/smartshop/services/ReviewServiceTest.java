@@ -0,0 +1,109 @@
+package com.amalitech.smartshop.services;
+
+import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.config.JdbcTransactions;
+import com.amalitech.smartshop.dtos.requests.AddReviewDTO;
+import com.amalitech.smartshop.dtos.requests.UpdateReviewDTO;
+import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.entities.Review;
+import com.amalitech.smartshop.entities.User;
+import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
+import com.amalitech.smartshop.interfaces.ProductRepository;
+import com.amalitech.smartshop.interfaces.ReviewRepository;
+import com.amalitech.smartshop.interfaces.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReviewServiceTest {
+
+    private ReviewServiceImpl reviewService;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private JdbcTransactions jdbcTransactions;
+
+    private Product product;
+    private Review review;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        reviewService = new ReviewServiceImpl(reviewRepository, productRepository, userRepository, cacheManager,
+                jdbcTransactions);
+        when(jdbcTransactions.inTransaction(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        product = Product.builder().id(4L).name("Lamp").categoryId(2L).vendorId(7L).build();
+        review = Review.builder().id(10L).productId(4L).userId(1L).rating(3).comment("Fine").build();
+        when(productRepository.findById(4L)).thenReturn(Optional.of(product));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().id(1L).firstName("Ada").lastName("Lovelace").build()));
+        when(reviewRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void addReview_AddsRatingToProductAggregates() {
+        AddReviewDTO request = new AddReviewDTO();
+        request.setProductId(4L);
+        request.setRating(5);
+
+        reviewService.addReview(request, 1L);
+
+        verify(productRepository).updateRating(4L, null, 5);
+        verify(cacheManager).invalidate("prod:4");
+        verify(cacheManager).invalidate("prod:list:cat:2");
+        verify(cacheManager).invalidate("prod:list:vendor:7");
+    }
+
+    @Test
+    void updateReview_MovesRatingOnlyWhenItChanges() {
+        UpdateReviewDTO commentOnly = new UpdateReviewDTO();
+        commentOnly.setComment("Better than expected");
+        reviewService.updateReview(10L, commentOnly, 1L);
+        verify(productRepository, never()).updateRating(any(), any(), any());
+
+        UpdateReviewDTO rerated = new UpdateReviewDTO();
+        rerated.setRating(4);
+        reviewService.updateReview(10L, rerated, 1L);
+
+        verify(productRepository).updateRating(4L, 3, 4);
+        verify(cacheManager).invalidate("prod:4");
+    }
+
+    @Test
+    void deleteReview_AlreadyDeletedLeavesAggregatesAlone() {
+        when(reviewRepository.findByIdForUpdate(10L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> reviewService.deleteReview(10L, 1L));
+        verify(reviewRepository, never()).deleteById(any());
+        verify(productRepository, never()).updateRating(any(), any(), any());
+    }
+
+    @Test
+    void deleteReview_RemovesRatingFromProductAggregates() {
+        reviewService.deleteReview(10L, 1L);
+
+        verify(reviewRepository).deleteById(10L);
+        verify(productRepository).updateRating(4L, 3, null);
+        verify(cacheManager).invalidate("prod:4");
+    }
+}
@@ -10,9 +10,11 @@ import com.amalitech.smartshop.exceptions.ResourceAlreadyExistsException;
 import com.amalitech.smartshop.exceptions.ResourceNotFoundException;
 import com.amalitech.smartshop.mappers.UserMapper;
 import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.config.JdbcTransactions;
 import com.amalitech.smartshop.interfaces.UserRepository;
 import com.amalitech.smartshop.interfaces.OrderRepository;
 import com.amalitech.smartshop.interfaces.OrderItemRepository;
+import com.amalitech.smartshop.interfaces.SalesRollupRepository;
 import com.amalitech.smartshop.interfaces.SessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,13 +47,24 @@ class UserServiceTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private JdbcTransactions jdbcTransactions;
+
     @Mock
     private SessionService sessionService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserServiceImpl(userRepository, userMapper, cacheManager, orderRepository, orderItemRepository, sessionService);
+        userService = new UserServiceImpl(userRepository, userMapper, cacheManager, orderRepository, orderItemRepository,
+                salesRollupRepository, jdbcTransactions, sessionService);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(jdbcTransactions).runInTransaction(any());
     }
 
     @Test
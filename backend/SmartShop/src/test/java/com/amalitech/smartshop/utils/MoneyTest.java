@@ -0,0 +1,41 @@
+package com.amalitech.smartshop.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void ofDecimal_RoundsHalfUpToCents() {
+        assertEquals(1_999, Money.ofDecimal(new BigDecimal("19.99")));
+        assertEquals(1_250, Money.ofDecimal(new BigDecimal("12.5")));
+        assertEquals(29, Money.ofDecimal(0.285));
+        assertEquals(-29, Money.ofDecimal(-0.285));
+        assertEquals(99_999, Money.ofDecimal(999.99));
+    }
+
+    @Test
+    void ofExactDouble_RecoversCentsOfEveryConvertedAmount() {
+        for (long cents = -100_000; cents <= 10_000_000; cents += 7) {
+            assertEquals(cents, Money.ofExactDouble(Money.toDouble(cents)));
+        }
+        assertEquals(99_999_999_999L, Money.ofExactDouble(Money.toDouble(99_999_999_999L)));
+    }
+
+    @Test
+    void toDecimal_KeepsTwoPlaces() {
+        assertEquals("12.50", Money.toDecimal(1_250).toPlainString());
+        assertEquals("-0.05", Money.toDecimal(-5).toPlainString());
+        assertEquals(1_250, Money.ofDecimal(Money.toDecimal(1_250)));
+    }
+
+    @Test
+    void arithmetic_FailsOnOverflow() {
+        assertEquals(30, Money.plus(Money.times(10, 2), 10));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+    }
+}
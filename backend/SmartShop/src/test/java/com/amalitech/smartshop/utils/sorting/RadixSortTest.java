@@ -0,0 +1,64 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixSortTest {
+
+    @Test
+    void sort_LongKeysMatchStableComparatorSort() {
+        Random random = new Random(3);
+        List<Long> values = new ArrayList<>(List.of(0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE,
+                (long) Integer.MIN_VALUE, (long) Integer.MAX_VALUE));
+        for (int i = 0; i < 20_000; i++) {
+            // Few distinct cent amounts so many keys repeat and ties must keep list order
+            values.add((long) ((random.nextDouble() - 0.3) * 20_000));
+        }
+        List<Long[]> items = new ArrayList<>();
+        for (Long value : values) {
+            items.add(new Long[]{value});
+        }
+        Comparator<Long[]> byValue = Comparator.comparing(item -> item[0]);
+
+        for (boolean ascending : new boolean[]{true, false}) {
+            List<Long[]> expected = new ArrayList<>(items);
+            expected.sort(ascending ? byValue : byValue.reversed());
+            List<Long[]> actual = new ArrayList<>(items);
+
+            RadixSort.sort(actual, item -> item[0], ascending);
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), actual.get(i), "ascending=" + ascending + " index " + i);
+            }
+        }
+    }
+
+    @Test
+    void sort_SmallIntegerKeys() {
+        List<Integer> values = new ArrayList<>(List.of(7, -3, 250, 0, 7, -70_000, 42));
+
+        RadixSort.sort(values, Integer::longValue, true);
+        assertEquals(List.of(-70_000, -3, 0, 7, 7, 42, 250), values);
+
+        RadixSort.sort(values, Integer::longValue, false);
+        assertEquals(List.of(250, 42, 7, 7, 0, -3, -70_000), values);
+    }
+
+    @Test
+    void epochNanos_OrdersTimestampsWithinTheSameSecond() {
+        LocalDateTime second = LocalDateTime.of(2024, 3, 1, 12, 0, 0);
+        LocalDateTime later = second.plusNanos(1);
+        LocalDateTime earlier = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999);
+
+        assertTrue(RadixSort.epochNanos(second) < RadixSort.epochNanos(later));
+        assertEquals(-1L, RadixSort.epochNanos(earlier));
+        assertTrue(RadixSort.epochNanos(null) < RadixSort.epochNanos(earlier));
+    }
+}
@@ -0,0 +1,92 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortingServiceTest {
+
+    private static final Comparator<int[]> BY_KEY = Comparator.comparingInt(item -> item[0]);
+
+    @Test
+    void sort_EveryAlgorithmMatchesListSort() {
+        for (SortingService.SortAlgorithm algorithm : SortingService.SortAlgorithm.values()) {
+            for (List<int[]> input : inputs(algorithm == SortingService.SortAlgorithm.QUICKSORT ? 2_000 : 100_000)) {
+                List<int[]> expected = new ArrayList<>(input);
+                expected.sort(BY_KEY);
+                List<int[]> actual = new ArrayList<>(input);
+
+                SortingService.sort(actual, BY_KEY, algorithm);
+
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i)[0], actual.get(i)[0], algorithm + " index " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sort_MergeSortsKeepEqualElementsInOrder() {
+        List<SortingService.SortAlgorithm> stable = List.of(SortingService.SortAlgorithm.ADAPTIVE_MERGESORT,
+                SortingService.SortAlgorithm.PARALLEL_MERGESORT, SortingService.SortAlgorithm.AUTO);
+        for (SortingService.SortAlgorithm algorithm : stable) {
+            for (List<int[]> input : inputs(100_000)) {
+                List<int[]> expected = new ArrayList<>(input);
+                expected.sort(BY_KEY);
+                List<int[]> actual = new ArrayList<>(input);
+
+                SortingService.sort(actual, BY_KEY, algorithm);
+
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), actual.get(i), algorithm + " index " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sort_IntroSortHandlesSortedInputAtScale() {
+        List<int[]> sorted = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            sorted.add(new int[]{i, i});
+        }
+        List<int[]> reversed = new ArrayList<>(sorted);
+        Collections.reverse(reversed);
+
+        SortingService.sort(sorted, BY_KEY, SortingService.SortAlgorithm.INTROSORT);
+        SortingService.sort(reversed, BY_KEY, SortingService.SortAlgorithm.INTROSORT);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, sorted.get(i)[0]);
+            assertEquals(i, reversed.get(i)[0]);
+        }
+    }
+
+    /** Random, few distinct keys, ascending, descending and sawtooth inputs; {@code item[1]} is the position. */
+    private static List<List<int[]>> inputs(int n) {
+        Random random = new Random(11);
+        List<List<int[]>> inputs = new ArrayList<>();
+        int[][] keys = new int[5][n];
+        for (int i = 0; i < n; i++) {
+            keys[0][i] = random.nextInt();
+            keys[1][i] = random.nextInt(8);
+            keys[2][i] = i / 3;
+            keys[3][i] = n - i / 3;
+            keys[4][i] = i % 1_000;
+        }
+        for (int[] column : keys) {
+            List<int[]> input = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                input.add(new int[]{column[i], i});
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+}
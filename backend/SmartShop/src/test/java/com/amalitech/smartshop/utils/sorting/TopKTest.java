@@ -0,0 +1,46 @@
+package com.amalitech.smartshop.utils.sorting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    void select_MatchesHeadOfStableSort() {
+        Random random = new Random(7);
+        List<int[]> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Few distinct keys, so ties must come out in list order
+            items.add(new int[]{random.nextInt(50), i});
+        }
+        Comparator<int[]> byKey = Comparator.comparingInt(item -> item[0]);
+
+        for (Comparator<int[]> comparator : List.of(byKey, byKey.reversed())) {
+            List<int[]> sorted = new ArrayList<>(items);
+            sorted.sort(comparator);
+            for (int k : new int[]{1, 20, 999, 5_000, 8_000}) {
+                List<int[]> top = TopK.select(items, comparator, k);
+                assertEquals(Math.min(k, items.size()), top.size());
+                for (int i = 0; i < top.size(); i++) {
+                    assertSame(sorted.get(i), top.get(i), "k=" + k + " index " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void select_LeavesInputUntouchedAndHandlesEdgeCases() {
+        List<Integer> values = new ArrayList<>(List.of(5, 3, 9, 1));
+
+        assertEquals(List.of(9, 5), TopK.select(values, Comparator.<Integer>reverseOrder(), 2));
+        assertEquals(List.of(5, 3, 9, 1), values);
+        assertTrue(TopK.select(values, Comparator.<Integer>naturalOrder(), 0).isEmpty());
+        assertTrue(TopK.select(List.<Integer>of(), Comparator.<Integer>naturalOrder(), 3).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.aspects.PerformanceMonitoringAspect;
+import com.amalitech.smartshop.repositories.EchoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of {@link PerformanceMonitoringAspect} on repository methods:
+ * a direct call, a call through a Spring proxy with no advice, and a call through
+ * a proxy carrying the aspect. The aspect's per-call INFO log line is disabled by
+ * this module's logback configuration; enabling INFO adds the logging cost on top.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AspectOverheadBenchmark {
+
+    private EchoRepository direct;
+    private EchoRepository proxied;
+    private EchoRepository monitored;
+    private long id;
+
+    @Setup
+    public void setUp() {
+        direct = new EchoRepository();
+
+        ProxyFactory plain = new ProxyFactory(new EchoRepository());
+        plain.setProxyTargetClass(true);
+        proxied = (EchoRepository) plain.getProxy();
+
+        AspectJProxyFactory advised = new AspectJProxyFactory(new EchoRepository());
+        advised.setProxyTargetClass(true);
+        advised.addAspect(new PerformanceMonitoringAspect());
+        monitored = advised.getProxy();
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.findById(++id);
+    }
+
+    @Benchmark
+    public long proxyWithoutAdvice() {
+        return proxied.findById(++id);
+    }
+
+    @Benchmark
+    public long proxyWithMonitoringAspect() {
+        return monitored.findById(++id);
+    }
+}
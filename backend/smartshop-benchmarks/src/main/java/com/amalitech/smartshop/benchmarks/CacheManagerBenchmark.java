@@ -0,0 +1,96 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.aspects.PerformanceMonitoringAspect;
+import com.amalitech.smartshop.cache.CacheManager;
+import com.amalitech.smartshop.cache.OffHeapCacheTier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link CacheManager#get} under contention: eight threads reading a warm region,
+ * and seven readers racing one thread that invalidates random keys, so a share
+ * of the reads miss and reload.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheManagerBenchmark {
+
+    /** Stays below the cache's capacity, so reads only miss after an invalidation. */
+    private static final int KEYS = 512;
+
+    private CacheManager cacheManager;
+    private String[] keys;
+    private Supplier<Object>[] loaders;
+
+    @State(Scope.Thread)
+    public static class KeyPicker {
+
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next() {
+            return random.nextInt(KEYS);
+        }
+    }
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        cacheManager = new CacheManager(new PerformanceMonitoringAspect(), new OffHeapCacheTier(false, 0),
+                300, false, 30, 60, 1, "cat,invent");
+        keys = new String[KEYS];
+        loaders = new Supplier[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            String value = "product " + i;
+            keys[i] = "prod:" + i;
+            loaders[i] = () -> value;
+            cacheManager.get(keys[i], loaders[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.shutdown();
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(8)
+    public Object readOnlyGet(KeyPicker picker) {
+        int i = picker.next();
+        return cacheManager.get(keys[i], loaders[i]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(7)
+    public Object readWriteGet(KeyPicker picker) {
+        int i = picker.next();
+        return cacheManager.get(keys[i], loaders[i]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWriteInvalidate(KeyPicker picker) {
+        cacheManager.invalidate(keys[picker.next()]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.dtos.requests.AddProductDTO;
+import com.amalitech.smartshop.dtos.responses.OrderItemResponseDTO;
+import com.amalitech.smartshop.dtos.responses.OrderResponseDTO;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.entities.Order;
+import com.amalitech.smartshop.entities.OrderItem;
+import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.mappers.OrderMapper;
+import com.amalitech.smartshop.mappers.OrderMapperImpl;
+import com.amalitech.smartshop.mappers.ProductMapper;
+import com.amalitech.smartshop.mappers.ProductMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MapStruct-generated mappers on the paths every listing and order response
+ * takes, instantiated directly as Spring would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final OrderMapper orderMapper = new OrderMapperImpl();
+
+    private Product product;
+    private AddProductDTO addProduct;
+    private Order order;
+    private OrderItem orderItem;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 15, 10, 30);
+        product = Product.builder()
+                .id(42L)
+                .name("Wireless Headphones")
+                .description("Over-ear wireless headphones with active noise cancelling")
+                .imageUrl("https://cdn.example.com/products/42.jpg")
+                .sku("SKU-100042")
+                .priceCents(14_999)
+                .categoryId(3L)
+                .vendorId(7L)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        addProduct = new AddProductDTO();
+        addProduct.setName(product.getName());
+        addProduct.setDescription(product.getDescription());
+        addProduct.setImageUrl(product.getImageUrl());
+        addProduct.setSku(product.getSku());
+        addProduct.setPrice(149.99);
+        addProduct.setCategoryId(product.getCategoryId());
+
+        order = Order.builder().id(9L).userId(5L).totalAmountCents(29_998).createdAt(now).updatedAt(now).build();
+        orderItem = OrderItem.builder().id(11L).orderId(9L).productId(42L).quantity(2).totalPriceCents(29_998).build();
+    }
+
+    @Benchmark
+    public ProductResponseDTO productToResponse() {
+        return productMapper.toResponseDTO(product);
+    }
+
+    @Benchmark
+    public Product addProductToEntity() {
+        return productMapper.toEntity(addProduct);
+    }
+
+    @Benchmark
+    public OrderResponseDTO orderToResponse() {
+        return orderMapper.toResponseDTO(order);
+    }
+
+    @Benchmark
+    public OrderItemResponseDTO orderItemToResponse() {
+        return orderMapper.toOrderItemResponseDTO(orderItem);
+    }
+}
@@ -0,0 +1,128 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.entities.Product;
+import com.amalitech.smartshop.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a product row into an entity with {@code ProductRepository.mapRow},
+ * the mapping every product query runs per row. Rows come from an in-memory
+ * {@link CachedRowSet} shaped like the {@code products} query, so the numbers
+ * leave out the driver's decoding; {@link #readColumnsOnly} reads the same
+ * columns without building a {@link Product}, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetMappingBenchmark {
+
+    private static final int ROWS = 1_000;
+    private static final String[] COLUMNS = {"id", "name", "description", "image_url", "sku", "price", "vendor_id",
+            "is_available", "rating_count", "average_rating", "created_at", "updated_at", "category_id",
+            "category_name"};
+    private static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.DECIMAL, Types.BIGINT, Types.BOOLEAN, Types.BIGINT, Types.REAL, Types.TIMESTAMP, Types.TIMESTAMP,
+            Types.BIGINT, Types.VARCHAR};
+
+    private CachedRowSet rows;
+    private MethodHandle mapRow;
+    private ProductRepository repository;
+    private int row;
+
+    @Setup
+    public void setUp() throws Exception {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            metaData.setColumnName(i + 1, COLUMNS[i]);
+            metaData.setColumnLabel(i + 1, COLUMNS[i]);
+            metaData.setColumnType(i + 1, TYPES[i]);
+        }
+        rows = RowSetProvider.newFactory().createCachedRowSet();
+        rows.setMetaData(metaData);
+        Timestamp created = Timestamp.valueOf("2024-01-15 10:30:00");
+        for (int i = 0; i < ROWS; i++) {
+            rows.moveToInsertRow();
+            rows.updateLong("id", i + 1);
+            rows.updateString("name", "Wireless Headphones " + i);
+            rows.updateString("description", "Over-ear wireless headphones with active noise cancelling");
+            rows.updateString("image_url", "https://cdn.example.com/products/" + i + ".jpg");
+            rows.updateString("sku", "SKU-" + (100_000 + i));
+            rows.updateBigDecimal("price", BigDecimal.valueOf(4_999 + 100L * i, 2));
+            if (i % 3 == 0) {
+                rows.updateNull("vendor_id");
+            } else {
+                rows.updateLong("vendor_id", i % 17);
+            }
+            rows.updateBoolean("is_available", true);
+            rows.updateLong("rating_count", i % 40);
+            rows.updateFloat("average_rating", i % 40 == 0 ? 0f : 3f + (i % 5) * 0.4f);
+            rows.updateTimestamp("created_at", created);
+            rows.updateTimestamp("updated_at", created);
+            rows.updateLong("category_id", i % 12);
+            rows.updateString("category_name", "Audio");
+            rows.insertRow();
+            rows.moveToCurrentRow();
+        }
+
+        // mapRow is private; call the real method rather than a copy that could drift from it
+        mapRow = MethodHandles.privateLookupIn(ProductRepository.class, MethodHandles.lookup())
+                .findVirtual(ProductRepository.class, "mapRow", MethodType.methodType(Product.class, ResultSet.class));
+        repository = new ProductRepository(null, null);
+    }
+
+    @Benchmark
+    public Product mapRow() throws Throwable {
+        nextRow();
+        return (Product) mapRow.invokeExact(repository, (ResultSet) rows);
+    }
+
+    @Benchmark
+    public void readColumnsOnly(Blackhole blackhole) throws SQLException {
+        nextRow();
+        blackhole.consume(rows.getLong("id"));
+        blackhole.consume(rows.getString("name"));
+        blackhole.consume(rows.getString("description"));
+        blackhole.consume(rows.getString("image_url"));
+        blackhole.consume(rows.getString("sku"));
+        blackhole.consume(rows.getBigDecimal("price"));
+        blackhole.consume(rows.getObject("vendor_id"));
+        blackhole.consume(rows.getBoolean("is_available"));
+        blackhole.consume(rows.getLong("rating_count"));
+        blackhole.consume(rows.getFloat("average_rating"));
+        blackhole.consume(rows.getTimestamp("created_at"));
+        blackhole.consume(rows.getTimestamp("updated_at"));
+        blackhole.consume(rows.getLong("category_id"));
+    }
+
+    private void nextRow() throws SQLException {
+        row = row == ROWS ? 1 : row + 1;
+        rows.absolute(row);
+    }
+}
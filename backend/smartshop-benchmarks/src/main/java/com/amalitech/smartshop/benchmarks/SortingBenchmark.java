@@ -0,0 +1,163 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import com.amalitech.smartshop.utils.sorting.MergeSort;
+import com.amalitech.smartshop.utils.sorting.QuickSort;
+import com.amalitech.smartshop.utils.sorting.SortingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting a product listing by price across sizes and input orders. Each call
+ * sorts a fresh copy of the input; {@link #copyOnly} measures the copy alone.
+ * {@link #topK} selects the cheapest {@code k} products of a random listing, as a
+ * listing with a limit does, against {@link #sortThenTake} sorting all of it.
+ * <p>
+ * QUICKSORT picks the last element as pivot and is quadratic on ordered input,
+ * so those combinations above {@link #QUADRATIC_LIMIT} elements fail fast
+ * instead of running for minutes or overflowing the stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortingBenchmark {
+
+    private static final int QUADRATIC_LIMIT = 10_000;
+    private static final Comparator<ProductResponseDTO> BY_PRICE = Comparator.comparing(ProductResponseDTO::getPrice);
+
+    public enum InputOrder {
+        RANDOM, SORTED, REVERSED, FEW_DISTINCT
+    }
+
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        @Param({"1000", "100000", "1000000"})
+        int size;
+
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_DISTINCT"})
+        InputOrder order;
+
+        List<ProductResponseDTO> products;
+
+        @Setup
+        public void setUp() {
+            products = products(size, order == InputOrder.FEW_DISTINCT);
+            if (order == InputOrder.SORTED || order == InputOrder.REVERSED) {
+                products.sort(BY_PRICE);
+            }
+            if (order == InputOrder.REVERSED) {
+                Collections.reverse(products);
+            }
+        }
+
+        void rejectQuadraticCase(SortingService.SortAlgorithm algorithm) {
+            if (algorithm == SortingService.SortAlgorithm.QUICKSORT && order != InputOrder.RANDOM && size > QUADRATIC_LIMIT) {
+                throw new IllegalStateException("QUICKSORT is quadratic on " + order + " input of " + size + " elements");
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Selection {
+
+        @Param({"10000", "100000", "1000000"})
+        int size;
+
+        @Param({"10", "100", "1000"})
+        int k;
+
+        List<ProductResponseDTO> products;
+
+        final SortingService sortingService = new SortingService();
+
+        @Setup
+        public void setUp() {
+            products = products(size, false);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Algorithm {
+
+        @Param({"QUICKSORT", "MERGESORT", "INTROSORT", "ADAPTIVE_MERGESORT", "PARALLEL_MERGESORT", "RADIX", "AUTO"})
+        SortingService.SortAlgorithm algorithm;
+
+        final SortingService sortingService = new SortingService();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> sortingService(Input input, Algorithm algorithm) {
+        input.rejectQuadraticCase(algorithm.algorithm);
+        List<ProductResponseDTO> copy = new ArrayList<>(input.products);
+        algorithm.sortingService.sortProducts(copy, SortingService.ProductSortField.PRICE, true, algorithm.algorithm);
+        return copy;
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> quickSort(Input input) {
+        input.rejectQuadraticCase(SortingService.SortAlgorithm.QUICKSORT);
+        List<ProductResponseDTO> copy = new ArrayList<>(input.products);
+        QuickSort.sort(copy, BY_PRICE);
+        return copy;
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> mergeSort(Input input) {
+        List<ProductResponseDTO> copy = new ArrayList<>(input.products);
+        MergeSort.sort(copy, BY_PRICE);
+        return copy;
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> copyOnly(Input input) {
+        return new ArrayList<>(input.products);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> topK(Selection selection) {
+        return selection.sortingService.topK(selection.products, SortingService.ProductSortField.PRICE, true, selection.k);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> sortThenTake(Selection selection) {
+        List<ProductResponseDTO> copy = new ArrayList<>(selection.products);
+        selection.sortingService.sortProducts(copy, SortingService.ProductSortField.PRICE, true,
+                SortingService.SortAlgorithm.AUTO);
+        return new ArrayList<>(copy.subList(0, selection.k));
+    }
+
+    private static List<ProductResponseDTO> products(int size, boolean fewDistinct) {
+        Random random = new Random(42);
+        List<ProductResponseDTO> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductResponseDTO product = new ProductResponseDTO();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setPrice(fewDistinct
+                    ? 5.0 * random.nextInt(20)
+                    : Math.round(random.nextDouble() * 1_000_000) / 100.0);
+            product.setQuantity(random.nextInt(500));
+            products.add(product);
+        }
+        return products;
+    }
+}
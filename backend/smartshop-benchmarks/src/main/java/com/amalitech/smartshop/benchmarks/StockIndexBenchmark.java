@@ -0,0 +1,135 @@
+package com.amalitech.smartshop.benchmarks;
+
+import com.amalitech.smartshop.cache.StockIndex;
+import com.amalitech.smartshop.dtos.responses.ProductResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling the quantities of a listing page from {@link StockIndex}, against the
+ * same quantities held boxed in a {@link HashMap}, the shape of the per-product
+ * {@code invent:} cache entries the index replaces. {@link #set} measures one
+ * stock change with its version check. The index is loaded through
+ * {@link StockIndex#rebuild} from an in-memory result set, so the numbers leave
+ * out the database. Run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockIndexBenchmark {
+
+    private static final int PAGES = 64;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "1000000"})
+    int products;
+
+    private StockIndex stockIndex;
+    private Map<Long, Integer> boxed;
+    private List<List<ProductResponseDTO>> pages;
+    private SplittableRandom random;
+    private long version;
+    private int page;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(42);
+        long[] ids = new long[products];
+        int[] quantities = new int[products];
+        boxed = new HashMap<>(products * 2);
+        for (int i = 0; i < products; i++) {
+            ids[i] = i + 1;
+            quantities[i] = random.nextInt(500);
+            boxed.put(ids[i], quantities[i]);
+        }
+        stockIndex = new StockIndex(inventory(ids, quantities));
+        stockIndex.rebuild();
+        version = products;
+
+        pages = new ArrayList<>(PAGES);
+        for (int p = 0; p < PAGES; p++) {
+            List<ProductResponseDTO> content = new ArrayList<>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                ProductResponseDTO product = new ProductResponseDTO();
+                // A page of random products, as a listing sorted by anything but id returns
+                product.setId(1L + random.nextInt(products));
+                content.add(product);
+            }
+            pages.add(content);
+        }
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> fillQuantities() {
+        List<ProductResponseDTO> content = nextPage();
+        stockIndex.fillQuantities(content, 0);
+        return content;
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> boxedMap() {
+        List<ProductResponseDTO> content = nextPage();
+        for (ProductResponseDTO product : content) {
+            product.setQuantity(boxed.getOrDefault(product.getId(), 0));
+        }
+        return content;
+    }
+
+    @Benchmark
+    public boolean set() {
+        return stockIndex.applySet(1 + random.nextInt(products), random.nextInt(500), ++version);
+    }
+
+    private List<ProductResponseDTO> nextPage() {
+        page = page == PAGES - 1 ? 0 : page + 1;
+        return pages.get(page);
+    }
+
+    /**
+     * A connection whose only query returns the given inventory rows, each with the
+     * row's position as its version.
+     */
+    private static Connection inventory(long[] ids, int[] quantities) {
+        int[] row = {-1};
+        ResultSet rows = proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> ++row[0] < ids.length;
+            case "getLong" -> (int) args[0] == 1 ? ids[row[0]] : (long) row[0] + 1;
+            case "getInt" -> quantities[row[0]];
+            default -> null;
+        });
+        Statement statement = proxy(Statement.class, (method, args) -> method.equals("executeQuery") ? rows : null);
+        return proxy(Connection.class, (method, args) -> method.equals("createStatement") ? statement : null);
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+}
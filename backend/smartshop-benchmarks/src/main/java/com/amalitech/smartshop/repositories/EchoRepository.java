@@ -0,0 +1,14 @@
+package com.amalitech.smartshop.repositories;
+
+/**
+ * Stand-in repository for {@code AspectOverheadBenchmark}. It lives in this
+ * package only so that the monitoring aspect's
+ * {@code execution(* com.amalitech.smartshop.repositories..*(..))} pointcut
+ * matches it; its method does no work, leaving just the cost of the advice.
+ */
+public class EchoRepository {
+
+    public long findById(long id) {
+        return id;
+    }
+}
@@ -0,0 +1,88 @@
+package com.amalitech.smartshop.loadgen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Customer accounts shared by the virtual users. A session holds its account
+ * exclusively, so two sessions never check out the same cart; when every
+ * account is busy, new sessions wait, and that wait counts toward their latency.
+ */
+final class AccountPool {
+
+    static final String PASSWORD = "LoadGen#2024";
+
+    static final class Account {
+
+        final String email;
+        volatile String token;
+
+        Account(String email) {
+            this.email = email;
+        }
+    }
+
+    private final BlockingQueue<Account> idle;
+
+    private AccountPool(List<Account> accounts) {
+        idle = new ArrayBlockingQueue<>(accounts.size(), false, accounts);
+    }
+
+    /**
+     * Logs in {@code count} load-test customers in parallel, registering those that
+     * do not exist yet; accounts that can do neither are left out.
+     */
+    static AccountPool prepare(SmartShopClient client, int count) throws InterruptedException {
+        List<Account> ready = new ArrayList<>();
+        List<Future<Account>> pending = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                Account account = new Account("loadgen-" + i + "@loadgen.local");
+                pending.add(executor.submit(() -> signIn(client, account)));
+            }
+        }
+        String lastError = null;
+        for (Future<Account> future : pending) {
+            try {
+                ready.add(future.get());
+            } catch (Exception e) {
+                lastError = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            }
+        }
+        if (ready.isEmpty()) {
+            throw new IllegalStateException("No account could log in or register; last error: " + lastError);
+        }
+        if (ready.size() < count) {
+            System.err.printf("%d of %d accounts unavailable; last error: %s%n", count - ready.size(), count, lastError);
+        }
+        return new AccountPool(ready);
+    }
+
+    /** Logs in, registering the account first if the login is refused. */
+    static Account signIn(SmartShopClient client, Account account) throws IOException, InterruptedException {
+        try {
+            account.token = client.login(account.email, PASSWORD);
+        } catch (SmartShopClient.RequestFailedException e) {
+            account.token = client.register(account.email, PASSWORD, "Load", "Generator");
+        }
+        return account;
+    }
+
+    Account take() throws InterruptedException {
+        return idle.take();
+    }
+
+    void release(Account account) {
+        idle.add(account);
+    }
+
+    int size() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,111 @@
+package com.amalitech.smartshop.loadgen;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line settings of a load run. Every option has a default suited to a
+ * SmartShop started locally with the {@code dev} profile.
+ *
+ * @param model       OPEN starts sessions at {@code rate} per second whether or not
+ *                    earlier ones finished; CLOSED keeps {@code virtualUsers} sessions looping
+ * @param maxInFlight open model only: sessions beyond this many running are dropped and counted
+ * @param restock     raises every product's stock to at least this before the run; 0 skips it
+ */
+record LoadConfig(
+        String baseUrl,
+        Model model,
+        double rate,
+        Arrivals arrivals,
+        int virtualUsers,
+        Duration duration,
+        int accounts,
+        Duration thinkTime,
+        int maxInFlight,
+        String dbUrl,
+        String dbUser,
+        String dbPassword,
+        int restock
+) {
+
+    enum Model {OPEN, CLOSED}
+
+    enum Arrivals {CONSTANT, POISSON}
+
+    static final String USAGE = """
+            Usage: java -jar loadgen.jar [--option value ...]
+              --base-url URL        SmartShop to drive (http://localhost:8080)
+              --model open|closed   open: fixed arrival rate; closed: fixed number of users (open)
+              --rate N              open model: new sessions per second (5)
+              --arrivals constant|poisson
+                                    open model: arrival spacing (poisson)
+              --max-in-flight N     open model: drop arrivals beyond this many running sessions (10000)
+              --users N             closed model: concurrent virtual users (20)
+              --duration D          run length, e.g. 90s, 5m (60s)
+              --accounts N          customer accounts to register or log in up front (100)
+              --think-time D        pause between steps of a session, e.g. 250ms (250ms)
+              --db-url URL          local Postgres used for restocking (jdbc:postgresql://localhost:5432/ecommerce_db)
+              --db-user USER        (spycon)
+              --db-password PASS    (myPassword)
+              --restock N           raise each product's stock to at least N before the run; 0 skips (1000)
+            """;
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                options.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+
+        LoadConfig config = new LoadConfig(
+                stripTrailingSlash(options.getOrDefault("base-url", "http://localhost:8080")),
+                Model.valueOf(options.getOrDefault("model", "open").toUpperCase(Locale.ROOT)),
+                Double.parseDouble(options.getOrDefault("rate", "5")),
+                Arrivals.valueOf(options.getOrDefault("arrivals", "poisson").toUpperCase(Locale.ROOT)),
+                Integer.parseInt(options.getOrDefault("users", "20")),
+                duration(options.getOrDefault("duration", "60s")),
+                Integer.parseInt(options.getOrDefault("accounts", "100")),
+                duration(options.getOrDefault("think-time", "250ms")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                options.getOrDefault("db-url", "jdbc:postgresql://localhost:5432/ecommerce_db"),
+                options.getOrDefault("db-user", "spycon"),
+                options.getOrDefault("db-password", "myPassword"),
+                Integer.parseInt(options.getOrDefault("restock", "1000")));
+
+        if (config.rate <= 0 || config.virtualUsers < 1 || config.accounts < 1 || config.maxInFlight < 1) {
+            throw new IllegalArgumentException("rate, users, accounts and max-in-flight must be positive");
+        }
+        return config;
+    }
+
+    /** Parses {@code 250ms}, {@code 90s}, {@code 5m} or {@code 1h}. */
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unknown duration: " + value);
+        };
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
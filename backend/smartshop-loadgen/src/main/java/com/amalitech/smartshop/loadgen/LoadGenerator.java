@@ -0,0 +1,175 @@
+package com.amalitech.smartshop.loadgen;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives shopper sessions against a running SmartShop and reports latency
+ * percentiles and throughput per endpoint.
+ * <p>
+ * Each session runs on its own virtual thread. In the open model sessions
+ * arrive on a schedule, constant or Poisson, regardless of how fast earlier
+ * ones complete, the way independent customers do; the {@value #SESSION} entry
+ * is measured from each session's scheduled start, so a server that falls
+ * behind shows up as latency instead of quietly lowering the offered load. The
+ * closed model keeps a fixed number of users looping instead.
+ */
+public final class LoadGenerator {
+
+    static final String SESSION = "session (from scheduled start)";
+
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_ERRORS_SHOWN = 5;
+
+    private final LoadConfig config;
+    private final Metrics metrics = new Metrics();
+    private final SmartShopClient client;
+    private final LongAdder sessionsStarted = new LongAdder();
+    private final AtomicInteger errorsShown = new AtomicInteger();
+    private volatile long lastReportNanos;
+
+    private LoadGenerator(LoadConfig config, HttpClient http) {
+        this.config = config;
+        this.client = new SmartShopClient(http, config.baseUrl(), metrics);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.print(LoadConfig.USAGE);
+            return;
+        }
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (config.restock() > 0) {
+            try {
+                System.out.printf("Restocked %d inventory rows to at least %d%n", Restocker.restock(config), config.restock());
+            } catch (Exception e) {
+                System.err.println("Skipping restock, database not reachable: " + e.getMessage());
+            }
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        // Sign-ins during setup go to a separate Metrics so they stay out of the report
+        AccountPool accounts = AccountPool.prepare(new SmartShopClient(http, config.baseUrl(), new Metrics()), config.accounts());
+        System.out.printf("%d accounts ready; %s model against %s for %ds%n", accounts.size(), config.model(),
+                config.baseUrl(), config.duration().toSeconds());
+
+        new LoadGenerator(config, http).run(accounts);
+    }
+
+    private void run(AccountPool accounts) throws InterruptedException {
+        ShopperSession session = new ShopperSession(client, config.thinkTime());
+        long start = System.nanoTime();
+        long end = start + config.duration().toNanos();
+        lastReportNanos = start;
+
+        Thread reporter = Thread.ofPlatform().name("loadgen-report").daemon(true).start(() -> report(start));
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.model() == LoadConfig.Model.OPEN) {
+                arrive(users, session, accounts, start, end);
+            } else {
+                for (int i = 0; i < config.virtualUsers(); i++) {
+                    users.submit(() -> {
+                        while (System.nanoTime() < end) {
+                            visit(session, accounts, System.nanoTime());
+                        }
+                    });
+                }
+            }
+        }
+        reporter.interrupt();
+        reporter.join();
+
+        long now = System.nanoTime();
+        long elapsed = now - start;
+        metrics.printInterval(System.out, elapsed, now - lastReportNanos);
+        System.out.printf("%nSessions started: %d%n", sessionsStarted.sum());
+        metrics.printSummary(System.out, elapsed);
+    }
+
+    /** Starts sessions on the arrival schedule until {@code end}, then lets running ones finish. */
+    private void arrive(ExecutorService users, ShopperSession session, AccountPool accounts, long start, long end) {
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long scheduled = next;
+            if (inFlight.tryAcquire()) {
+                users.submit(() -> {
+                    try {
+                        visit(session, accounts, scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } else {
+                metrics.recordDropped();
+            }
+            next += config.arrivals() == LoadConfig.Arrivals.POISSON
+                    ? (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos)
+                    : (long) meanGapNanos;
+        }
+    }
+
+    private void visit(ShopperSession session, AccountPool accounts, long scheduledNanos) {
+        sessionsStarted.increment();
+        boolean success = false;
+        AccountPool.Account account = null;
+        try {
+            account = accounts.take();
+            session.run(account);
+            success = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Failed calls are already counted per endpoint; show the first few so a broken setup is obvious
+            if (errorsShown.getAndIncrement() < MAX_ERRORS_SHOWN) {
+                System.err.println("Session failed: " + e.getMessage());
+            }
+        } finally {
+            if (account != null) {
+                accounts.release(account);
+            }
+            metrics.record(SESSION, System.nanoTime() - scheduledNanos, success);
+        }
+    }
+
+    private void report(long start) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(REPORT_INTERVAL_NANOS));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            metrics.printInterval(System.out, now - start, now - lastReportNanos);
+            lastReportNanos = now;
+        }
+    }
+}
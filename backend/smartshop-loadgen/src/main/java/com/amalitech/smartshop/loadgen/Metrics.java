@@ -0,0 +1,104 @@
+package com.amalitech.smartshop.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome per endpoint. Virtual users record into HdrHistogram
+ * {@link Recorder}s, which take no locks; only the reporting thread reads them,
+ * moving each interval's values into a running total for the final report.
+ */
+final class Metrics {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(String endpoint, long nanos, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.recorder.recordValue(nanos);
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    /** Counts an open-model arrival that was not started because too many sessions were running. */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    /** Prints one line for the interval since the last call, across all endpoints. */
+    synchronized void printInterval(PrintStream out, long elapsedNanos, long intervalNanos) {
+        long requests = 0;
+        long errors = 0;
+        Histogram interval = null;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint stats = entry.getValue();
+            Histogram histogram = stats.drain();
+            long endpointErrors = stats.errors.sum();
+            long newErrors = endpointErrors - stats.reportedErrors;
+            stats.reportedErrors = endpointErrors;
+            if (entry.getKey().equals(LoadGenerator.SESSION)) {
+                continue;
+            }
+            errors += newErrors;
+            requests += histogram.getTotalCount();
+            if (interval == null) {
+                interval = histogram.copy();
+            } else {
+                interval.add(histogram);
+            }
+        }
+        double seconds = intervalNanos / 1e9;
+        out.printf("%6.0fs  %8.1f req/s  errors %-6d p50 %8.2f ms  p99 %8.2f ms%n",
+                elapsedNanos / 1e9, requests / seconds, errors,
+                interval != null ? millis(interval.getValueAtPercentile(50)) : 0.0,
+                interval != null ? millis(interval.getValueAtPercentile(99)) : 0.0);
+    }
+
+    /** Prints per-endpoint totals; call after the last {@link #printInterval}. */
+    synchronized void printSummary(PrintStream out, long runNanos) {
+        double seconds = runNanos / 1e9;
+        out.printf("%n%-32s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Endpoint stats = entry.getValue();
+            stats.drain();
+            Histogram total = stats.total;
+            out.printf("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), total.getTotalCount(), stats.errors.sum(), total.getTotalCount() / seconds,
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue()));
+        }
+        if (dropped.sum() > 0) {
+            out.printf("%nDropped arrivals (max-in-flight reached): %d%n", dropped.sum());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Endpoint {
+
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        private final LongAdder errors = new LongAdder();
+        private Histogram recycled;
+        private long reportedErrors;
+
+        /** Moves the values recorded since the last drain into the total and returns them. */
+        Histogram drain() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            total.add(recycled);
+            return recycled;
+        }
+    }
+}
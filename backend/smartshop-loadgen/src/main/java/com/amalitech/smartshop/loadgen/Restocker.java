@@ -0,0 +1,28 @@
+package com.amalitech.smartshop.loadgen;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Tops up stock in the local database so that a long run does not sell out the
+ * catalog and turn every later checkout into an error. Only products that already
+ * have an inventory row are touched.
+ */
+final class Restocker {
+
+    private static final String RESTOCK_SQL = "UPDATE inventory SET quantity = ? WHERE quantity < ?";
+
+    private Restocker() {
+    }
+
+    static int restock(LoadConfig config) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(config.dbUrl(), config.dbUser(), config.dbPassword());
+             PreparedStatement ps = connection.prepareStatement(RESTOCK_SQL)) {
+            ps.setInt(1, config.restock());
+            ps.setInt(2, config.restock());
+            return ps.executeUpdate();
+        }
+    }
+}
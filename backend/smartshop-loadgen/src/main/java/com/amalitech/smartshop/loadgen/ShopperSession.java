@@ -0,0 +1,91 @@
+package com.amalitech.smartshop.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One customer visit: browse a few listing pages with random sorting, look at
+ * the catalog and cart over GraphQL, put one to three in-stock products in the
+ * cart and check out. Think times between steps vary by ±50% so sessions do
+ * not fall into lockstep.
+ */
+final class ShopperSession {
+
+    private static final String[] SORT_FIELDS = {null, "PRICE", "NAME", "CREATED_AT"};
+    private static final int PAGE_SIZE = 20;
+    private static final String ALL_PRODUCTS_QUERY = "query { allProducts { id name price quantity categoryName } }";
+    private static final String GET_CART_QUERY = "query { getCart { id totalItems totalAmount items { productId quantity totalPrice } } }";
+
+    private final SmartShopClient client;
+    private final Duration thinkTime;
+
+    ShopperSession(SmartShopClient client, Duration thinkTime) {
+        this.client = client;
+        this.thinkTime = thinkTime;
+    }
+
+    void run(AccountPool.Account account) throws IOException, InterruptedException {
+        try {
+            shop(account);
+        } catch (SmartShopClient.RequestFailedException e) {
+            // The session expired: log in again for the next visit; this one counts as failed
+            if (e.status() == 401) {
+                AccountPool.signIn(client, account);
+            }
+            throw e;
+        }
+    }
+
+    private void shop(AccountPool.Account account) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (account.token == null) {
+            AccountPool.signIn(client, account);
+        }
+        String token = account.token;
+
+        List<Long> inStock = new ArrayList<>();
+        int pages = 1 + random.nextInt(3);
+        String sortBy = SORT_FIELDS[random.nextInt(SORT_FIELDS.length)];
+        boolean ascending = random.nextBoolean();
+        for (int page = 0; page < pages; page++) {
+            JsonNode listing = client.listProducts(token, page, PAGE_SIZE, sortBy, ascending);
+            for (JsonNode product : listing.path("content")) {
+                if (product.path("quantity").asInt(0) > 0) {
+                    inStock.add(product.path("id").asLong());
+                }
+            }
+            think();
+            if (listing.path("isLast").asBoolean(listing.path("last").asBoolean(true))) {
+                break;
+            }
+        }
+
+        client.graphql(SmartShopClient.GRAPHQL_ALL_PRODUCTS, token, ALL_PRODUCTS_QUERY);
+        think();
+
+        if (inStock.isEmpty()) {
+            return;
+        }
+        int items = 1 + random.nextInt(Math.min(3, inStock.size()));
+        for (int i = 0; i < items; i++) {
+            client.addToCart(token, inStock.get(random.nextInt(inStock.size())), 1);
+            think();
+        }
+
+        client.graphql(SmartShopClient.GRAPHQL_GET_CART, token, GET_CART_QUERY);
+        think();
+        client.checkout(token);
+    }
+
+    private void think() throws InterruptedException {
+        long millis = thinkTime.toMillis();
+        if (millis > 0) {
+            Thread.sleep(millis / 2 + ThreadLocalRandom.current().nextLong(millis + 1));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.amalitech.smartshop.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * The SmartShop calls a session makes. Every call is timed and recorded in
+ * {@link Metrics} under a fixed endpoint name, with query parameters left out
+ * so that, for example, all product listing pages share one histogram.
+ */
+final class SmartShopClient {
+
+    static final String LOGIN = "POST /api/users/login";
+    static final String REGISTER = "POST /api/users/register";
+    static final String LIST_PRODUCTS = "GET /api/products";
+    static final String ADD_TO_CART = "POST /api/cart/add";
+    static final String CHECKOUT = "POST /api/cart/checkout";
+    static final String GRAPHQL_ALL_PRODUCTS = "GraphQL allProducts";
+    static final String GRAPHQL_GET_CART = "GraphQL getCart";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Metrics metrics;
+    private final ObjectMapper json = new ObjectMapper();
+
+    SmartShopClient(HttpClient http, String baseUrl, Metrics metrics) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.metrics = metrics;
+    }
+
+    /** Logs in and returns the session token. */
+    String login(String email, String password) throws IOException, InterruptedException {
+        ObjectNode body = json.createObjectNode().put("email", email).put("password", password);
+        return post(LOGIN, "/api/users/login", null, body).path("token").asText();
+    }
+
+    /** Registers a customer and returns the session token. */
+    String register(String email, String password, String firstName, String lastName) throws IOException, InterruptedException {
+        ObjectNode body = json.createObjectNode()
+                .put("firstName", firstName)
+                .put("lastName", lastName)
+                .put("email", email)
+                .put("password", password);
+        return post(REGISTER, "/api/users/register", null, body).path("token").asText();
+    }
+
+    /** Returns a page of the product listing; {@code sortBy} may be null. */
+    JsonNode listProducts(String token, int page, int size, String sortBy, boolean ascending)
+            throws IOException, InterruptedException {
+        StringBuilder path = new StringBuilder("/api/products?page=").append(page).append("&size=").append(size);
+        if (sortBy != null) {
+            path.append("&sortBy=").append(URLEncoder.encode(sortBy, StandardCharsets.UTF_8))
+                    .append("&ascending=").append(ascending);
+        }
+        return send(LIST_PRODUCTS, request(path.toString(), token).GET());
+    }
+
+    JsonNode addToCart(String token, long productId, int quantity) throws IOException, InterruptedException {
+        ObjectNode body = json.createObjectNode().put("productId", productId).put("quantity", quantity);
+        return post(ADD_TO_CART, "/api/cart/add", token, body);
+    }
+
+    JsonNode checkout(String token) throws IOException, InterruptedException {
+        return send(CHECKOUT, request("/api/cart/checkout", token).POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    /** Runs a GraphQL query and returns its {@code data} object; GraphQL errors count as failures. */
+    JsonNode graphql(String endpoint, String token, String query) throws IOException, InterruptedException {
+        ObjectNode body = json.createObjectNode().put("query", query);
+        HttpRequest.Builder request = request("/graphql", token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            JsonNode root = json.readTree(response.body());
+            if (response.statusCode() / 100 != 2 || root.hasNonNull("errors")) {
+                throw new RequestFailedException(endpoint, response.statusCode(), root.path("errors").toString());
+            }
+            success = true;
+            return root.path("data");
+        } finally {
+            metrics.record(endpoint, System.nanoTime() - start, success);
+        }
+    }
+
+    private JsonNode post(String endpoint, String path, String token, JsonNode body) throws IOException, InterruptedException {
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+    }
+
+    /** Sends a REST call and returns the {@code data} of its {@code ApiResponse} envelope. */
+    private JsonNode send(String endpoint, HttpRequest.Builder request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new RequestFailedException(endpoint, response.statusCode(), response.body());
+            }
+            success = true;
+            return json.readTree(response.body()).path("data");
+        } finally {
+            metrics.record(endpoint, System.nanoTime() - start, success);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    /** A call that completed with a non-2xx status or GraphQL errors. */
+    static final class RequestFailedException extends IOException {
+
+        private final int status;
+
+        RequestFailedException(String endpoint, int status, String body) {
+            super(endpoint + " failed with status " + status + ": " + abbreviate(body));
+            this.status = status;
+        }
+
+        int status() {
+            return status;
+        }
+
+        private static String abbreviate(String body) {
+            return body == null || body.length() <= 200 ? body : body.substring(0, 200) + "...";
+        }
+    }
+}